@@ -0,0 +1,44 @@
+package com.elements.game.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+
+/**
+ * Starts libGDX without a window or GL context, so the game code can run inside a JMH fork. Only
+ * code that does not touch OpenGL may be benchmarked; see {@link RecordingCanvas} for drawing.
+ */
+final class Headless {
+
+    private static HeadlessApplication application;
+
+    private Headless() {
+    }
+
+    /**
+     * starts the headless application and loads the Box2D natives, once per JVM
+     */
+    static synchronized void init() {
+        if (application != null) {
+            return;
+        }
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        // nothing is rendered, the loop only has to keep the application alive
+        config.updatesPerSecond = 1;
+        application = new HeadlessApplication(new ApplicationAdapter() {}, config);
+        Box2D.init();
+    }
+
+    /**
+     * @return the game constants from the assets directory (the working directory of the jmh
+     * task)
+     */
+    static JsonValue gameConstants() {
+        init();
+        return new JsonReader().parse(Gdx.files.internal("levels/constants.json"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.elements.game.benchmarks;
+
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.elements.game.utility.json.LevelParser;
+import com.elements.game.utility.level.LevelDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses synthetic Tiled maps into a {@link LevelDescriptor}, which is done every time a level is
+ * loaded without a compiled level file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelParseBenchmark {
+
+    /** number of tile objects in the map */
+    @Param({"100", "1000", "10000", "100000"})
+    public int objects;
+
+    private String source;
+
+    private JsonValue map;
+
+    private LevelParser parser;
+
+    private LevelDescriptor descriptor;
+
+    @Setup
+    public void setup() {
+        source = SyntheticLevels.tiledMap(objects);
+        map = new JsonReader().parse(source);
+        parser = new LevelParser(SyntheticLevels.tileset());
+        descriptor = new LevelDescriptor();
+    }
+
+    /**
+     * @return the filled descriptor
+     */
+    @Benchmark
+    public LevelDescriptor parse() {
+        return parser.parse(map, descriptor);
+    }
+
+    /**
+     * includes reading the json text, as the game does for a level that is not compiled
+     *
+     * @return the filled descriptor
+     */
+    @Benchmark
+    public LevelDescriptor readAndParse() {
+        return parser.parse(new JsonReader().parse(source), descriptor);
+    }
+}
@@ -0,0 +1,85 @@
+package com.elements.game.benchmarks;
+
+import com.badlogic.gdx.utils.JsonValue;
+import com.elements.game.controller.GameplayController;
+import com.elements.game.model.GameWorld;
+import com.elements.game.utility.level.LevelDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link GameplayController#update} one physics step at a time with the given number of
+ * dynamic {@link com.elements.game.model.WoodBlock}s in the world. The level is rebuilt before
+ * every invocation, and an invocation only simulates the first {@link #STEPS} steps. Box2D puts a
+ * body to sleep only after it has been at rest for half a second, so every block is awake (the
+ * stacks are still settling under their own weight) while it is measured. The score is the time
+ * per step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhysicsStepBenchmark {
+
+    /** steps simulated per invocation: half a second at 60 Hz, before any body can sleep */
+    static final int STEPS = 30;
+
+    /** number of movable blocks in the level */
+    @Param({"10", "100", "1000"})
+    public int blocks;
+
+    private GameWorld gameWorld;
+
+    private GameplayController controller;
+
+    private LevelDescriptor descriptor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        JsonValue constants = Headless.gameConstants();
+        gameWorld = new GameWorld(constants);
+        controller = new GameplayController(gameWorld, constants);
+        descriptor = SyntheticLevels.descriptor(blocks, new LevelDescriptor());
+    }
+
+    // an invocation runs STEPS whole steps, so JMH's timing overhead per invocation stays small
+    @Setup(Level.Invocation)
+    public void populate() {
+        gameWorld.populate(descriptor);
+        gameWorld.updateStreaming(SyntheticLevels.bounds(blocks));
+        controller.reset();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gameWorld.dispose();
+    }
+
+    /**
+     * @return the interpolation factor left after the last step
+     */
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public float update() {
+        for (int i = 0; i < STEPS; i++) {
+            controller.update(controller.getTimeStep());
+        }
+        return controller.getInterpolationAlpha();
+    }
+}
@@ -0,0 +1,58 @@
+package com.elements.game.benchmarks;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.FloatArray;
+import com.elements.game.view.GameCanvas;
+
+/**
+ * A {@link GameCanvas} without a GL context that records the sprites submitted to it instead of
+ * drawing them. Only the drawing calls made by the game object renderer are supported.
+ */
+class RecordingCanvas extends GameCanvas {
+
+    /** floats recorded per sprite: origin, position, angle and scale */
+    static final int SPRITE_STRIDE = 7;
+
+    /** sprites submitted since the last {@link #begin} */
+    private final FloatArray sprites;
+
+    RecordingCanvas() {
+        super(null, null);
+        sprites = new FloatArray(SPRITE_STRIDE * 1024);
+    }
+
+    @Override
+    public void clear() {
+        sprites.clear();
+    }
+
+    @Override
+    public void begin(Camera camera) {
+        sprites.clear();
+    }
+
+    @Override
+    public void end() {
+    }
+
+    @Override
+    public void draw(TextureRegion region, Color tint, float ox, float oy, float x, float y,
+                     float angle, float sx, float sy) {
+        sprites.add(ox, oy, x, y);
+        sprites.add(angle, sx, sy);
+    }
+
+    @Override
+    public int getSpriteCount() {
+        return sprites.size / SPRITE_STRIDE;
+    }
+
+    /**
+     * @return the recorded sprites, {@link #SPRITE_STRIDE} floats each
+     */
+    FloatArray getSprites() {
+        return sprites;
+    }
+}
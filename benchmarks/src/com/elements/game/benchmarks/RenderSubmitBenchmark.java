@@ -0,0 +1,119 @@
+package com.elements.game.benchmarks;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.elements.game.model.CollidableObject;
+import com.elements.game.model.GameWorld;
+import com.elements.game.utility.assets.AssetDirectory;
+import com.elements.game.utility.level.LevelDescriptor;
+import com.elements.game.visitors.GameObjectRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submits the visible game objects to a {@link RecordingCanvas} the way the gameplay screen does:
+ * the spatial index is queried for the view and every object found is visited by the
+ * {@link GameObjectRenderer}. Nothing reaches the GPU, so this measures the CPU side of drawing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderSubmitBenchmark {
+
+    /** number of movable blocks in the level (all of them are in view) */
+    @Param({"100", "1000", "10000"})
+    public int blocks;
+
+    /** draw scale (pixels per game unit) */
+    private static final float DRAW_SCALE = 48;
+
+    /** size (in pixels) of the stand-in texture regions */
+    private static final int REGION_SIZE = 48;
+
+    private GameWorld gameWorld;
+
+    private RecordingCanvas canvas;
+
+    private GameObjectRenderer renderer;
+
+    private OrthographicCamera camera;
+
+    private Rectangle viewBounds;
+
+    private Array<CollidableObject> visibleObjects;
+
+    private StubAssets assets;
+
+    /**
+     * an asset directory holding stand-in regions for the renderer, so no atlas is loaded
+     */
+    private static class StubAssets extends AssetDirectory {
+        StubAssets() {
+            super("catalog/assets.json");
+            regions.put("game:player", region());
+            regions.put("game:grass_block", region());
+            regions.put("game:wooden_block", region());
+        }
+
+        private static TextureRegion region() {
+            TextureRegion region = new TextureRegion();
+            region.setRegionWidth(REGION_SIZE);
+            region.setRegionHeight(REGION_SIZE);
+            return region;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        gameWorld = new GameWorld(Headless.gameConstants());
+        viewBounds = SyntheticLevels.bounds(blocks);
+        gameWorld.populate(SyntheticLevels.descriptor(blocks, new LevelDescriptor()));
+        gameWorld.updateStreaming(viewBounds);
+        gameWorld.updateSpatialIndex();
+
+        canvas = new RecordingCanvas();
+        assets = new StubAssets();
+        renderer = new GameObjectRenderer(canvas);
+        renderer.gatherAssets(assets);
+        renderer.setDrawScale(DRAW_SCALE, DRAW_SCALE);
+        camera = new OrthographicCamera();
+        visibleObjects = new Array<>(false, blocks + 64);
+    }
+
+    @TearDown
+    public void tearDown() {
+        gameWorld.dispose();
+        assets.dispose();
+    }
+
+    /**
+     * @return number of submitted sprites
+     */
+    @Benchmark
+    public int submit() {
+        canvas.begin(camera);
+        gameWorld.queryObjects(viewBounds, visibleObjects);
+        for (int i = 0; i < visibleObjects.size; i++) {
+            visibleObjects.get(i).accept(renderer);
+        }
+        canvas.end();
+        return canvas.getSpriteCount();
+    }
+}
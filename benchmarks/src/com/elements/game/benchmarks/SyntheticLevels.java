@@ -0,0 +1,125 @@
+package com.elements.game.benchmarks;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.elements.game.utility.level.LevelDescriptor;
+
+/**
+ * Generates levels of any size for the benchmarks. Every level is a run of ground platforms with
+ * the player at the left end and movable blocks stacked in columns of {@link #STACK_HEIGHT} above
+ * the ground, so the shape of the level stays the same as it grows.
+ */
+final class SyntheticLevels {
+
+    /** number of blocks in a column */
+    static final int STACK_HEIGHT = 8;
+
+    /** size (in pixels) of a tile in the generated Tiled maps */
+    private static final int TILE_SIZE = 32;
+
+    /** Tiled gids of the embedded tileset */
+    private static final int GRASS_GID = 1;
+    private static final int WOOD_GID = 2;
+    private static final int PLAYER_GID = 3;
+
+    private SyntheticLevels() {
+    }
+
+    /**
+     * @param blocks number of movable blocks
+     * @return number of ground platforms under the given number of blocks
+     */
+    static int groundWidth(int blocks) {
+        // a spare column on each side keeps the outer stacks on the ground
+        return Math.max(4, (blocks + STACK_HEIGHT - 1) / STACK_HEIGHT * 2 + 2);
+    }
+
+    /**
+     * fills a level descriptor with a ground and the given number of blocks
+     *
+     * @param blocks number of movable blocks
+     * @param out    descriptor to fill (cleared first)
+     * @return the given descriptor
+     */
+    static LevelDescriptor descriptor(int blocks, LevelDescriptor out) {
+        out.clear();
+        int width = groundWidth(blocks);
+        LevelDescriptor.Columns ground = out.get(LevelDescriptor.PLATFORM);
+        for (int i = 0; i < width; i++) {
+            ground.add(i + 0.5f, 0.5f, 1, 1);
+        }
+        LevelDescriptor.Columns wood = out.get(LevelDescriptor.WOOD);
+        for (int i = 0; i < blocks; i++) {
+            // stacks stand on every other ground tile
+            wood.add(i / STACK_HEIGHT * 2 + 1.5f, i % STACK_HEIGHT + 1.5f, 1, 1);
+        }
+        out.setPlayer(0.5f, 2);
+        return out;
+    }
+
+    /**
+     * @param blocks number of movable blocks
+     * @return area covered by the level (in game units)
+     */
+    static Rectangle bounds(int blocks) {
+        return new Rectangle(0, 0, groundWidth(blocks), STACK_HEIGHT + 2);
+    }
+
+    /**
+     * builds the json of a Tiled map with a single object layer holding the given number of
+     * objects, half of them ground platforms and half movable blocks. The tileset is embedded, so
+     * the map needs no other file.
+     *
+     * @param objects number of tile objects (besides the player)
+     * @return the Tiled map json
+     */
+    static String tiledMap(int objects) {
+        int blocks = objects / 2;
+        int width = Math.max(groundWidth(blocks), objects - blocks);
+        int height = STACK_HEIGHT + 2;
+        StringBuilder json = new StringBuilder(objects * 96 + 1024);
+        json.append("{\"type\":\"map\",\"orientation\":\"orthogonal\",\"infinite\":false,")
+            .append("\"width\":").append(width).append(",\"height\":").append(height)
+            .append(",\"tilewidth\":").append(TILE_SIZE).append(",\"tileheight\":")
+            .append(TILE_SIZE).append(",\"tilesets\":[").append(tileset(GRASS_GID))
+            .append("],\"layers\":[{\"type\":\"objectgroup\",\"name\":\"objects\",\"objects\":[");
+        int id = 1;
+        appendObject(json, id++, PLAYER_GID, 0, 2);
+        for (int i = 0; i < objects - blocks; i++) {
+            appendObject(json.append(','), id++, GRASS_GID, i, 0);
+        }
+        for (int i = 0; i < blocks; i++) {
+            appendObject(json.append(','), id++, WOOD_GID, i / STACK_HEIGHT * 2 + 1,
+                         i % STACK_HEIGHT + 1);
+        }
+        json.append("]}]}");
+        return json.toString();
+    }
+
+    /**
+     * @return the tileset embedded in the generated maps, also used as the parser's default
+     */
+    static JsonValue tileset() {
+        return new JsonReader().parse(tileset(GRASS_GID));
+    }
+
+    private static String tileset(int firstGid) {
+        return "{\"firstgid\":" + firstGid + ",\"name\":\"objects\",\"tilewidth\":" + TILE_SIZE +
+                ",\"tileheight\":" + TILE_SIZE + ",\"tilecount\":3,\"tiles\":[" +
+                "{\"id\":0,\"type\":\"grass\"},{\"id\":1,\"type\":\"wood\"}," +
+                "{\"id\":2,\"type\":\"player\"}]}";
+    }
+
+    /**
+     * appends a tile object covering the given tile (Tiled anchors tile objects at their bottom
+     * left corner, with y growing downwards)
+     */
+    private static void appendObject(StringBuilder json, int id, int gid, int column, int row) {
+        json.append("{\"id\":").append(id).append(",\"gid\":").append(gid)
+            .append(",\"x\":").append(column * TILE_SIZE)
+            .append(",\"y\":").append((STACK_HEIGHT + 2 - row) * TILE_SIZE)
+            .append(",\"width\":").append(TILE_SIZE).append(",\"height\":").append(TILE_SIZE)
+            .append(",\"rotation\":0,\"type\":\"\",\"visible\":true}");
+    }
+}
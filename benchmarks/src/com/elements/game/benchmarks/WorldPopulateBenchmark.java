@@ -0,0 +1,66 @@
+package com.elements.game.benchmarks;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.elements.game.model.GameWorld;
+import com.elements.game.utility.level.LevelDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and tears down a whole level, as happens on every level start and reset. The level is
+ * streamed in completely, so every chunk is built and every body is added to the Box2D world.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldPopulateBenchmark {
+
+    /** number of movable blocks in the level */
+    @Param({"100", "1000", "10000"})
+    public int blocks;
+
+    private GameWorld gameWorld;
+
+    private LevelDescriptor descriptor;
+
+    private Rectangle bounds;
+
+    @Setup
+    public void setup() {
+        gameWorld = new GameWorld(Headless.gameConstants());
+        descriptor = SyntheticLevels.descriptor(blocks, new LevelDescriptor());
+        bounds = SyntheticLevels.bounds(blocks);
+    }
+
+    /**
+     * @return number of objects in the populated world
+     */
+    @Benchmark
+    public int populateAndDispose() {
+        gameWorld.populate(descriptor);
+        gameWorld.updateStreaming(bounds);
+        int size = gameWorld.getGameObjects().size();
+        gameWorld.clear();
+        return size;
+    }
+
+    @TearDown
+    public void tearDown() {
+        gameWorld.dispose();
+    }
+}
@@ -0,0 +1,157 @@
+package com.elements.game.controller;
+
+import com.badlogic.gdx.physics.box2d.*;
+import com.elements.game.model.CollisionCategory;
+
+/**
+ * Routes Box2D contact callbacks to handlers registered for a pair of collision categories (see
+ * {@link CollisionCategory}). The category of each fixture is read from its filter data, so
+ * finding the handler for a contact is a table lookup instead of a chain of type checks. <br>
+ * Handlers always receive the two fixtures in the order of the categories they were registered
+ * with, regardless of the order Box2D reports them in.
+ */
+public class ContactDispatcher implements ContactListener {
+
+    /**
+     * Callbacks for contacts between two categories of fixtures. All methods do nothing by default
+     * so a handler only needs to override the callbacks it cares about. These are invoked during
+     * the physics step; the world must not be modified directly from here.
+     */
+    public interface ContactHandler {
+        /**
+         * @param contact box2d contact
+         * @param first   fixture of the first registered category
+         * @param second  fixture of the second registered category
+         */
+        default void beginContact(Contact contact, Fixture first, Fixture second) {}
+
+        /**
+         * @param contact box2d contact
+         * @param first   fixture of the first registered category
+         * @param second  fixture of the second registered category
+         */
+        default void endContact(Contact contact, Fixture first, Fixture second) {}
+
+        /**
+         * @param contact     box2d contact
+         * @param oldManifold physics manifold
+         * @param first       fixture of the first registered category
+         * @param second      fixture of the second registered category
+         */
+        default void preSolve(Contact contact, Manifold oldManifold, Fixture first,
+                              Fixture second) {}
+
+        /**
+         * @param contact box2d contact
+         * @param impulse contact impulse
+         * @param first   fixture of the first registered category
+         * @param second  fixture of the second registered category
+         */
+        default void postSolve(Contact contact, ContactImpulse impulse, Fixture first,
+                               Fixture second) {}
+    }
+
+    /** handlers indexed by (category index of fixture A) * COUNT + (category index of fixture B) */
+    private final ContactHandler[] handlers;
+
+    /** whether the fixtures must be swapped before calling the handler at the same index */
+    private final boolean[] swapped;
+
+    public ContactDispatcher() {
+        handlers = new ContactHandler[CollisionCategory.COUNT * CollisionCategory.COUNT];
+        swapped = new boolean[handlers.length];
+    }
+
+    /**
+     * registers the handler for contacts between the two categories, replacing any handler
+     * previously registered for that pair.
+     *
+     * @param first   category of the first fixture passed to the handler
+     * @param second  category of the second fixture passed to the handler
+     * @param handler contact callbacks
+     */
+    public void register(short first, short second, ContactHandler handler) {
+        int a = CollisionCategory.indexOf(first);
+        int b = CollisionCategory.indexOf(second);
+        handlers[a * CollisionCategory.COUNT + b] = handler;
+        swapped[a * CollisionCategory.COUNT + b] = false;
+        handlers[b * CollisionCategory.COUNT + a] = handler;
+        // same-category pairs are never swapped
+        swapped[b * CollisionCategory.COUNT + a] = a != b;
+    }
+
+    /**
+     * @param fixtureA first fixture of a contact
+     * @param fixtureB second fixture of a contact
+     * @return table index of the contact's category pair
+     */
+    private int indexOf(Fixture fixtureA, Fixture fixtureB) {
+        int a = CollisionCategory.indexOf(fixtureA.getFilterData().categoryBits);
+        int b = CollisionCategory.indexOf(fixtureB.getFilterData().categoryBits);
+        return a * CollisionCategory.COUNT + b;
+    }
+
+    @Override
+    public void beginContact(Contact contact) {
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        int index = indexOf(fixtureA, fixtureB);
+        ContactHandler handler = handlers[index];
+        if (handler == null) {
+            return;
+        }
+        if (swapped[index]) {
+            handler.beginContact(contact, fixtureB, fixtureA);
+        } else {
+            handler.beginContact(contact, fixtureA, fixtureB);
+        }
+    }
+
+    @Override
+    public void endContact(Contact contact) {
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        int index = indexOf(fixtureA, fixtureB);
+        ContactHandler handler = handlers[index];
+        if (handler == null) {
+            return;
+        }
+        if (swapped[index]) {
+            handler.endContact(contact, fixtureB, fixtureA);
+        } else {
+            handler.endContact(contact, fixtureA, fixtureB);
+        }
+    }
+
+    @Override
+    public void preSolve(Contact contact, Manifold oldManifold) {
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        int index = indexOf(fixtureA, fixtureB);
+        ContactHandler handler = handlers[index];
+        if (handler == null) {
+            return;
+        }
+        if (swapped[index]) {
+            handler.preSolve(contact, oldManifold, fixtureB, fixtureA);
+        } else {
+            handler.preSolve(contact, oldManifold, fixtureA, fixtureB);
+        }
+    }
+
+    @Override
+    public void postSolve(Contact contact, ContactImpulse impulse) {
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        int index = indexOf(fixtureA, fixtureB);
+        ContactHandler handler = handlers[index];
+        if (handler == null) {
+            return;
+        }
+        if (swapped[index]) {
+            handler.postSolve(contact, impulse, fixtureB, fixtureA);
+        } else {
+            handler.postSolve(contact, impulse, fixtureA, fixtureB);
+        }
+    }
+}
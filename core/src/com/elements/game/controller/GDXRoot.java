@@ -7,6 +7,7 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.elements.game.utility.assets.AssetDirectory;
+import com.elements.game.utility.assets.LoadTrace;
 import com.elements.game.view.GameCanvas;
 import com.elements.game.view.screen.GameScreen;
 import com.elements.game.view.screen.GameplayScreen;
@@ -32,6 +33,21 @@ public class GDXRoot extends Game {
     /** a test level can be used for partial level development */
     private JsonValue testLevel;
 
+    /** file (in local storage) to write the startup load trace to, null to not trace */
+    private String traceFile;
+
+    /** whether the loading screen waits a moment after loading before exiting */
+    private boolean exitDelay = true;
+
+    /** trace of the startup asset loads (null if not traced) */
+    private LoadTrace loadTrace;
+
+    /** file (in local storage) to record the player's input to, null to not record */
+    private String recordFile;
+
+    /** file (in local storage) of recorded input to replay, null to play normally */
+    private String replayFile;
+
     public GDXRoot(String filePath){
         this.filePath = filePath;
     }
@@ -40,6 +56,49 @@ public class GDXRoot extends Game {
         this("");
     }
 
+    /**
+     * Records every asset load during startup and writes the trace to the given file once
+     * loading is done. Must be called before the application is created.
+     * <p>
+     * The trace is in the Chrome trace event format (see {@link LoadTrace}), and a summary
+     * table is logged as well.
+     *
+     * @param traceFile file (in local storage) to write the trace to, null to not trace
+     */
+    public void setStartupTrace(String traceFile) {
+        this.traceFile = traceFile;
+    }
+
+    /**
+     * Sets whether the loading screen waits a moment after loading before exiting. Must be
+     * called before the application is created. Disable the delay when measuring startup.
+     *
+     * @param exitDelay whether the loading screen waits after loading
+     */
+    public void setLoadingExitDelay(boolean exitDelay) {
+        this.exitDelay = exitDelay;
+    }
+
+    /**
+     * Records the player's input, so the session can be replayed (see {@link InputLog}). Must be
+     * called before the application is created.
+     *
+     * @param recordFile file (in local storage) to write the input log to, null to not record
+     */
+    public void setInputRecording(String recordFile) {
+        this.recordFile = recordFile;
+    }
+
+    /**
+     * Replays recorded input instead of reading the keyboard, starting at the level it was
+     * recorded in. Must be called before the application is created.
+     *
+     * @param replayFile file (in local storage) of the input log, null to play normally
+     */
+    public void setInputReplay(String replayFile) {
+        this.replayFile = replayFile;
+    }
+
     /**
      * Sets the current screen, {@link Screen#hide()} is called on any old screen, and
      * {@link Screen#show()} is called on the new screen, if any. The active screen is updated.
@@ -54,7 +113,11 @@ public class GDXRoot extends Game {
     @Override
     public void create() {
         canvas = new GameCanvas();
-        loadingScreen = new LoadingScreen("catalog/assets.json", canvas, 1);
+        loadTrace = traceFile == null ? null : new LoadTrace();
+        loadingScreen = new LoadingScreen("catalog/assets.json", canvas, 1, loadTrace);
+        if (!exitDelay) {
+            loadingScreen.setExitDelay(0);
+        }
         gameplayScreen = new GameplayScreen(canvas);
         //transitionScreen = new TransitionalScreen(canvas);
         setScreen(loadingScreen);
@@ -91,6 +154,12 @@ public class GDXRoot extends Game {
     private void switchScreen(Screen screen, int exitCode) {
         if (screen == loadingScreen) {
             assetDirectory = loadingScreen.getAssets();
+            if (loadTrace != null) {
+                loadTrace.write(Gdx.files.local(traceFile));
+                Gdx.app.log("LoadTrace", "startup trace written to " + traceFile + "\n" +
+                                         loadTrace.getSummary());
+                loadTrace = null;
+            }
             // shift focus to another screen
             gameplayScreen.gatherAssets(assetDirectory);
             //transitionScreen.gatherAssets(assetDirectory);
@@ -108,7 +177,16 @@ public class GDXRoot extends Game {
             // TODO (later): this is obviously temporary, with a level selector, the loading
             //  screen would quit to main menu followed by some level selector and finally the
             //  selected level would be passed to the gameplay screen to load.
-            gameplayScreen.setLevel(0);
+            int level = 0;
+            if (recordFile != null) {
+                gameplayScreen.setRecordingFile(Gdx.files.local(recordFile));
+            }
+            if (replayFile != null) {
+                InputLog replay = InputLog.read(Gdx.files.local(replayFile));
+                gameplayScreen.setReplay(replay);
+                level = levelOf(replay);
+            }
+            gameplayScreen.setLevel(level);
             setScreen(gameplayScreen);
         } else if (screen == gameplayScreen) {
             switch (exitCode) {
@@ -127,6 +205,19 @@ public class GDXRoot extends Game {
         //        }
     }
 
+    /**
+     * @param log recorded input
+     * @return id of the level the input was recorded in (0 if unknown)
+     */
+    private static int levelOf(InputLog log) {
+        String key = log.getLevel();
+        try {
+            return key.startsWith("level") ? Integer.parseInt(key.substring(5)) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     @Override
     public void resize(int width, int height) {
         Gdx.gl.glViewport(0, 0, width, height);
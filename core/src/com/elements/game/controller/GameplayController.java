@@ -1,12 +1,20 @@
 package com.elements.game.controller;
 
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectSet;
 import com.elements.game.model.*;
+import com.elements.game.utility.profiling.FrameProfiler;
 
-public class GameplayController implements ContactListener {
+public class GameplayController {
+
+    /** default duration (seconds) of a single physics step */
+    public static final float DEFAULT_TIME_STEP = 1 / 60f;
+
+    /** default cap on the number of physics steps taken to catch up in a single frame */
+    public static final int DEFAULT_MAX_SUB_STEPS = 5;
 
     private final JsonValue gameConstants;
 
@@ -21,7 +29,13 @@ public class GameplayController implements ContactListener {
     /**
      * controller to read gameplay inputs
      */
-    private final InputController inputController;
+    private InputController inputController;
+
+    /** log receiving the input applied at every physics step (null if not recording) */
+    private InputLog recording;
+
+    /** measures the input, physics and hit-box sections of a frame (disabled by default) */
+    private FrameProfiler profiler;
 
     /**
      * vector cache to be used for computations
@@ -36,35 +50,255 @@ public class GameplayController implements ContactListener {
 
     private final ObjectSet<Fixture> groundSensorContacts;
 
+    /** routes physics contacts to the gameplay handlers by collision category */
+    private final ContactDispatcher contactDispatcher;
+
+    // BEGIN-REGION ================== FIXED TIME STEP ===========================
+
+    /** duration (seconds) of a single physics step */
+    private final float timeStep;
+
+    /** maximum number of physics steps per frame (prevents the spiral of death) */
+    private final int maxSubSteps;
+
+    private final int velocityIterations;
+
+    private final int positionIterations;
+
+    /** simulation time (seconds) that has been rendered but not yet simulated */
+    private float accumulator;
+
+    /** fraction of a time step left in the accumulator, used to blend rendered states */
+    private float interpolationAlpha;
+
+    /** whether a jump was requested but not yet consumed by a physics step */
+    private boolean jumpPending;
+
+    /** whether the ability was requested but not yet consumed by a physics step */
+    private boolean abilityPending;
+
+    /** whether reset was requested but not yet consumed by a physics step */
+    private boolean resetPending;
+
+    /** whether a physics step applied a reset that was not handled yet (see {@link #reset()}) */
+    private boolean resetRequested;
+
+    /** area (in game units) whose level chunks are streamed in before every step, empty if none */
+    private final Rectangle streamingArea;
+
+    /** whether {@link #streamingArea} is centered on the player before every step */
+    private boolean streamingFollowsPlayer;
+
+    // END-REGION ==================== FIXED TIME STEP ===========================
+
     public GameplayController(GameWorld gameWorld, JsonValue gameConstants) {
-        inputController = new InputController();
+        this(gameWorld, gameConstants, new InputController());
+    }
+
+    /**
+     * creates a controller reading the player's input from the given input controller instead of
+     * the keyboard.
+     *
+     * @param gameWorld       world to control
+     * @param gameConstants   default constant values for all levels
+     * @param inputController source of the player's input, read once per update
+     */
+    public GameplayController(GameWorld gameWorld, JsonValue gameConstants,
+                              InputController inputController) {
+        this.inputController = inputController;
         cache = new Vector2();
+        streamingArea = new Rectangle();
+        profiler = new FrameProfiler();
         groundSensorContacts = new ObjectSet<>();
+        contactDispatcher = new ContactDispatcher();
+        registerContactHandlers();
         this.gameWorld = gameWorld;
         this.gameConstants = gameConstants;
         JsonValue playerConstants = gameConstants.get("player");
         jumpForceMagnitude = playerConstants.getFloat("jumpForce");
         walkForceMagnitude = playerConstants.getFloat("walkForce");
         maxHorizontalVelocity = playerConstants.getFloat("maxVelocity");
+        JsonValue physicsConstants = gameConstants.get("physics");
+        if (physicsConstants != null) {
+            timeStep = physicsConstants.getFloat("timeStep", DEFAULT_TIME_STEP);
+            maxSubSteps = physicsConstants.getInt("maxSubSteps", DEFAULT_MAX_SUB_STEPS);
+            velocityIterations = physicsConstants.getInt("velocityIterations", 6);
+            positionIterations = physicsConstants.getInt("positionIterations", 2);
+        } else {
+            timeStep = DEFAULT_TIME_STEP;
+            maxSubSteps = DEFAULT_MAX_SUB_STEPS;
+            velocityIterations = 6;
+            positionIterations = 2;
+        }
     }
 
     /**
      * resets this controller. Loads game components from the game world.
      */
     public void reset() {
-        gameWorld.getWorld().setContactListener(this);
+        gameWorld.getWorld().setContactListener(contactDispatcher);
         // reset variables as needed
         player = gameWorld.getPlayer();
+        groundSensorContacts.clear();
+        accumulator = 0;
+        interpolationAlpha = 0;
+        jumpPending = false;
+        abilityPending = false;
+        resetPending = false;
+        resetRequested = false;
+        // the chunks around the start are in the world before the first step
+        updateStreaming();
     }
 
+    /**
+     * streams the level in around the player before every physics step, and once on
+     * {@link #reset()}. Streaming in lockstep with the simulation, from the simulated state
+     * only, keeps it deterministic: a replay adds and removes the same chunks at the same steps.
+     *
+     * @param width  width of the area (in game units) centered on the player
+     * @param height height of the area (in game units) centered on the player
+     */
+    public void setStreamingArea(float width, float height) {
+        streamingArea.set(0, 0, width, height);
+        streamingFollowsPlayer = true;
+    }
+
+    /**
+     * streams the level in around a fixed area before every physics step, and once on
+     * {@link #reset()}, e.g. the whole level.
+     *
+     * @param area area to keep simulated (in game units), null to not stream at all
+     */
+    public void setStreamingArea(Rectangle area) {
+        if (area == null) {
+            streamingArea.set(0, 0, 0, 0);
+        } else {
+            streamingArea.set(area);
+        }
+        streamingFollowsPlayer = false;
+    }
+
+    /**
+     * sets where the player's input comes from, e.g. an {@link InputReplay}
+     *
+     * @param inputController source of the player's input
+     */
+    public void setInputController(InputController inputController) {
+        this.inputController = inputController;
+    }
+
+    /**
+     * @return source of the player's input
+     */
+    public InputController getInputController() {
+        return inputController;
+    }
+
+    /**
+     * records the input applied at every physics step from now on. Replaying the log from the
+     * state the recording started in (usually right after {@link #reset()}) reproduces the
+     * session.
+     *
+     * @param log log to append the input of every step to, null to stop recording
+     */
+    public void setRecording(InputLog log) {
+        recording = log;
+    }
+
+    /**
+     * @param profiler profiler to measure the input, physics and hit-box sections of a frame with
+     *                 (not null, a disabled profiler measures nothing)
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * advances the game by the given amount of (real) time. The physics world is only ever stepped
+     * by a fixed amount, so the simulation may take zero, one or several steps during a frame.
+     *
+     * @param deltaTime time spent in last game loop
+     */
     public void update(float deltaTime) {
+        if (resetRequested) {
+            // the level is about to be reloaded
+            return;
+        }
         // NOTE: if you want to see which keys to press to move player, go to InputController class
-        inputController.readInput();
-        if (inputController.jumpToggled() && player.isGrounded()) {
-            player.applyImpulse(cache.set(0, jumpForceMagnitude));
+        boolean perTick = inputController.readsPerTick();
+        if (!perTick) {
+            readInput();
+        }
+
+        // never try to catch up more than the step cap allows, otherwise a slow frame makes the
+        // next frame even slower.
+        accumulator += Math.min(deltaTime, timeStep * maxSubSteps);
+        int steps = 0;
+        while (accumulator >= timeStep && steps < maxSubSteps) {
+            updateStreaming();
+            if (perTick) {
+                readInput();
+            }
+            applyPlayerInput();
+            step();
+            accumulator -= timeStep;
+            steps++;
+            if (resetRequested) {
+                // the remaining steps belong to the level after the reset
+                accumulator = 0;
+                break;
+            }
         }
+        if (steps == maxSubSteps && accumulator >= timeStep) {
+            // simulation fell behind, drop the backlog rather than spiral
+            accumulator = 0;
+        }
+        interpolationAlpha = accumulator / timeStep;
+        if (steps > 0) {
+            gameWorld.updateSpatialIndex();
+        }
+    }
+
+    /**
+     * reads the input controller. Presses must survive frames in which no physics step is taken,
+     * so they stay pending until a step consumes them.
+     */
+    private void readInput() {
+        profiler.start(FrameProfiler.INPUT);
+        inputController.readInput();
+        jumpPending |= inputController.jumpToggled();
+        abilityPending |= inputController.abilityToggled();
+        resetPending |= inputController.resetToggled();
+        profiler.stop(FrameProfiler.INPUT);
+    }
 
+    /**
+     * converts the current input into forces on the player. Box2D clears forces after every step
+     * so this is applied once per physics step. All input takes effect here, so that recording
+     * what each step applied is enough to replay a session.
+     */
+    private void applyPlayerInput() {
         float horizontal = inputController.getHorizontal();
+        if (recording != null) {
+            recording.add(InputLog.encode(horizontal, jumpPending, abilityPending, resetPending));
+        }
+        resetRequested |= resetPending;
+        resetPending = false;
+        if (horizontal != 0) {
+            player.setFacingRight(horizontal > 0);
+        }
+        if (jumpPending) {
+            jumpPending = false;
+            if (player.isGrounded()) {
+                player.applyImpulse(cache.set(0, jumpForceMagnitude));
+            }
+        }
+        if (abilityPending) {
+            abilityPending = false;
+            // suppose for now, summon fireball
+            gameWorld.summonFireBall(player);
+        }
+
         if (Math.abs(horizontal) > 0) {
             // there is left/right movement (horizontal is either -1 or 1)
             if ((int) player.getHorizontalVelocity() * horizontal < 0) {
@@ -76,113 +310,123 @@ public class GameplayController implements ContactListener {
                         player.getHorizontalVelocity()) / maxHorizontalVelocity) + 1) % 2), 0));
             }
         }
+    }
 
-        postUpdate(deltaTime);
-
-        if (inputController.abilityToggled()) {
-            // suppose for now, summon fireball
-            gameWorld.summonFireBall(player);
+    /**
+     * adds and removes level chunks around the streaming area, if there is one
+     */
+    private void updateStreaming() {
+        if (streamingArea.width <= 0 || streamingArea.height <= 0) {
+            return;
+        }
+        if (streamingFollowsPlayer) {
+            streamingArea.setCenter(player.getX(), player.getY());
         }
+        gameWorld.updateStreaming(streamingArea);
     }
 
     /**
-     * at the end of each update loop, the game
+     * A reset is part of the input, so it is applied by a physics step like any other input (and
+     * recorded with it). Reloading the level is up to the owner of the game world, which then
+     * calls {@link #reset()}. No further step is taken in the meantime.
      *
-     * @param deltaTime time spent in last game loop
+     * @return whether a reset was applied that was not handled yet
      */
-    private void postUpdate(float deltaTime) {
-        // (may not be necessary) update physics state of hit-boxes
-        // TODO (later): method name needs renaming because not all game objects WILL be collidable.
-        gameWorld.getWorld().step(1 / 60f, 6, 2);
-        for (CollidableObject obj : gameWorld.getGameObjects()) {
-            obj.getHitBox().update(deltaTime);
-        }
+    public boolean isResetRequested() {
+        return resetRequested;
     }
 
-    @Override
-    public void beginContact(Contact contact) {
-        Fixture fixtureA = contact.getFixtureA();
-        Fixture fixtureB = contact.getFixtureB();
-        Object fixDataA = fixtureA.getUserData();
-        Object fixDataB = fixtureB.getUserData();
-        Body bodyA = fixtureA.getBody();
-        Body bodyB = fixtureB.getBody();
-        CollidableObject objectA = (CollidableObject) bodyA.getUserData();
-        CollidableObject objectB = (CollidableObject) bodyB.getUserData();
-
-        //        Player playerObj = player.equals(objectA) ? (Player) objectA : null;
-        //        playerObj = player.equals(objectB) ? (Player) objectB : playerObj;
-
-        BlockPlatform platform = objectA instanceof BlockPlatform ? (BlockPlatform) objectA : null;
-        platform = objectB instanceof BlockPlatform ? (BlockPlatform) objectB : platform;
-
-        boolean isPlayerSensor = fixDataA == Player.GROUND_SENSOR_NAME || fixDataB == Player.GROUND_SENSOR_NAME;
-        // our feet touched a platform
-        // sensor is either one of fixtureA or fixture B, which implies the other one is the
-        // platform fixture.
-        if (isPlayerSensor && platform != null) {
-            player.setGrounded(true);
-            groundSensorContacts.add(fixDataA == Player.GROUND_SENSOR_NAME ? fixtureB : fixtureA);
-        }
+    /**
+     * advances the physics world by exactly one time step and updates the hit-boxes afterwards.
+     */
+    private void step() {
+        profiler.start(FrameProfiler.HIT_BOXES);
+        gameWorld.snapshotMovingObjects();
+        profiler.stop(FrameProfiler.HIT_BOXES);
+        profiler.start(FrameProfiler.PHYSICS);
+        gameWorld.getWorld().step(timeStep, velocityIterations, positionIterations);
+        profiler.stop(FrameProfiler.PHYSICS);
+        profiler.start(FrameProfiler.HIT_BOXES);
+        postUpdate(timeStep);
+        profiler.stop(FrameProfiler.HIT_BOXES);
+        // bodies can only be removed once the step is over
+        gameWorld.updateProjectiles(timeStep);
+        gameWorld.removeMarkedObjects();
+        // apply spawns/removals requested by contact callbacks during the step
+        gameWorld.flushCommands();
     }
 
-    @Override
-    public void endContact(Contact contact) {
-        Fixture fixtureA = contact.getFixtureA();
-        Fixture fixtureB = contact.getFixtureB();
-        Object fixDataA = fixtureA.getUserData();
-        Object fixDataB = fixtureB.getUserData();
-        Body bodyA = fixtureA.getBody();
-        Body bodyB = fixtureB.getBody();
-        CollidableObject objectA = (CollidableObject) bodyA.getUserData();
-        CollidableObject objectB = (CollidableObject) bodyB.getUserData();
-
-        BlockPlatform platform = objectA instanceof BlockPlatform ? (BlockPlatform) objectA : null;
-        platform = objectB instanceof BlockPlatform ? (BlockPlatform) objectB : platform;
-
-        boolean isPlayerSensor = fixDataA == Player.GROUND_SENSOR_NAME || fixDataB == Player.GROUND_SENSOR_NAME;
-        // our feet touched a platform
-        if (isPlayerSensor && platform != null) {
-            // if player's sensor moves way from a part of platform, remove platform (fixture)
-            // from contact set
-            groundSensorContacts.remove(
-                    fixDataA == Player.GROUND_SENSOR_NAME ? fixtureB : fixtureA);
-            if (groundSensorContacts.size == 0) {
-                player.setGrounded(false);
-            }
-        }
+    /**
+     * at the end of each physics step, the hit-boxes are brought up to date with the physics
+     * world. Only hit-boxes that changed shape have anything to update, so the game world keeps
+     * track of them instead of visiting every object.
+     *
+     * @param deltaTime time simulated by the last physics step
+     */
+    private void postUpdate(float deltaTime) {
+        gameWorld.updateDirtyBodies(deltaTime);
     }
 
     /**
-     * preSolve() is useful for modifying contact before it runs through beginContact()
+     * The renderer should draw each body this fraction of the way from its previous physics state
+     * to its current physics state.
      *
-     * @param contact     box2d contact
-     * @param oldManifold physics manifold
-     */
-    @Override
-    public void preSolve(Contact contact, Manifold oldManifold) {
-        Fixture fixtureA = contact.getFixtureA();
-        Fixture fixtureB = contact.getFixtureB();
-        Body bodyA = fixtureA.getBody();
-        Body bodyB = fixtureB.getBody();
-        CollidableObject objectA = (CollidableObject) bodyA.getUserData();
-        CollidableObject objectB = (CollidableObject) bodyB.getUserData();
-        Fireball fireball = objectA instanceof Fireball ? (Fireball) objectA : null;
-        fireball = objectB instanceof Fireball ? (Fireball) objectB : fireball;
-        Player playerObj = objectA instanceof Player ? (Player) objectA : null;
-        playerObj = objectB instanceof Player ? (Player) objectB : playerObj;
-        // fireball and player touched, ignore collision
-        // otherwise, proceed with beginContact
-        if (fireball != null && playerObj != null) {
-            contact.setEnabled(false);
-        }
+     * @return interpolation factor in [0,1)
+     */
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
     }
 
-    @Override
-    public void postSolve(Contact contact, ContactImpulse impulse) {
-        // usually ignorable
+    /**
+     * @return duration (seconds) of a single physics step
+     */
+    public float getTimeStep() {
+        return timeStep;
     }
-}
 
+    /**
+     * registers the contact handlers of the gameplay with the contact dispatcher.
+     */
+    private void registerContactHandlers() {
+        // our feet touched a platform (a wooden block is also something to stand on)
+        ContactDispatcher.ContactHandler groundHandler = new ContactDispatcher.ContactHandler() {
+            @Override
+            public void beginContact(Contact contact, Fixture playerFixture, Fixture ground) {
+                if (playerFixture.getUserData() == Player.GROUND_SENSOR_NAME) {
+                    player.setGrounded(true);
+                    groundSensorContacts.add(ground);
+                }
+            }
 
+            @Override
+            public void endContact(Contact contact, Fixture playerFixture, Fixture ground) {
+                if (playerFixture.getUserData() == Player.GROUND_SENSOR_NAME) {
+                    // if player's sensor moves way from a part of platform, remove platform
+                    // (fixture) from contact set
+                    groundSensorContacts.remove(ground);
+                    if (groundSensorContacts.size == 0) {
+                        player.setGrounded(false);
+                    }
+                }
+            }
+        };
+        contactDispatcher.register(CollisionCategory.PLAYER, CollisionCategory.PLATFORM,
+                                   groundHandler);
+        contactDispatcher.register(CollisionCategory.PLAYER, CollisionCategory.MOVABLE,
+                                   groundHandler);
 
+        // a fireball burns out when it hits something. The world is locked during the step, so
+        // the game world only flags it and removes it once the step is over. (fireball-player
+        // pairs are filtered out by Box2D and never reach a handler)
+        ContactDispatcher.ContactHandler fireballHandler = new ContactDispatcher.ContactHandler() {
+            @Override
+            public void beginContact(Contact contact, Fixture fireball, Fixture other) {
+                gameWorld.expireFireball(fireball.getBody());
+            }
+        };
+        contactDispatcher.register(CollisionCategory.FIREBALL, CollisionCategory.PLATFORM,
+                                   fireballHandler);
+        contactDispatcher.register(CollisionCategory.FIREBALL, CollisionCategory.MOVABLE,
+                                   fireballHandler);
+    }
+}
@@ -8,19 +8,19 @@ public class InputController {
     // TODO (later): custom key-binds
 
     /** Whether the reset button was just pressed. */
-    private boolean resetToggled;
+    protected boolean resetToggled;
 
     /** Whether the debug toggle was just pressed. */
-    private boolean debugToggled;
+    protected boolean debugToggled;
 
     /** whether the jump key was just pressed */
-    private boolean jumpToggled;
+    protected boolean jumpToggled;
 
     /** whether the ability key was just pressed */
-    private boolean abilityToggled;
+    protected boolean abilityToggled;
 
     /** horizontal movement */
-    private float horizontal;
+    protected float horizontal;
 
     /**
      * amount of sideways movement <br> -1 = left, 1 = right, 0 = still
@@ -61,7 +61,25 @@ public class InputController {
     public InputController() {}
 
     /**
-     * Reads the input for the player and converts the result into game logic.
+     * Whether {@link #readInput()} is called once per physics tick instead of once per frame.
+     * Keyboard input is read per frame, as a key press must only count once however many ticks
+     * the frame takes. Input that was recorded per tick (see {@link InputReplay}) is read per tick.
+     *
+     * @return whether input is read once per physics tick
+     */
+    public boolean readsPerTick() {
+        return false;
+    }
+
+    /**
+     * Starts scripted or recorded input over from the beginning, e.g. when the level restarts.
+     * The keyboard has nothing to restart.
+     */
+    public void restart() {}
+
+    /**
+     * Reads the input for the player and converts the result into game logic. Subclasses may
+     * override this to take input from somewhere other than the keyboard (e.g. a script).
      */
     public void readInput() {
         readKeyboard();
@@ -0,0 +1,225 @@
+package com.elements.game.controller;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The player's input for every physics tick of a play session, as applied by the
+ * {@link GameplayController}. Replaying a log (see {@link InputReplay}) from the same level
+ * reproduces the session tick for tick.
+ * <p>
+ * The input of a tick is a handful of bits (see {@link #encode}). Held keys repeat the same bits
+ * for many ticks, so the log is stored as runs of equal ticks. The file holds a header (magic,
+ * version, time step and level) followed by the runs, each a bits byte and a variable length run
+ * length.
+ */
+public class InputLog {
+
+    /** input bits of a tick */
+    public static final int LEFT = 1;
+    public static final int RIGHT = 2;
+    public static final int JUMP = 4;
+    public static final int ABILITY = 8;
+    public static final int RESET = 16;
+
+    /** identifies an input log file ("EEIN") */
+    public static final int MAGIC = 0x4545494E;
+
+    /** bumped whenever the file layout changes */
+    public static final int VERSION = 1;
+
+    /** file extension of input logs */
+    public static final String EXTENSION = "inp";
+
+    /** the level played, e.g. "level0" */
+    private final String level;
+
+    /** duration (seconds) of a tick when the log was recorded */
+    private final float timeStep;
+
+    /** bits of every run */
+    private final ByteArray runBits;
+
+    /** number of ticks in every run */
+    private final IntArray runLengths;
+
+    /** total number of ticks */
+    private int tickCount;
+
+    /**
+     * creates an empty log
+     *
+     * @param level    the level played
+     * @param timeStep duration (seconds) of a tick
+     */
+    public InputLog(String level, float timeStep) {
+        this.level = level;
+        this.timeStep = timeStep;
+        runBits = new ByteArray();
+        runLengths = new IntArray();
+    }
+
+    /**
+     * @param horizontal amount of sideways movement (-1 = left, 1 = right, 0 = still)
+     * @param jump       whether a jump was applied
+     * @param ability    whether the ability was used
+     * @param reset      whether reset was pressed
+     * @return the input bits of a tick
+     */
+    public static int encode(float horizontal, boolean jump, boolean ability, boolean reset) {
+        int bits = 0;
+        if (horizontal < 0) {
+            bits |= LEFT;
+        } else if (horizontal > 0) {
+            bits |= RIGHT;
+        }
+        if (jump) {
+            bits |= JUMP;
+        }
+        if (ability) {
+            bits |= ABILITY;
+        }
+        if (reset) {
+            bits |= RESET;
+        }
+        return bits;
+    }
+
+    /**
+     * appends a tick to the log
+     *
+     * @param bits input bits of the tick (see {@link #encode})
+     */
+    public void add(int bits) {
+        int last = runBits.size - 1;
+        if (last >= 0 && runBits.get(last) == (byte) bits) {
+            runLengths.incr(last, 1);
+        } else {
+            runBits.add((byte) bits);
+            runLengths.add(1);
+        }
+        tickCount++;
+    }
+
+    /**
+     * @return the level played
+     */
+    public String getLevel() {
+        return level;
+    }
+
+    /**
+     * @return duration (seconds) of a tick when the log was recorded
+     */
+    public float getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * @return total number of ticks
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * @return number of runs of equal ticks
+     */
+    public int getRunCount() {
+        return runBits.size;
+    }
+
+    /**
+     * @param run run index
+     * @return input bits of the ticks of a run
+     */
+    public int getRunBits(int run) {
+        return runBits.get(run);
+    }
+
+    /**
+     * @param run run index
+     * @return number of ticks in a run
+     */
+    public int getRunLength(int run) {
+        return runLengths.get(run);
+    }
+
+    /**
+     * writes the log to a file, replacing it
+     *
+     * @param file file to write
+     */
+    public void write(FileHandle file) {
+        DataOutputStream out = new DataOutputStream(file.write(false, 4096));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeFloat(timeStep);
+            out.writeUTF(level);
+            out.writeInt(runBits.size);
+            for (int i = 0; i < runBits.size; i++) {
+                out.writeByte(runBits.get(i));
+                // 7 bits at a time, most runs fit in a single byte
+                int length = runLengths.get(i);
+                while ((length & ~0x7F) != 0) {
+                    out.writeByte((length & 0x7F) | 0x80);
+                    length >>>= 7;
+                }
+                out.writeByte(length);
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("cannot write input log " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * reads a log from a file
+     *
+     * @param file file to read
+     * @return the log
+     * @throws GdxRuntimeException if the file is not an input log of this version
+     */
+    public static InputLog read(FileHandle file) {
+        DataInputStream in = new DataInputStream(file.read(4096));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new GdxRuntimeException(file.path() + " is not a version " + VERSION +
+                                                      " input log");
+            }
+            float timeStep = in.readFloat();
+            InputLog log = new InputLog(in.readUTF(), timeStep);
+            int runs = in.readInt();
+            log.runBits.ensureCapacity(runs);
+            log.runLengths.ensureCapacity(runs);
+            for (int i = 0; i < runs; i++) {
+                int bits = in.readByte();
+                int length = 0;
+                for (int shift = 0; ; shift += 7) {
+                    int b = in.readUnsignedByte();
+                    length |= (b & 0x7F) << shift;
+                    if ((b & 0x80) == 0) {
+                        break;
+                    }
+                }
+                log.runBits.add((byte) bits);
+                log.runLengths.add(length);
+                log.tickCount += length;
+            }
+            return log;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("cannot read input log " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+}
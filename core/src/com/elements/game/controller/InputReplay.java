@@ -0,0 +1,81 @@
+package com.elements.game.controller;
+
+/**
+ * Input read from an {@link InputLog} instead of the keyboard. The input is read once per physics
+ * tick (see {@link #readsPerTick()}), so the controller applies exactly the recorded input at every
+ * tick, however the frames of the replay are timed. Once the log is done, the player stands still.
+ */
+public class InputReplay extends InputController {
+
+    private final InputLog log;
+
+    /** current run of the log */
+    private int run;
+
+    /** ticks already read from the current run */
+    private int elapsed;
+
+    /** ticks read in total */
+    private int ticks;
+
+    /**
+     * @param log the log to replay
+     */
+    public InputReplay(InputLog log) {
+        this.log = log;
+    }
+
+    /**
+     * starts the replay over from its first tick
+     */
+    @Override
+    public void restart() {
+        run = 0;
+        elapsed = 0;
+        ticks = 0;
+    }
+
+    /**
+     * @return whether every tick of the log has been read
+     */
+    public boolean isFinished() {
+        return ticks >= log.getTickCount();
+    }
+
+    /**
+     * @return the replayed log
+     */
+    public InputLog getLog() {
+        return log;
+    }
+
+    @Override
+    public boolean readsPerTick() {
+        return true;
+    }
+
+    @Override
+    public void readInput() {
+        int bits = 0;
+        if (!isFinished()) {
+            if (elapsed == log.getRunLength(run)) {
+                run++;
+                elapsed = 0;
+            }
+            bits = log.getRunBits(run);
+            elapsed++;
+            ticks++;
+        }
+        horizontal = 0.0f;
+        if ((bits & InputLog.RIGHT) != 0) {
+            horizontal += 1.0f;
+        }
+        if ((bits & InputLog.LEFT) != 0) {
+            horizontal -= 1.0f;
+        }
+        jumpToggled = (bits & InputLog.JUMP) != 0;
+        abilityToggled = (bits & InputLog.ABILITY) != 0;
+        resetToggled = (bits & InputLog.RESET) != 0;
+        debugToggled = false;
+    }
+}
@@ -6,17 +6,28 @@ import com.elements.game.utility.physics.BoxPhysicsBody;
 import com.elements.game.utility.physics.PhysicsBody;
 import com.elements.game.visitors.GameObjectVisitor;
 
+/**
+ * A Block Platform is a single static tile of level geometry. Grass tiles are added to the world as
+ * scenery and their collision is merged into {@link TerrainCollider}s, so the hit-box of a tile
+ * usually has no Box2D body; it still describes the area of the tile.
+ */
 public class BlockPlatform extends CollidableObject{
 
     protected final BoxPhysicsBody hitBox;
 
-    public BlockPlatform(JsonValue constants, JsonValue data, String objectNameTag){
-        super(data.getFloat("width"), data.getFloat("height"));
-        JsonValue hitBoxData = data.get("hit-box");
-        float width = hitBoxData.getFloat("width");
-        float height = hitBoxData.getFloat("height");
-        float x = data.getFloat("x");
-        float y = data.getFloat("y");
+    /**
+     * creates a platform tile whose hit-box covers the tile
+     *
+     * @param constants     platform constants (density, friction, restitution, collision)
+     * @param x             center x of the tile (in game units)
+     * @param y             center y of the tile (in game units)
+     * @param width         width of the tile (in game units)
+     * @param height        height of the tile (in game units)
+     * @param objectNameTag name of the hit-box
+     */
+    public BlockPlatform(JsonValue constants, float x, float y, float width, float height,
+                         String objectNameTag){
+        super(width, height);
         hitBox = new BoxPhysicsBody(x,y, width, height);
         // this platform does not move
         hitBox.setBodyType(BodyDef.BodyType.StaticBody);
@@ -24,6 +35,8 @@ public class BlockPlatform extends CollidableObject{
         hitBox.setFriction(constants.getFloat("friction", 0.0f));
         hitBox.setRestitution(constants.getFloat("restitution", 0.0f));
         hitBox.setName(objectNameTag);
+        setCollisionFilter(constants.get("collision"), CollisionCategory.PLATFORM,
+                           CollisionCategory.ALL);
     }
 
     @Override
@@ -1,6 +1,8 @@
 package com.elements.game.model;
 
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.JsonValue;
 import com.elements.game.utility.physics.PhysicsBody;
 
 /**
@@ -18,6 +20,39 @@ public abstract class CollidableObject extends GameObject {
 
     public abstract PhysicsBody getHitBox();
 
+    /**
+     * sets the Box2D collision filter of the hit-box. This object only collides with objects whose
+     * category is in its mask and whose mask contains its category. The defaults can be
+     * overridden by the game constants, see {@link CollisionCategory#parseCategory}.
+     *
+     * @param collision       collision constants of this object type (may be null)
+     * @param defaultCategory a single bit from {@link CollisionCategory}
+     * @param defaultMask     categories to collide with
+     */
+    protected void setCollisionFilter(JsonValue collision, short defaultCategory,
+                                      short defaultMask) {
+        getHitBox().setCollisionCategory(CollisionCategory.parseCategory(collision,
+                                                                         defaultCategory));
+        getHitBox().setCollisionMask(CollisionCategory.parseMask(collision, defaultMask));
+    }
+
+    /**
+     * computes the area occupied by this object, which is the union of its hit-box and its
+     * (centered) display area. The display area may extend past the hit-box.
+     *
+     * @param out rectangle to store the result in
+     * @return the given rectangle, for chaining
+     */
+    public Rectangle computeBounds(Rectangle out) {
+        getHitBox().computeBounds(out);
+        Vector2 dimensions = getDisplayDimensions();
+        float left = Math.min(out.x, getX() - dimensions.x / 2);
+        float bottom = Math.min(out.y, getY() - dimensions.y / 2);
+        float right = Math.max(out.x + out.width, getX() + dimensions.x / 2);
+        float top = Math.max(out.y + out.height, getY() + dimensions.y / 2);
+        return out.set(left, bottom, right - left, top - bottom);
+    }
+
     @Override
     public float getX() {
         return getHitBox().getX();
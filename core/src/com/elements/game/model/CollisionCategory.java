@@ -0,0 +1,116 @@
+package com.elements.game.model;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonValue;
+
+/**
+ * Box2D collision category bits of the game objects. Every kind of {@link CollidableObject} owns
+ * one bit. A fixture only collides with fixtures whose category is in its mask (and vice versa),
+ * so pairs that should never interact are dropped by Box2D before a contact is ever created.
+ * <br> Box2D supports at most 16 categories.
+ */
+public final class CollisionCategory {
+
+    /** number of available category bits */
+    public static final int COUNT = 16;
+
+    /** static level geometry, see {@link BlockPlatform} */
+    public static final short PLATFORM = 0x0001;
+
+    /** see {@link Player} */
+    public static final short PLAYER = 0x0002;
+
+    /** dynamic blocks, see {@link WoodBlock} */
+    public static final short MOVABLE = 0x0004;
+
+    /** see {@link Fireball} */
+    public static final short FIREBALL = 0x0008;
+
+    /** mask that collides with every category */
+    public static final short ALL = (short) 0xFFFF;
+
+    private CollisionCategory() {}
+
+    /**
+     * @param name category name as written in the game constants (e.g. "player")
+     * @return the category bit with the given name
+     * @throws GdxRuntimeException if there is no category with the given name
+     */
+    public static short fromName(String name) {
+        switch (name) {
+            case "platform":
+                return PLATFORM;
+            case "player":
+                return PLAYER;
+            case "movable":
+                return MOVABLE;
+            case "fireball":
+                return FIREBALL;
+            case "all":
+                return ALL;
+            default:
+                throw new GdxRuntimeException("unknown collision category \"" + name + "\"");
+        }
+    }
+
+    /**
+     * reads a category from collision constants of the form <br>
+     * {@code {"category": "player", "mask": ["platform", "movable"]}} or <br>
+     * {@code {"category": "player", "ignore": ["fireball"]}}.
+     *
+     * @param collision       collision constants (may be null)
+     * @param defaultCategory category to use if none is given
+     * @return the configured category
+     * @throws GdxRuntimeException if the category is unknown or is not a single category
+     */
+    public static short parseCategory(JsonValue collision, short defaultCategory) {
+        if (collision == null || !collision.has("category")) {
+            return defaultCategory;
+        }
+        String name = collision.getString("category");
+        short category = fromName(name);
+        // contacts are dispatched by the index of a single category bit
+        if (Integer.bitCount(category & 0xFFFF) != 1) {
+            throw new GdxRuntimeException("\"" + name + "\" is not a single collision category");
+        }
+        return category;
+    }
+
+    /**
+     * reads a mask from collision constants (see {@link #parseCategory}). "mask" lists the
+     * categories to collide with; "ignore" lists categories to remove from the mask.
+     *
+     * @param collision   collision constants (may be null)
+     * @param defaultMask mask to use if none is given
+     * @return the configured mask
+     * @throws GdxRuntimeException if a category name is unknown
+     */
+    public static short parseMask(JsonValue collision, short defaultMask) {
+        if (collision == null) {
+            return defaultMask;
+        }
+        int mask = defaultMask;
+        JsonValue names = collision.get("mask");
+        if (names != null) {
+            mask = 0;
+            for (JsonValue name = names.child; name != null; name = name.next) {
+                mask |= fromName(name.asString());
+            }
+        }
+        names = collision.get("ignore");
+        if (names != null) {
+            for (JsonValue name = names.child; name != null; name = name.next) {
+                mask &= ~fromName(name.asString());
+            }
+        }
+        return (short) mask;
+    }
+
+    /**
+     * @param category a single category bit
+     * @return index of the category bit, in [0, {@link #COUNT})
+     */
+    public static int indexOf(short category) {
+        return Integer.numberOfTrailingZeros(category & 0xFFFF);
+    }
+}
@@ -2,19 +2,88 @@ package com.elements.game.model;
 
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.Pool;
 import com.elements.game.utility.physics.CirclePhysicsBody;
 import com.elements.game.utility.physics.PhysicsBody;
 import com.elements.game.visitors.GameObjectVisitor;
 
-public class Fireball extends CollidableObject {
+/**
+ * A fireball is a short-lived projectile. Fireballs are pooled (see
+ * {@link GameWorld#summonFireBall(Player)}) so the same instance and Box2D body are reused by
+ * calling {@link #launch} again after the fireball expires.
+ */
+public class Fireball extends CollidableObject implements Pool.Poolable {
+
+    public static final float DEFAULT_RADIUS = 0.25f;
+
+    public static final float DEFAULT_SPEED = 6.0f;
+
+    /** default number of seconds a fireball lives for */
+    public static final float DEFAULT_LIFETIME = 2.0f;
 
     CirclePhysicsBody hitbox;
 
-    public Fireball(JsonValue fireballConstants, Player p) {
-        super(0.5f, 0.5f);
-        hitbox = new CirclePhysicsBody(p.getX() + fireballConstants.getFloat("offset_x"),
-                                       p.getY() + fireballConstants.getFloat("offset_y"), 0.25f);
-        hitbox.setBodyType(BodyDef.BodyType.KinematicBody);
+    /** remaining number of seconds before this fireball expires */
+    private float lifetime;
+
+    public Fireball(JsonValue fireballConstants) {
+        super(2 * fireballConstants.getFloat("radius", DEFAULT_RADIUS),
+              2 * fireballConstants.getFloat("radius", DEFAULT_RADIUS));
+        hitbox = new CirclePhysicsBody(fireballConstants.getFloat("radius", DEFAULT_RADIUS));
+        // Box2D never makes contacts between kinematic and static bodies, so a kinematic fireball
+        // would fly through platforms. A dynamic body without gravity flies just as straight.
+        hitbox.setBodyType(BodyDef.BodyType.DynamicBody);
+        hitbox.setGravityScale(0);
+        hitbox.setFixedRotation(true);
+        // fast and small, so it must not tunnel through thin platforms
+        hitbox.setBullet(true);
+        hitbox.setName("fireball");
+        setCollisionFilter(fireballConstants.get("collision"), CollisionCategory.FIREBALL,
+                           (short) (CollisionCategory.ALL & ~CollisionCategory.PLAYER));
+    }
+
+    /**
+     * moves this fireball to the given position and sets it in motion. The hit-box must already
+     * be active in the physics world.
+     *
+     * @param x        starting x-coordinate
+     * @param y        starting y-coordinate
+     * @param vx       horizontal velocity
+     * @param lifetime number of seconds until this fireball expires
+     */
+    public void launch(float x, float y, float vx, float lifetime) {
+        this.lifetime = lifetime;
+        hitbox.setPosition(x, y);
+        hitbox.setVX(vx);
+        hitbox.setVY(0);
+        hitbox.markRemoved(false);
+        // do not interpolate from wherever this fireball was last used
+        hitbox.snapshotTransform();
+    }
+
+    /**
+     * counts down the lifetime of this fireball and flags it for removal once it has expired.
+     *
+     * @param deltaTime time simulated since last update
+     */
+    public void update(float deltaTime) {
+        lifetime -= deltaTime;
+        if (lifetime <= 0) {
+            hitbox.markRemoved(true);
+        }
+    }
+
+    /**
+     * @return remaining number of seconds before this fireball expires
+     */
+    public float getLifetime() {
+        return lifetime;
+    }
+
+    @Override
+    public void reset() {
+        lifetime = 0;
+        hitbox.markRemoved(false);
     }
 
     @Override
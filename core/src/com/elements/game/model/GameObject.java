@@ -24,6 +24,12 @@ public abstract class GameObject {
 
     private final Vector2 cache;
 
+    /** whether the object is drawn mirrored left to right */
+    private boolean flipX;
+
+    /** whether the object is drawn mirrored top to bottom */
+    private boolean flipY;
+
     public GameObject(int z_index, float displayWidth, float displayHeight) {
         this(z_index);
         this.displayDimensions.set(displayWidth, displayHeight);
@@ -55,6 +61,26 @@ public abstract class GameObject {
     }
 
 
+    public boolean isFlipX() {
+        return flipX;
+    }
+
+    public boolean isFlipY() {
+        return flipY;
+    }
+
+    /**
+     * mirrors the object's texture. This only affects rendering, so mirrored tiles can share art
+     * with the original ones.
+     *
+     * @param flipX whether to mirror left to right
+     * @param flipY whether to mirror top to bottom
+     */
+    public void setFlip(boolean flipX, boolean flipY) {
+        this.flipX = flipX;
+        this.flipY = flipY;
+    }
+
     /**
      * game is broken up into layers (foreground, background, middle-ground comes to mind). In a
      * multilayer game, objects are placed in layers despite no active "z" coordinate is involved.
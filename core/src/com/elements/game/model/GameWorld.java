@@ -1,12 +1,22 @@
 package com.elements.game.model;
 
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.elements.game.utility.collections.IndexedArray;
+import com.elements.game.utility.collections.LayeredArray;
+import com.elements.game.utility.collections.SpatialGrid;
+import com.elements.game.utility.level.LevelDescriptor;
+import com.elements.game.utility.physics.PhysicsBody;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Comparator;
 
 /**
  * A GameWorld represents the collection of game objects, level-specific properties, and game
@@ -17,6 +27,12 @@ public class GameWorld implements Disposable {
 
     public static final float DEFAULT_GRAVITY = -4.9f;
 
+    /** default maximum number of idle fireballs kept for reuse */
+    public static final int DEFAULT_FIREBALL_POOL_SIZE = 16;
+
+    /** distance (in game units) a projectile may travel past the level bounds before expiring */
+    private static final float OUT_OF_BOUNDS_MARGIN = 2.0f;
+
     /** default constant values for all levels */
     private final JsonValue gameConstants;
 
@@ -28,9 +44,55 @@ public class GameWorld implements Disposable {
     private World world;
 
     /**
-     * collection of all game objects. Invariant: objects are sorted by their z-index
+     * collection of all game objects. Invariant: objects are grouped in layers by their z-index
+     * and layers are iterated in drawing order
      */
-    private final List<CollidableObject> gameObjects;
+    private final LayeredArray<CollidableObject> gameObjects;
+
+    /** orders objects by decreasing z-index */
+    private final Comparator<CollidableObject> zIndexComparator;
+
+    /** spatial index of all game objects, used to find objects within a region (e.g. camera) */
+    private final SpatialGrid<CollidableObject> spatialIndex;
+
+    /** objects with non-static bodies; only these need to be re-indexed after moving */
+    private final IndexedArray<CollidableObject> movingObjects;
+
+    /** hit-boxes of tracked objects that became dirty since the last physics step */
+    private final IndexedArray<PhysicsBody> dirtyBodies;
+
+    /** registers tracked hit-boxes in {@link #dirtyBodies} when they become dirty */
+    private final PhysicsBody.DirtyListener dirtyListener;
+
+    /** cache for computing object bounds */
+    private final Rectangle boundsCache;
+
+    /** area covered by the terrain of the level, projectiles leaving it expire */
+    private final Rectangle levelBounds;
+
+    /** whether the level has any static geometry, i.e. whether the level bounds are known */
+    private boolean hasLevelBounds;
+
+    /** recycles fireballs (and their Box2D bodies) instead of allocating new ones */
+    private final Pool<Fireball> fireballPool;
+
+    /** fireball owning every fireball body in the world (active or pooled) */
+    private final ObjectMap<Body, Fireball> fireballBodies;
+
+    /** fireballs currently in the world */
+    private final IndexedArray<Fireball> activeFireballs;
+
+    /** world mutations requested while the Box2D world was locked (mid-step) */
+    private final WorldCommandQueue commandQueue;
+
+    /** adds and removes level chunks around the player */
+    private final LevelStreamer streamer;
+
+    /** static objects in the order they were added */
+    private final Array<CollidableObject> staticObjects;
+
+    /** incremented whenever a static object is removed */
+    private int staticRevision;
 
     private Player player;
 
@@ -40,31 +102,88 @@ public class GameWorld implements Disposable {
     public GameWorld(JsonValue gameConstants) {
         gravity = new Vector2(0, gameConstants.getFloat("gravity", DEFAULT_GRAVITY));
         world = new World(gravity, false);
-        gameObjects = new LinkedList<>();
+        gameObjects = new LayeredArray<>();
+        zIndexComparator = (o1, o2) -> o2.getZIndex() - o1.getZIndex();
+        spatialIndex = new SpatialGrid<>(gameConstants.getFloat("spatialCellSize",
+                                                                SpatialGrid.DEFAULT_CELL_SIZE));
+        // unordered, removal swaps with the last object
+        movingObjects = new IndexedArray<>(16);
+        staticObjects = new Array<>();
+        // a body registers only when it becomes dirty, so it is never in the array twice
+        dirtyBodies = new IndexedArray<>(16);
+        dirtyListener = dirtyBodies::add;
+        boundsCache = new Rectangle();
+        levelBounds = new Rectangle();
         this.gameConstants = gameConstants;
+        JsonValue fireballConstants = gameConstants.get("fireball");
+        fireballPool = new Pool<Fireball>(8, fireballConstants.getInt("poolSize",
+                                                                      DEFAULT_FIREBALL_POOL_SIZE)) {
+            @Override
+            protected Fireball newObject() {
+                return new Fireball(fireballConstants);
+            }
+
+            @Override
+            protected void discard(Fireball fireball) {
+                // a fireball the pool has no room for must not leave its body in the world
+                if (world != null) {
+                    fireballBodies.remove(fireball.getHitBox().getBody());
+                    fireball.getHitBox().deactivatePhysics(world);
+                }
+                super.discard(fireball);
+            }
+        };
+        activeFireballs = new IndexedArray<>(16);
+        fireballBodies = new ObjectMap<>();
+        commandQueue = new WorldCommandQueue();
+        streamer = new LevelStreamer(this, gameConstants);
     }
 
     /**
-     * empties out the level by disposing every component of the game world.
+     * empties out the level by disposing every component of the game world. The world can be
+     * populated again afterwards.
      */
-    public void dispose() {
+    public void clear() {
         for (CollidableObject obj : gameObjects) {
             obj.getHitBox().deactivatePhysics(world);
         }
+        // pooled fireballs hold (inactive) bodies of this world, discarding them destroys these
+        fireballPool.clear();
         world.dispose();
         world = null;
         gameObjects.clear();
+        spatialIndex.clear();
+        movingObjects.clear();
+        staticObjects.clear();
+        dirtyBodies.clear();
+        hasLevelBounds = false;
+        activeFireballs.clear();
+        fireballBodies.clear();
+        commandQueue.clear();
+        streamer.clear();
+        staticRevision++;
+    }
+
+    /**
+     * empties out the level (see {@link #clear()}) and stops the thread that prepares level
+     * chunks. The game world cannot be used afterwards.
+     */
+    public void dispose() {
+        if (world != null) {
+            clear();
+        }
+        streamer.dispose();
     }
 
     /**
      * Initializes the world and game objects according to the provided level data.
      *
-     * @param levelData json data
+     * @param levelData level description
      */
-    public void populate(JsonValue levelData) {
+    public void populate(LevelDescriptor levelData) {
         if (world != null) {
             // safety catch to dispose; prevent memory leaks
-            dispose();
+            clear();
         }
         // TODO: may need to override gravity vector if level specifies its own gravity
         world = new World(gravity, false);
@@ -73,46 +192,339 @@ public class GameWorld implements Disposable {
         }
 
         JsonValue playerConstants = gameConstants.get("player");
-        player = new Player(playerConstants, levelData.get("player"));
+        player = new Player(playerConstants, levelData.getPlayerX(), levelData.getPlayerY());
         addToPhysicsWorld(player);
 
-        JsonValue platformDataSet = levelData.get("platform");
-        for (int i = 0; i < platformDataSet.size; i++) {
-            JsonValue data = platformDataSet.get(i);
-            BlockPlatform platform = new BlockPlatform(gameConstants, data, "platform_" + i);
-            addToPhysicsWorld(platform);
+        // everything else is added chunk by chunk as the player approaches
+        streamer.load(levelData);
+        // known up front, so projectiles expire the same way however the level streams in
+        hasLevelBounds = streamer.getLevelBounds(levelBounds);
+    }
+
+    /**
+     * streams chunks of the level in and out around the given area. Chunks near the area are
+     * activated (objects far from it stop being simulated), and chunks a little further away are
+     * prepared in the background. This must be called outside of the physics step.
+     *
+     * @param focus area to keep simulated, usually the view around the player (in game units)
+     */
+    public void updateStreaming(Rectangle focus) {
+        streamer.update(focus);
+    }
+
+    /**
+     * adds the given game object to the Box2D world by activating its hit-box. If the world is in
+     * the middle of a step (e.g. this is called from a contact callback), the object is added once
+     * the step is over; see {@link #flushCommands()}.
+     *
+     * @param o game object
+     */
+    public void addToPhysicsWorld(CollidableObject o) {
+        if (world.isLocked()) {
+            commandQueue.add(WorldCommandQueue.Type.SPAWN, o, o.getHitBox().getBodyType());
+            return;
+        }
+        o.getHitBox().activatePhysics(world, o);
+        track(o);
+    }
+
+    /**
+     * adds the given game object to the world without activating its hit-box. The object is drawn
+     * and can be found by {@link #queryObjects} but takes no part in the simulation (e.g. a
+     * platform tile whose collision is handled by a {@link TerrainCollider}).
+     *
+     * @param o game object
+     */
+    public void addScenery(CollidableObject o) {
+        track(o);
+    }
+
+    /**
+     * destroys the body of the given object but keeps the object (and the state of its body) in
+     * the world, e.g. when its level chunk is far from the camera. See {@link #resumePhysics}.
+     *
+     * @param o game object
+     */
+    void suspendPhysics(CollidableObject o) {
+        o.getHitBox().deactivatePhysics(world);
+    }
+
+    /**
+     * re-creates the body of an object suspended by {@link #suspendPhysics}, with the state it
+     * had when it was suspended.
+     *
+     * @param o game object
+     */
+    void resumePhysics(CollidableObject o) {
+        if (o.getHitBox().getBody() == null) {
+            o.getHitBox().activatePhysics(world, o);
         }
+    }
 
-        // movable blocks
-        JsonValue movableDataSet = levelData.get("wood");
-        for (int i = 0; i < movableDataSet.size; i++) {
-            JsonValue data = movableDataSet.get(i);
-            WoodBlock moveBlock = new WoodBlock(gameConstants.get("movable"), data, "movable_" + i);
-            addToPhysicsWorld(moveBlock);
+    /**
+     * removes the given game object and its hit-box from the world. If the world is in the middle
+     * of a step (e.g. this is called from a contact callback), the object is flagged and removed
+     * once the step is over; see {@link #flushCommands()}.
+     *
+     * @param o game object
+     */
+    public void removeFromPhysicsWorld(CollidableObject o) {
+        if (world.isLocked()) {
+            o.getHitBox().markRemoved(true);
+            commandQueue.add(WorldCommandQueue.Type.DESTROY, o, o.getHitBox().getBodyType());
+            return;
         }
+        remove(o);
+    }
 
-        gameObjects.sort((o1, o2) -> o2.getZIndex() - o1.getZIndex());
+    /**
+     * activates or deactivates the hit-box of the given game object. An inactive body keeps its
+     * state but takes no part in the simulation. If the world is in the middle of a step, the
+     * change is applied once the step is over; see {@link #flushCommands()}.
+     *
+     * @param o      game object
+     * @param active whether the hit-box should be active
+     */
+    public void setPhysicsActive(CollidableObject o, boolean active) {
+        if (world.isLocked()) {
+            commandQueue.add(active ? WorldCommandQueue.Type.ACTIVATE :
+                                     WorldCommandQueue.Type.DEACTIVATE, o,
+                             o.getHitBox().getBodyType());
+            return;
+        }
+        o.getHitBox().setActive(active);
     }
 
     /**
-     * adds the given game object to the Box2D world by activating its hit-box.
+     * applies every world mutation that was requested during the last physics step, grouped by
+     * body type. This must be called after {@link World#step}.
+     */
+    public void flushCommands() {
+        if (!commandQueue.isEmpty()) {
+            commandQueue.flush(this);
+        }
+    }
+
+    /**
+     * applies a single deferred command, see {@link WorldCommandQueue#flush(GameWorld)}.
+     *
+     * @param command deferred command
+     */
+    void apply(WorldCommandQueue.Command command) {
+        CollidableObject target = command.target;
+        switch (command.type) {
+            case SPAWN:
+                addToPhysicsWorld(target);
+                break;
+            case DESTROY:
+                // the object may have been removed already (e.g. flagged twice)
+                if (gameObjects.contains(target.getZIndex(), target)) {
+                    remove(target);
+                }
+                break;
+            case ACTIVATE:
+                target.getHitBox().setActive(true);
+                break;
+            case DEACTIVATE:
+                target.getHitBox().setActive(false);
+                break;
+            case SUMMON_FIREBALL:
+                summonFireBall((Player) target);
+                break;
+        }
+    }
+
+    /**
+     * registers an object with the object collections. This does not touch its hit-box.
      *
      * @param o game object
      */
-    public void addToPhysicsWorld(CollidableObject o) {
-        gameObjects.add(o);
-        o.getHitBox().activatePhysics(world, o);
+    private void track(CollidableObject o) {
+        gameObjects.add(o.getZIndex(), o);
+        o.computeBounds(boundsCache);
+        spatialIndex.insert(o, boundsCache);
+        o.getHitBox().setDirtyListener(dirtyListener);
+        if (o.getHitBox().getBodyType() != BodyDef.BodyType.StaticBody) {
+            movingObjects.add(o);
+        } else {
+            staticObjects.add(o);
+        }
+    }
+
+    /**
+     * unregisters an object from the object collections. This does not touch its hit-box.
+     *
+     * @param o game object
+     */
+    private void untrack(CollidableObject o) {
+        gameObjects.remove(o.getZIndex(), o);
+        spatialIndex.remove(o);
+        o.getHitBox().setDirtyListener(null);
+        if (o.getHitBox().isDirty()) {
+            dirtyBodies.remove(o.getHitBox());
+        }
+        if (o.getHitBox().getBodyType() != BodyDef.BodyType.StaticBody) {
+            movingObjects.remove(o);
+        } else {
+            // static objects are hardly ever removed before the level is, so a search is fine
+            staticObjects.removeValue(o, true);
+            staticRevision++;
+        }
     }
 
     /**
-     * adds a fireball to the game world based on current player state (position)
+     * advances projectiles by the given time and flags expired ones for removal. A projectile
+     * expires once its lifetime runs out or it leaves the level.
+     *
+     * @param deltaTime time simulated by the last physics step
+     */
+    public void updateProjectiles(float deltaTime) {
+        for (int i = 0; i < activeFireballs.size(); i++) {
+            Fireball fireball = activeFireballs.get(i);
+            fireball.update(deltaTime);
+            if (hasLevelBounds && !fireball.getHitBox().isRemoved()) {
+                fireball.getHitBox().computeBounds(boundsCache);
+                if (boundsCache.x > levelBounds.x + levelBounds.width + OUT_OF_BOUNDS_MARGIN ||
+                        boundsCache.x + boundsCache.width < levelBounds.x - OUT_OF_BOUNDS_MARGIN ||
+                        boundsCache.y + boundsCache.height < levelBounds.y - OUT_OF_BOUNDS_MARGIN ||
+                        boundsCache.y > levelBounds.y + levelBounds.height + OUT_OF_BOUNDS_MARGIN) {
+                    fireball.getHitBox().markRemoved(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * removes every moving object whose hit-box was flagged through
+     * {@link com.elements.game.utility.physics.PhysicsBody#markRemoved(boolean)}. This must only
+     * be called outside of the physics step (Box2D does not allow bodies to change mid-step).
+     */
+    public void removeMarkedObjects() {
+        // iterate backwards, removal swaps the last object into the current slot
+        for (int i = movingObjects.size() - 1; i >= 0; i--) {
+            CollidableObject o = movingObjects.get(i);
+            if (o.getHitBox().isRemoved()) {
+                remove(o);
+            }
+        }
+    }
+
+    /**
+     * removes the object from the world. Fireballs have their bodies deactivated and are returned
+     * to the pool; other objects have their bodies destroyed.
+     *
+     * @param o game object
+     */
+    private void remove(CollidableObject o) {
+        untrack(o);
+        if (o instanceof Fireball) {
+            Fireball fireball = (Fireball) o;
+            fireball.getHitBox().setActive(false);
+            activeFireballs.remove(fireball);
+            fireballPool.free(fireball);
+        } else {
+            o.getHitBox().deactivatePhysics(world);
+            o.getHitBox().markRemoved(false);
+        }
+    }
+
+    /**
+     * records the current transform of every active, non-static body, right before a physics step
+     * (see {@link PhysicsBody#snapshotTransform()}). Static bodies never move, and neither do
+     * suspended bodies, so their previous transform is still current. Sleeping bodies are
+     * included, since setting their position does not wake them up.
+     */
+    public void snapshotMovingObjects() {
+        for (int i = 0; i < movingObjects.size(); i++) {
+            PhysicsBody hitBox = movingObjects.get(i).getHitBox();
+            if (hitBox.getBody() != null) {
+                hitBox.snapshotTransform();
+            }
+        }
+    }
+
+    /**
+     * updates the hit-boxes that became dirty since the last call (see
+     * {@link PhysicsBody#update(float)}). Clean hit-boxes have nothing to update, so this only
+     * costs as much as the bodies that changed. A body without a Box2D body stays dirty; its
+     * fixtures are created when it is activated.
+     *
+     * @param deltaTime time simulated by the last physics step
+     */
+    public void updateDirtyBodies(float deltaTime) {
+        for (int i = 0; i < dirtyBodies.size(); i++) {
+            dirtyBodies.get(i).update(deltaTime);
+        }
+        dirtyBodies.clear();
+    }
+
+    /**
+     * re-indexes the objects that can move. This should be called after the physics world has been
+     * stepped and before querying objects by region.
+     */
+    public void updateSpatialIndex() {
+        for (int i = 0; i < movingObjects.size(); i++) {
+            CollidableObject o = movingObjects.get(i);
+            spatialIndex.update(o, o.computeBounds(boundsCache));
+        }
+    }
+
+    /**
+     * finds the game objects that (approximately) overlap the given region, such as the area
+     * visible to the camera. Objects outside the region may be included but no overlapping object
+     * is ever left out.
+     *
+     * @param region area to search (in game units)
+     * @param out    array to store the result in, ordered by z-index (cleared first)
+     * @return the given array, for chaining
+     */
+    public Array<CollidableObject> queryObjects(Rectangle region, Array<CollidableObject> out) {
+        out.clear();
+        // objects within a layer stay in insertion order
+        return spatialIndex.query(region, zIndexComparator, out);
+    }
+
+    /**
+     * adds a fireball to the game world based on current player state (position, direction). The
+     * fireball is taken from a pool; a recycled fireball reuses its (deactivated) Box2D body.
+     *
      * @param p the player instance
      */
     public void summonFireBall(Player p){
-        // make a new fireball (for now this is fine in terms of memory)
-        Fireball fireball = new Fireball(gameConstants.get("fireball"), p);
+        if (world.isLocked()) {
+            commandQueue.add(WorldCommandQueue.Type.SUMMON_FIREBALL, p,
+                             BodyDef.BodyType.DynamicBody);
+            return;
+        }
+        JsonValue fireballConstants = gameConstants.get("fireball");
+        float direction = p.isFacingRight() ? 1 : -1;
+        Fireball fireball = fireballPool.obtain();
+        if (fireball.getHitBox().getBody() == null) {
+            fireball.getHitBox().activatePhysics(world, fireball);
+            fireballBodies.put(fireball.getHitBox().getBody(), fireball);
+        } else {
+            fireball.getHitBox().setActive(true);
+        }
+        fireball.launch(p.getX() + direction * fireballConstants.getFloat("offset_x"),
+                        p.getY() + fireballConstants.getFloat("offset_y"),
+                        direction * fireballConstants.getFloat("speed", Fireball.DEFAULT_SPEED),
+                        fireballConstants.getFloat("lifetime", Fireball.DEFAULT_LIFETIME));
         // add fireball to our list of objects so we can render
-        addToPhysicsWorld(fireball);
+        track(fireball);
+        activeFireballs.add(fireball);
+    }
+
+    /**
+     * flags the fireball with the given body for removal, e.g. when it hits something. This may
+     * be called during the physics step; the fireball is removed by {@link #removeMarkedObjects()}.
+     *
+     * @param body Box2D body of a fireball (other bodies are ignored)
+     */
+    public void expireFireball(Body body) {
+        Fireball fireball = fireballBodies.get(body);
+        if (fireball != null) {
+            fireball.getHitBox().markRemoved(true);
+        }
     }
 
     // BEGIN-REGION ======================== Accessors =======================================
@@ -131,7 +543,13 @@ public class GameWorld implements Disposable {
         return player;
     }
 
-    public List<CollidableObject> getGameObjects() {
+    /**
+     * Iterating the collection visits objects in drawing order; individual layers can also be
+     * visited on their own. The collection should not be modified directly.
+     *
+     * @return all game objects, grouped by z-index
+     */
+    public LayeredArray<CollidableObject> getGameObjects() {
         return gameObjects;
     }
 
@@ -139,6 +557,28 @@ public class GameWorld implements Disposable {
         return gameConstants;
     }
 
+    /**
+     * Static objects are added as their level chunks stream in. As long as the
+     * {@link #getStaticRevision() static revision} does not change, objects are only ever appended,
+     * so anything derived from them (e.g. baked sprites) can be brought up to date with the new
+     * objects alone.
+     *
+     * @return the static objects in the world, in the order they were added
+     */
+    public Array<CollidableObject> getStaticObjects() {
+        return staticObjects;
+    }
+
+    /**
+     * Anything derived from the static objects has to be rebuilt from scratch when this value
+     * changes.
+     *
+     * @return a number that changes whenever a static object is removed or the level is cleared
+     */
+    public int getStaticRevision() {
+        return staticRevision;
+    }
+
     // END-REGION ========================== Accessors =======================================
 
 }
@@ -0,0 +1,449 @@
+package com.elements.game.model;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.elements.game.utility.level.LevelDescriptor;
+import com.elements.game.utility.physics.PhysicsBody;
+import com.elements.game.utility.physics.TileMerger;
+
+/**
+ * Streams the objects of a level in and out of a {@link GameWorld} by fixed-size spatial chunks.
+ * Only chunks near the focus area (usually the view around the player) take part in the
+ * simulation. <br>
+ * <ul>
+ *     <li>The collision of platform tiles and tile grid cells is merged over the whole level when
+ *     it is loaded, so there are no seams at chunk borders. A merged {@link TerrainCollider} is
+ *     shared by every chunk it overlaps and has a body while any of them is active.</li>
+ *     <li>A chunk is prefetched, i.e. its scenery (platform tiles) is built on a background
+ *     thread, once the focus comes within the prefetch margin. The scenery is added to the world
+ *     as soon as it is ready; activation never waits for it.</li>
+ *     <li>A chunk is activated once the focus comes within the active margin: its terrain and
+ *     movable objects are added to the world, or their bodies are re-created if the chunk was
+ *     active before.</li>
+ *     <li>A chunk is deactivated once the focus moves away by another half chunk. The bodies of
+ *     its objects are destroyed through {@link PhysicsBody#deactivatePhysics}, which keeps their
+ *     state (position, velocity) for the next activation. Its scenery stays in the world so it
+ *     does not have to be re-drawn into caches.</li>
+ *     <li>Movable objects belong to the chunk they are in when their chunk is deactivated, so
+ *     they are resumed with the chunk they were pushed into rather than the one they started
+ *     in.</li>
+ * </ul>
+ * Each update only looks at the chunks around the focus and at the active and loading chunks, so
+ * its cost does not grow with the size of the level.
+ * Everything that takes part in the simulation is built on the calling thread, so activation
+ * does not depend on the timing of the background thread. Game objects only allocate their
+ * (native) Box2D shapes when their bodies are created, which also happens on the calling thread.
+ */
+class LevelStreamer {
+
+    /** default width/height of a chunk (in game units) */
+    static final float DEFAULT_CHUNK_SIZE = 16.0f;
+
+    /** default distance from the focus within which chunks are active (in game units) */
+    static final float DEFAULT_ACTIVE_MARGIN = 8.0f;
+
+    /** default distance from the focus within which chunks are prefetched (in game units) */
+    static final float DEFAULT_PREFETCH_MARGIN = 16.0f;
+
+    private enum State {
+        /** only the raw object data is known */
+        UNLOADED,
+        /** scenery is being built in the background */
+        LOADING,
+        /** scenery is in the world */
+        LOADED
+    }
+
+    /**
+     * a merged terrain collider, shared by the chunks it overlaps
+     */
+    private static class Terrain {
+        final TerrainCollider collider;
+        /** number of active chunks the collider overlaps */
+        int activeChunks;
+        /** whether the collider was added to the world */
+        boolean added;
+
+        Terrain(TerrainCollider collider) {
+            this.collider = collider;
+        }
+    }
+
+    private static class Chunk {
+        final int column;
+        final int row;
+        /** area of the chunk (in game units) */
+        final Rectangle bounds;
+        /** x, y, width, height of each object, one array per object type */
+        final FloatArray[] objects = new FloatArray[LevelDescriptor.TYPE_COUNT];
+        /** flip flags of each object, parallel to {@link #objects} */
+        final IntArray[] flags = new IntArray[LevelDescriptor.TYPE_COUNT];
+        /** merged terrain overlapping the chunk */
+        final Array<Terrain> terrain = new Array<>();
+        State state = State.UNLOADED;
+        AsyncResult<Array<CollidableObject>> pending;
+        /** movable objects in the chunk, including those moved in from other chunks */
+        final Array<CollidableObject> bodies = new Array<>();
+        /** whether the movable objects of the level data were built (on the first activation) */
+        boolean built;
+        boolean active;
+
+        Chunk(int column, int row, float size) {
+            this.column = column;
+            this.row = row;
+            bounds = new Rectangle(column * size, row * size, size, size);
+            for (int i = 0; i < objects.length; i++) {
+                objects[i] = new FloatArray();
+                flags[i] = new IntArray();
+            }
+        }
+    }
+
+    private final GameWorld gameWorld;
+
+    private final JsonValue gameConstants;
+
+    /** builds chunk scenery off the main thread */
+    private final AsyncExecutor executor;
+
+    private final float chunkSize;
+
+    private final float activeMargin;
+
+    private final float prefetchMargin;
+
+    /** chunks keyed by packed (column, row) */
+    private final LongMap<Chunk> chunkMap;
+
+    /** chunks currently taking part in the simulation, in the order they were activated */
+    private final Array<Chunk> activeChunks;
+
+    /** chunks whose scenery is being built in the background */
+    private final Array<Chunk> loadingChunks;
+
+    /** area covered by the terrain of the loaded level (in game units) */
+    private final Rectangle levelBounds;
+
+    /** whether the loaded level has any terrain */
+    private boolean hasLevelBounds;
+
+    /**
+     * @param gameWorld     world to stream objects into
+     * @param gameConstants default constant values for all levels
+     */
+    LevelStreamer(GameWorld gameWorld, JsonValue gameConstants) {
+        this.gameWorld = gameWorld;
+        this.gameConstants = gameConstants;
+        JsonValue streaming = gameConstants.get("streaming");
+        chunkSize = streaming == null ? DEFAULT_CHUNK_SIZE :
+                streaming.getFloat("chunkSize", DEFAULT_CHUNK_SIZE);
+        activeMargin = streaming == null ? DEFAULT_ACTIVE_MARGIN :
+                streaming.getFloat("activeMargin", DEFAULT_ACTIVE_MARGIN);
+        prefetchMargin = Math.max(activeMargin, streaming == null ? DEFAULT_PREFETCH_MARGIN :
+                streaming.getFloat("prefetchMargin", DEFAULT_PREFETCH_MARGIN));
+        executor = new AsyncExecutor(1, "LevelStreamer");
+        chunkMap = new LongMap<>();
+        activeChunks = new Array<>();
+        loadingChunks = new Array<>();
+        levelBounds = new Rectangle();
+    }
+
+    /**
+     * splits the objects of a level into chunks and merges the collision of its terrain. The
+     * object data is copied, so the descriptor may be reused afterwards. Nothing is added to the
+     * world until the next {@link #update}.
+     *
+     * @param levelData level description
+     */
+    void load(LevelDescriptor levelData) {
+        clear();
+        // x, y, width, height of the tiles whose collision is merged (platforms, grid cells)
+        FloatArray tiles = new FloatArray();
+        for (int type = 0; type < LevelDescriptor.TYPE_COUNT; type++) {
+            LevelDescriptor.Columns columns = levelData.get(type);
+            for (int i = 0; i < columns.size; i++) {
+                Chunk chunk = findOrCreateChunk(toCell(columns.x[i]), toCell(columns.y[i]));
+                chunk.objects[type].add(columns.x[i], columns.y[i], columns.width[i],
+                                        columns.height[i]);
+                chunk.flags[type].add(columns.flags[i]);
+                if (type == LevelDescriptor.PLATFORM) {
+                    tiles.add(columns.x[i], columns.y[i], columns.width[i], columns.height[i]);
+                }
+            }
+        }
+        // tile layer cells only collide, they are drawn from the grid
+        LevelDescriptor.TileGrid grid = levelData.getTiles();
+        for (int row = 0; row < grid.height; row++) {
+            for (int column = 0; column < grid.width; column++) {
+                int cell = grid.get(column, row);
+                if (cell != LevelDescriptor.TileGrid.EMPTY &&
+                        LevelDescriptor.TileGrid.getType(cell) == LevelDescriptor.PLATFORM) {
+                    tiles.add(grid.x + column + 0.5f, grid.y + row + 0.5f, 1, 1);
+                }
+            }
+        }
+        // the terrain data has the same layout as the tiles expected by the merger
+        FloatArray merged = TileMerger.merge(tiles.items, tiles.size / 4, new FloatArray());
+        for (int i = 0; i < merged.size / 4; i++) {
+            float x = merged.get(4 * i);
+            float y = merged.get(4 * i + 1);
+            float width = merged.get(4 * i + 2);
+            float height = merged.get(4 * i + 3);
+            Terrain terrain = new Terrain(new TerrainCollider(gameConstants, x, y, width, height,
+                                                              "terrain_" + i));
+            int lastColumn = toCell(x + width / 2);
+            int lastRow = toCell(y + height / 2);
+            for (int row = toCell(y - height / 2); row <= lastRow; row++) {
+                for (int column = toCell(x - width / 2); column <= lastColumn; column++) {
+                    findOrCreateChunk(column, row).terrain.add(terrain);
+                }
+            }
+            if (hasLevelBounds) {
+                levelBounds.merge(x - width / 2, y - height / 2);
+                levelBounds.merge(x + width / 2, y + height / 2);
+            } else {
+                levelBounds.set(x - width / 2, y - height / 2, width, height);
+                hasLevelBounds = true;
+            }
+        }
+    }
+
+    /**
+     * @param out rectangle to store the area covered by the terrain of the level in
+     * @return whether the level has any terrain (the rectangle is left untouched if not)
+     */
+    boolean getLevelBounds(Rectangle out) {
+        if (hasLevelBounds) {
+            out.set(levelBounds);
+        }
+        return hasLevelBounds;
+    }
+
+    /**
+     * activates, deactivates and prefetches chunks around the focus area, and adds the scenery
+     * built in the background so far. This must not be called during the physics step.
+     *
+     * @param focus area to keep simulated, e.g. the view around the player (in game units)
+     */
+    void update(Rectangle focus) {
+        for (int i = activeChunks.size - 1; i >= 0; i--) {
+            Chunk chunk = activeChunks.get(i);
+            // the extra half chunk keeps chunks on the border from toggling every frame
+            if (distance(chunk.bounds, focus) > activeMargin + chunkSize / 2) {
+                activeChunks.removeIndex(i);
+                deactivate(chunk);
+            }
+        }
+        // the prefetch margin is at least the active margin, so this covers both
+        int lastColumn = toCell(focus.x + focus.width + prefetchMargin);
+        int lastRow = toCell(focus.y + focus.height + prefetchMargin);
+        for (int row = toCell(focus.y - prefetchMargin); row <= lastRow; row++) {
+            for (int column = toCell(focus.x - prefetchMargin); column <= lastColumn; column++) {
+                Chunk chunk = chunkMap.get(key(column, row));
+                if (chunk == null) {
+                    continue;
+                }
+                float distance = distance(chunk.bounds, focus);
+                if (distance <= activeMargin) {
+                    if (chunk.state == State.UNLOADED) {
+                        // the focus jumped here before the chunk could be prefetched
+                        attach(chunk, build(chunk));
+                    }
+                    activate(chunk);
+                } else if (chunk.state == State.UNLOADED && distance <= prefetchMargin) {
+                    prefetch(chunk);
+                }
+            }
+        }
+        for (int i = loadingChunks.size - 1; i >= 0; i--) {
+            Chunk chunk = loadingChunks.get(i);
+            if (chunk.state != State.LOADING) {
+                // built on the calling thread in the meantime
+                loadingChunks.removeIndex(i);
+            } else if (chunk.pending.isDone()) {
+                loadingChunks.removeIndex(i);
+                attach(chunk, chunk.pending.get());
+            }
+        }
+    }
+
+    /**
+     * forgets all chunks. Objects already added to the world are not touched; scenery still
+     * being built in the background is dropped.
+     */
+    void clear() {
+        chunkMap.clear();
+        activeChunks.clear();
+        loadingChunks.clear();
+        hasLevelBounds = false;
+    }
+
+    /**
+     * forgets all chunks and stops the background thread, waiting for the scenery it is building.
+     * The streamer cannot be used afterwards.
+     */
+    void dispose() {
+        clear();
+        executor.dispose();
+    }
+
+    private void prefetch(Chunk chunk) {
+        chunk.state = State.LOADING;
+        chunk.pending = executor.submit(() -> build(chunk));
+        loadingChunks.add(chunk);
+    }
+
+    private void attach(Chunk chunk, Array<CollidableObject> scenery) {
+        chunk.state = State.LOADED;
+        chunk.pending = null;
+        for (int i = 0; i < scenery.size; i++) {
+            gameWorld.addScenery(scenery.get(i));
+        }
+    }
+
+    private void activate(Chunk chunk) {
+        if (chunk.active) {
+            return;
+        }
+        chunk.active = true;
+        activeChunks.add(chunk);
+        for (int i = 0; i < chunk.terrain.size; i++) {
+            Terrain terrain = chunk.terrain.get(i);
+            if (terrain.activeChunks++ > 0) {
+                continue;
+            }
+            if (terrain.added) {
+                gameWorld.resumePhysics(terrain.collider);
+            } else {
+                gameWorld.addToPhysicsWorld(terrain.collider);
+                terrain.added = true;
+            }
+        }
+        // objects already in the chunk were suspended, either here or in the chunk they left
+        for (int i = 0; i < chunk.bodies.size; i++) {
+            gameWorld.resumePhysics(chunk.bodies.get(i));
+        }
+        if (!chunk.built) {
+            chunk.built = true;
+            int first = chunk.bodies.size;
+            buildBodies(chunk, chunk.bodies);
+            for (int i = first; i < chunk.bodies.size; i++) {
+                gameWorld.addToPhysicsWorld(chunk.bodies.get(i));
+            }
+        }
+    }
+
+    private void deactivate(Chunk chunk) {
+        chunk.active = false;
+        for (int i = 0; i < chunk.terrain.size; i++) {
+            Terrain terrain = chunk.terrain.get(i);
+            if (--terrain.activeChunks == 0) {
+                gameWorld.suspendPhysics(terrain.collider);
+            }
+        }
+        Array<CollidableObject> bodies = chunk.bodies;
+        // iterate backwards, objects handed over to other chunks are removed
+        for (int i = bodies.size - 1; i >= 0; i--) {
+            CollidableObject o = bodies.get(i);
+            // a moving object belongs to the chunk it is in now, not the one it started in
+            Chunk current = findOrCreateChunk(toCell(o.getX()), toCell(o.getY()));
+            if (current != chunk) {
+                bodies.removeIndex(i);
+                current.bodies.add(o);
+            }
+            if (!current.active) {
+                gameWorld.suspendPhysics(o);
+            }
+        }
+    }
+
+    /**
+     * creates the platform tiles of a chunk. Their collision is handled by the merged terrain, so
+     * they never allocate Box2D shapes. This does not touch the world and may run on any thread.
+     */
+    private Array<CollidableObject> build(Chunk chunk) {
+        Array<CollidableObject> scenery = new Array<>();
+        String suffix = "_" + chunk.column + "_" + chunk.row + "_";
+        FloatArray platforms = chunk.objects[LevelDescriptor.PLATFORM];
+        IntArray platformFlags = chunk.flags[LevelDescriptor.PLATFORM];
+        for (int i = 0; i < platforms.size / 4; i++) {
+            BlockPlatform platform = new BlockPlatform(gameConstants, platforms.get(4 * i),
+                                                       platforms.get(4 * i + 1),
+                                                       platforms.get(4 * i + 2),
+                                                       platforms.get(4 * i + 3),
+                                                       "platform" + suffix + i);
+            setFlip(platform, platformFlags.get(i));
+            scenery.add(platform);
+        }
+        return scenery;
+    }
+
+    /**
+     * creates the movable objects of a chunk.
+     *
+     * @param out array to add the objects to
+     */
+    private void buildBodies(Chunk chunk, Array<CollidableObject> out) {
+        String suffix = "_" + chunk.column + "_" + chunk.row + "_";
+        JsonValue movableConstants = gameConstants.get("movable");
+        FloatArray woods = chunk.objects[LevelDescriptor.WOOD];
+        IntArray woodFlags = chunk.flags[LevelDescriptor.WOOD];
+        for (int i = 0; i < woods.size / 4; i++) {
+            WoodBlock wood = new WoodBlock(movableConstants, woods.get(4 * i),
+                                           woods.get(4 * i + 1), woods.get(4 * i + 2),
+                                           woods.get(4 * i + 3), "movable" + suffix + i);
+            setFlip(wood, woodFlags.get(i));
+            out.add(wood);
+        }
+    }
+
+    /**
+     * @param flags {@link LevelDescriptor} flip flags (diagonal flips do not apply to objects)
+     */
+    private static void setFlip(GameObject o, int flags) {
+        o.setFlip((flags & LevelDescriptor.FLIP_HORIZONTAL) != 0,
+                  (flags & LevelDescriptor.FLIP_VERTICAL) != 0);
+    }
+
+    private Chunk findOrCreateChunk(int column, int row) {
+        long key = key(column, row);
+        Chunk chunk = chunkMap.get(key);
+        if (chunk == null) {
+            chunk = new Chunk(column, row, chunkSize);
+            chunkMap.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * @return the gap between two rectangles along the axis where it is largest (0 if they
+     * overlap)
+     */
+    private static float distance(Rectangle a, Rectangle b) {
+        float dx = Math.max(a.x - (b.x + b.width), b.x - (a.x + a.width));
+        float dy = Math.max(a.y - (b.y + b.height), b.y - (a.y + a.height));
+        return Math.max(0, Math.max(dx, dy));
+    }
+
+    /**
+     * @param value a coordinate (in game units)
+     * @return the chunk column/row containing the coordinate
+     */
+    private int toCell(float value) {
+        return MathUtils.floor(value / chunkSize);
+    }
+
+    /**
+     * @return the chunk map key for the given column and row
+     */
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+}
@@ -15,13 +15,19 @@ public class Player extends CollidableObject {
 
     boolean isGrounded;
 
-    public Player(JsonValue playerConstants, JsonValue playerData) {
+    /** whether the player last moved (or is facing) right */
+    private boolean facingRight = true;
+
+    /**
+     * @param playerConstants player constants (size, hit-box, density, friction, collision)
+     * @param x               spawn x (in game units)
+     * @param y               spawn y (in game units)
+     */
+    public Player(JsonValue playerConstants, float x, float y) {
         super(playerConstants.getFloat("width"), playerConstants.getFloat("height"));
         JsonValue hitBoxData = playerConstants.get("hit-box");
         float width = hitBoxData.getFloat("width", 0.5f);
         float height = hitBoxData.getFloat("height", 1);
-        float x = playerData.getFloat("x", 0);
-        float y = playerData.getFloat("y", 0);
         float density = playerConstants.getFloat("density", 1);
         float friction = playerConstants.getFloat("friction", 0);
         // mass, size, position, velocity, angular rotation are all in the hit box
@@ -34,6 +40,9 @@ public class Player extends CollidableObject {
         hitBox.setGroundSensorName(GROUND_SENSOR_NAME);
         // assign name to hit-box for debugging
         hitBox.setName("playerHitBox");
+        // the player never touches its own fireballs
+        setCollisionFilter(playerConstants.get("collision"), CollisionCategory.PLAYER,
+                           (short) (CollisionCategory.ALL & ~CollisionCategory.FIREBALL));
     }
 
     /**
@@ -81,6 +90,14 @@ public class Player extends CollidableObject {
         isGrounded = grounded;
     }
 
+    public boolean isFacingRight() {
+        return facingRight;
+    }
+
+    public void setFacingRight(boolean facingRight) {
+        this.facingRight = facingRight;
+    }
+
     public float getHorizontalVelocity() {
         return hitBox.getBody().getLinearVelocity().x;
     }
@@ -0,0 +1,48 @@
+package com.elements.game.model;
+
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.utils.JsonValue;
+import com.elements.game.utility.physics.BoxPhysicsBody;
+import com.elements.game.visitors.GameObjectVisitor;
+
+/**
+ * A Terrain Collider is an invisible static box covering a rectangle of adjacent platform tiles
+ * (see {@link com.elements.game.utility.physics.TileMerger}). It carries the physics of those
+ * tiles while the tiles themselves ({@link BlockPlatform}) are only drawn.
+ */
+public class TerrainCollider extends CollidableObject {
+
+    private final BoxPhysicsBody hitBox;
+
+    /**
+     * @param constants     platform constants (density, friction, restitution, collision)
+     * @param x             center x of the merged rectangle (in game units)
+     * @param y             center y of the merged rectangle (in game units)
+     * @param width         width of the merged rectangle (in game units)
+     * @param height        height of the merged rectangle (in game units)
+     * @param objectNameTag name of the hit-box
+     */
+    public TerrainCollider(JsonValue constants, float x, float y, float width, float height,
+                           String objectNameTag) {
+        // nothing is drawn
+        super(0, 0);
+        hitBox = new BoxPhysicsBody(x, y, width, height);
+        hitBox.setBodyType(BodyDef.BodyType.StaticBody);
+        hitBox.setDensity(constants.getFloat("density", 0.0f));
+        hitBox.setFriction(constants.getFloat("friction", 0.0f));
+        hitBox.setRestitution(constants.getFloat("restitution", 0.0f));
+        hitBox.setName(objectNameTag);
+        setCollisionFilter(constants.get("collision"), CollisionCategory.PLATFORM,
+                           CollisionCategory.ALL);
+    }
+
+    @Override
+    public BoxPhysicsBody getHitBox() {
+        return hitBox;
+    }
+
+    @Override
+    public <V> V accept(GameObjectVisitor<V> v) {
+        return v.visit(this);
+    }
+}
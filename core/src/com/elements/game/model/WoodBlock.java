@@ -5,14 +5,17 @@ import com.badlogic.gdx.utils.JsonValue;
 import com.elements.game.visitors.GameObjectVisitor;
 
 public class WoodBlock extends BlockPlatform {
-    public WoodBlock(JsonValue constants, JsonValue data, String objectNameTag) {
-        super(constants, data, objectNameTag);
+    public WoodBlock(JsonValue constants, float x, float y, float width, float height,
+                     String objectNameTag) {
+        super(constants, x, y, width, height, objectNameTag);
 
         hitBox.setBodyType(BodyDef.BodyType.DynamicBody);
         hitBox.setDensity(constants.getFloat("density", 1.0f));
         hitBox.setFriction(constants.getFloat("friction", 0.4f));
         hitBox.setRestitution(constants.getFloat("restitution", 0.1f));
         hitBox.setName(objectNameTag);
+        setCollisionFilter(constants.get("collision"), CollisionCategory.MOVABLE,
+                           CollisionCategory.ALL);
     }
 
     @Override
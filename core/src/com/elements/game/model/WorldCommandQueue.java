@@ -0,0 +1,118 @@
+package com.elements.game.model;
+
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Buffers changes to the physics world that are requested while the Box2D world is locked (i.e.
+ * during {@code World.step}, which includes every contact callback). Box2D crashes natively when
+ * bodies are created, destroyed or (de)activated mid-step, so {@link GameWorld} records such
+ * requests here and applies them in one batch once the step is over. <br> Commands are pooled,
+ * so queueing does not allocate once the pool has warmed up. A batch is applied grouped by body
+ * type (static, then kinematic, then dynamic) and in request order within each group.
+ */
+class WorldCommandQueue {
+
+    /**
+     * kinds of deferred world mutations
+     */
+    enum Type {
+        /** add the target to the world */
+        SPAWN,
+        /** remove the target from the world */
+        DESTROY,
+        /** wake the target's body from the inactive state */
+        ACTIVATE,
+        /** put the target's body in the inactive state */
+        DEACTIVATE,
+        /** summon a fireball in front of the target (a player) */
+        SUMMON_FIREBALL
+    }
+
+    /**
+     * a single deferred request
+     */
+    static class Command implements Pool.Poolable {
+        Type type;
+        CollidableObject target;
+
+        @Override
+        public void reset() {
+            type = null;
+            target = null;
+        }
+    }
+
+    private final Pool<Command> commandPool;
+
+    /** pending commands, one bucket per body type (indexed by ordinal) */
+    private final Array<Array<Command>> buckets;
+
+    private int size;
+
+    WorldCommandQueue() {
+        commandPool = new Pool<Command>() {
+            @Override
+            protected Command newObject() {
+                return new Command();
+            }
+        };
+        int bodyTypes = BodyDef.BodyType.values().length;
+        buckets = new Array<>(bodyTypes);
+        for (int ii = 0; ii < bodyTypes; ii++) {
+            buckets.add(new Array<>(false, 16));
+        }
+    }
+
+    /**
+     * @return whether no commands are pending
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * records a command to be applied by the next {@link #flush}.
+     *
+     * @param type   kind of mutation
+     * @param target object to mutate
+     * @param group  body type the command affects (used to group the batch)
+     */
+    void add(Type type, CollidableObject target, BodyDef.BodyType group) {
+        Command command = commandPool.obtain();
+        command.type = type;
+        command.target = target;
+        buckets.get(group.ordinal()).add(command);
+        size++;
+    }
+
+    /**
+     * applies all pending commands to the given world, group by group. The world must not be
+     * locked.
+     *
+     * @param gameWorld game world to apply commands to
+     */
+    void flush(GameWorld gameWorld) {
+        for (int ii = 0; ii < buckets.size; ii++) {
+            Array<Command> bucket = buckets.get(ii);
+            for (int jj = 0; jj < bucket.size; jj++) {
+                gameWorld.apply(bucket.get(jj));
+            }
+            commandPool.freeAll(bucket);
+            bucket.clear();
+        }
+        size = 0;
+    }
+
+    /**
+     * drops all pending commands without applying them.
+     */
+    void clear() {
+        for (int ii = 0; ii < buckets.size; ii++) {
+            commandPool.freeAll(buckets.get(ii));
+            buckets.get(ii).clear();
+        }
+        size = 0;
+    }
+}
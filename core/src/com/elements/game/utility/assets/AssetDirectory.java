@@ -16,19 +16,22 @@
  */
 package com.elements.game.utility.assets;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.*;
 import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGeneratorLoader;
-import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
 
@@ -49,8 +52,8 @@ import com.elements.game.utility.textures.FilmStrip;
  * objects.  However, it also requires {@link AssetParser} objects.  An asset parser
  * takes an JSON entry in the directory and instructs the appropriate loader how to
  * load that file.  This class has built in parsers for the classes {@link Texture}, 
- * {@link TextureRegion},  {@link BitmapFont}, {@link SoundEffect}, {@link MusicQueue},
- * and {@link JsonValue}.
+ * {@link TextureRegion}, {@link TextureAtlas}, {@link BitmapFont}, {@link SoundEffect},
+ * {@link MusicQueue}, and {@link JsonValue}.
  *
  * If you wish to add custom assets, you need to add BOTH a custom {@link AssetLoader}
  * and a custom {@link AssetParser} to this manager.  While a type can only have one
@@ -74,6 +77,30 @@ public class AssetDirectory extends AssetManager {
     protected Index contents;
     /** The dedicated loader for the {@link Index} class */
     protected DirectoryLoader topLoader;
+    /** Regions already resolved by {@link #getRegion}, keyed by directory key */
+    protected ObjectMap<String, TextureRegion> regions;
+    /** The manifests loaded (or loading) by {@link #loadManifest}, keyed by file name */
+    protected ObjectMap<String, Index> manifests;
+    /** The scopes acquired by {@link #acquireScope}, keyed by scope name */
+    protected ObjectMap<String, Scope> scopes;
+    /** The pool decoding directory assets in parallel, ahead of the loaders */
+    protected DecodePool decodePool;
+    /** The on-disk cache of decoded images (null if local storage is unavailable) */
+    protected PixmapCache pixmapCache;
+    /** The on-disk cache of rasterized fonts (null if local storage is unavailable) */
+    protected FontCache fontCache;
+    /** The on-disk cache of decoded audio (null if local storage is unavailable) */
+    protected AudioCache audioCache;
+    /** The trace recording every asset load (null if loads are not traced) */
+    protected LoadTrace trace;
+
+    /** The directory (in local storage) of the caches of decoded assets */
+    public static final String CACHE_DIRECTORY = ".assetcache";
+    /** The resident memory (in bytes) beyond which optional loads are skipped (0 = no budget) */
+    protected long memoryBudget;
+
+    /** The name of the scope of the directory itself, which is always resident */
+    public static final String GLOBAL_SCOPE = "global";
 
     /**
      * This class represents the top level index of an asset directory.
@@ -96,6 +123,31 @@ public class AssetDirectory extends AssetManager {
         }
     }
 
+    /**
+     * A callback function for the directory loader of manifests
+     *
+     * We need this callback to extract the manifest index
+     */
+    private DirectoryLoader.DirectoryLoaderParameters.LoadedCallback manifestCallback = new DirectoryLoader.DirectoryLoaderParameters.LoadedCallback() {
+        @Override
+        public void finishedLoading(AssetManager manager, String fileName, Class type) {
+            manifests.put( fileName, manager.get( fileName, Index.class ) );
+        }
+    };
+
+    /**
+     * This class represents an acquired asset scope.
+     *
+     * A scope is a named manifest (e.g. the menu or a level) whose assets are loaded
+     * while at least one reference to the scope is held.
+     */
+    protected static class Scope {
+        /** The manifest file of this scope */
+        String manifest;
+        /** The number of holders of this scope */
+        int references;
+    }
+
     /** 
      * A callback function for the directory loader
      *
@@ -137,30 +189,63 @@ public class AssetDirectory extends AssetManager {
      * @param resolver    The file handle resolver
      */
     public AssetDirectory(String directory, FileHandleResolver resolver) {
+        this( directory, resolver, null );
+    }
+
+    /**
+     * Creates a new AssetDirectory from the given directory, recording every load.
+     *
+     * This class uses the given {@link FileHandleResolver} to convert asset file
+     * names into assets. Every loader of this directory (including those set later)
+     * records its loads in the trace.
+     *
+     * @param directory    The asset directory file name
+     * @param resolver    The file handle resolver
+     * @param trace        The trace to record loads in (null to not trace)
+     */
+    public AssetDirectory(String directory, FileHandleResolver resolver, LoadTrace trace) {
         super( resolver, false );
         filename = directory;
         this.resolver = resolver;
+        this.trace = trace;
 
         // Add the default loaders
         topLoader = new DirectoryLoader( resolver );
+        decodePool = new DecodePool();
+        decodePool.setTrace( trace );
+        topLoader.setDecodePool( decodePool );
+        if (Gdx.files.isLocalStorageAvailable()) {
+            FileHandle cache = Gdx.files.local( CACHE_DIRECTORY );
+            pixmapCache = new PixmapCache( cache.child( "pixmaps" ) );
+            fontCache = new FontCache( cache.child( "fonts" ) );
+            audioCache = new AudioCache( cache.child( "audio" ) );
+        }
+        regions = new ObjectMap<String, TextureRegion>();
+        manifests = new ObjectMap<String, Index>();
+        scopes = new ObjectMap<String, Scope>();
         setLoader( Index.class, topLoader );
         setLoader( FreeTypeFontGenerator.class, new FreeTypeFontGeneratorLoader( resolver ) );
-        setLoader( BitmapFont.class, ".ttf", new FreetypeFontLoader( resolver ) );
+        setLoader( BitmapFont.class, ".ttf", new CachedFontLoader( resolver, fontCache ) );
         //setLoader( BitmapFont.class, new BitmapFontLoader( resolver ) ); // fallback
 
-        setLoader( AudioSource.class, new AudioSourceLoader( resolver ) );
+        AudioSourceLoader audioLoader = new AudioSourceLoader( resolver, decodePool, audioCache );
+        setLoader( AudioSource.class, audioLoader );
+        topLoader.addDecoder( SoundEffect.class, audioLoader.getDecoder() );
         setLoader( Sound.class, new SoundLoader( resolver ) );
         setLoader( Music.class, new MusicLoader( resolver ) );
         setLoader( SoundEffect.class, new SoundEffectLoader( resolver ) );
         setLoader( MusicQueue.class, new MusicQueueLoader( resolver ) );
 
         setLoader( Pixmap.class, new PixmapLoader( resolver ) );
-        setLoader( Texture.class, new TextureLoader( resolver ) );
+        DecodedTextureLoader textureLoader = new DecodedTextureLoader( resolver, decodePool, pixmapCache );
+        setLoader( Texture.class, textureLoader );
+        topLoader.addDecoder( Texture.class, textureLoader.getDecoder() );
         setLoader( TextureAtlas.class, new TextureAtlasLoader( resolver ) );
         setLoader( TextureRegion.class, new TextureRegionLoader( resolver ) );
         setLoader( FilmStrip.class, new FilmStripLoader( resolver ) );
 
-        setLoader( JsonValue.class, new JsonValueLoader( resolver ) );
+        setLoader( JsonValue.class, new JsonValueLoader( resolver, decodePool ) );
+        topLoader.addDecoder( JsonValue.class, JsonValueLoader.DECODER );
 
         // Why not?
         setLoader( Skin.class, new SkinLoader( resolver ) );
@@ -171,6 +256,7 @@ public class AssetDirectory extends AssetManager {
         topLoader.addParser( new JsonValueParser() );
         topLoader.addParser( new TextureParser() );
         topLoader.addParser( new TextureRegionParser() );
+        topLoader.addParser( new TextureAtlasParser() );
         topLoader.addParser( new FilmStripParser() );
         topLoader.addParser( new FreetypeFontParser() );
         topLoader.addParser( new SoundParser() );
@@ -179,6 +265,70 @@ public class AssetDirectory extends AssetManager {
         topLoader.addParser( new MusicQueueParser() );
     }
 
+    /**
+     * Sets the loader for the given type and file suffix
+     *
+     * If this directory is traced, the loader is wrapped to record its loads.
+     *
+     * @param type      The asset type
+     * @param suffix    The file suffix (null for all files)
+     * @param loader    The asset loader
+     */
+    @Override
+    public synchronized <T, P extends AssetLoaderParameters<T>> void setLoader(Class<T> type, String suffix, AssetLoader<T, P> loader) {
+        super.setLoader( type, suffix, trace == null ? loader : trace.wrap( loader ) );
+    }
+
+    /**
+     * Adds the given asset to the loading queue
+     *
+     * If this directory is traced, the time the asset is queued is recorded.
+     *
+     * @param fileName  The asset file name
+     * @param type      The asset type
+     * @param parameter The loader parameters (may be null)
+     */
+    @Override
+    public synchronized <T> void load(String fileName, Class<T> type, AssetLoaderParameters<T> parameter) {
+        if (trace != null && !isLoaded( fileName )) {
+            trace.queued( fileName );
+        }
+        super.load( fileName, type, parameter );
+    }
+
+    /**
+     * Returns the trace recording the loads of this directory
+     *
+     * @return the trace recording the loads of this directory (null if not traced)
+     */
+    public LoadTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Updates the loading of the queued assets
+     *
+     * Decoded files that no loader is going to take any more (see
+     * {@link DecodePool#discardLoaded}) are freed afterwards.
+     *
+     * @return true if all loading is finished
+     */
+    @Override
+    public synchronized boolean update() {
+        boolean done = super.update();
+        decodePool.discardLoaded( this );
+        return done;
+    }
+
+    /**
+     * Disposes all assets and stops the decode workers
+     */
+    @Override
+    public void dispose() {
+        super.dispose();
+        decodePool.dispose();
+    }
+
     /**
      * Returns the progress in percent of completion.
      *
@@ -229,8 +379,371 @@ public class AssetDirectory extends AssetManager {
                 unload( filename );
             }
         }
+        for (String manifest : manifests.keys().toArray()) {
+            unloadManifest( manifest );
+        }
+        scopes.clear();
+        regions.clear();
         contents = null;
     }
+
+    /**
+     * Returns the manifest file of the given scope
+     *
+     * Scopes are named in the "scopes" section of the directory (e.g. "menu"), and every
+     * level manifest (see {@link #getManifest}) is a scope named by its level key.
+     *
+     * @param scope  the scope name
+     *
+     * @return the manifest file of the given scope (or null if there is no such scope)
+     */
+    public String getScopeManifest(String scope) {
+        JsonValue named = contents.directory.get( "scopes" );
+        String manifest = named == null ? null : named.getString( scope, null );
+        return manifest != null ? manifest : getManifest( scope );
+    }
+
+    /**
+     * Returns true if the given scope is declared by the directory
+     *
+     * @param scope  the scope name
+     *
+     * @return true if the given scope is declared by the directory
+     */
+    public boolean hasScope(String scope) {
+        return GLOBAL_SCOPE.equals( scope ) || getScopeManifest( scope ) != null;
+    }
+
+    /**
+     * Acquires a reference to a scope, queueing its assets if it was not held before
+     *
+     * Every call must be matched by a call to {@link #releaseScope}. Like manifests, the
+     * assets of a scope are loaded by {@link #update}, so a scope can be acquired ahead
+     * of time and loaded in the background. As {@link AssetManager} counts references to
+     * every file, switching from one scope to another only loads the assets the new scope
+     * adds, provided the new scope is acquired before the old one is released.
+     *
+     * The global scope is always resident and cannot be acquired.
+     *
+     * @param scope  the scope name
+     */
+    public void acquireScope(String scope) {
+        if (GLOBAL_SCOPE.equals( scope )) {
+            return;
+        }
+        Scope entry = scopes.get( scope, null );
+        if (entry == null) {
+            String manifest = getScopeManifest( scope );
+            if (manifest == null) {
+                throw new GdxRuntimeException( "unknown asset scope: " + scope );
+            }
+            entry = new Scope();
+            entry.manifest = manifest;
+            scopes.put( scope, entry );
+            loadManifest( manifest );
+        }
+        entry.references++;
+    }
+
+    /**
+     * Releases a reference to a scope acquired by {@link #acquireScope}
+     *
+     * The assets of the scope are unloaded once no references are left, except those
+     * still used by the directory or other scopes.
+     *
+     * @param scope  the scope name
+     */
+    public void releaseScope(String scope) {
+        Scope entry = scopes.get( scope, null );
+        if (entry == null) {
+            return;
+        }
+        if (--entry.references == 0) {
+            scopes.remove( scope );
+            unloadManifest( entry.manifest );
+        }
+    }
+
+    /**
+     * Returns true if all assets of an acquired scope are loaded
+     *
+     * @param scope  the scope name
+     *
+     * @return true if all assets of an acquired scope are loaded
+     */
+    public boolean isScopeLoaded(String scope) {
+        if (GLOBAL_SCOPE.equals( scope )) {
+            return contents != null;
+        }
+        Scope entry = scopes.get( scope, null );
+        return entry != null && isManifestLoaded( entry.manifest );
+    }
+
+    /**
+     * Blocks until all assets of an acquired scope are loaded
+     *
+     * @param scope  the scope name
+     */
+    public void finishLoadingScope(String scope) {
+        Scope entry = scopes.get( scope, null );
+        if (entry != null) {
+            finishLoadingManifest( entry.manifest );
+        }
+    }
+
+    /**
+     * Returns the memory (in bytes) used by the loaded assets of a scope
+     *
+     * Assets shared by several scopes count towards each of them. The figure is an
+     * estimate: textures count their uncompressed pixels, streamed music counts nothing
+     * and every other asset counts the size of its file.
+     *
+     * @param scope  the scope name
+     *
+     * @return the memory (in bytes) used by the loaded assets of a scope
+     */
+    public long getResidentBytes(String scope) {
+        Index index;
+        if (GLOBAL_SCOPE.equals( scope )) {
+            index = contents;
+        } else {
+            Scope entry = scopes.get( scope, null );
+            index = entry == null ? null : manifests.get( entry.manifest, null );
+        }
+        if (index == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (ObjectMap<String, String> category : index.keymap.values()) {
+            for (String filename : category.values()) {
+                bytes += estimateBytes( filename );
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the memory (in bytes) used by all loaded assets
+     *
+     * This counts every asset once, including those loaded manually. See
+     * {@link #getResidentBytes(String)} for how the memory of an asset is estimated.
+     *
+     * @return the memory (in bytes) used by all loaded assets
+     */
+    public synchronized long getResidentBytes() {
+        long bytes = 0;
+        for (String filename : getAssetNames()) {
+            bytes += estimateBytes( filename );
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the estimated memory (in bytes) used by a loaded asset
+     *
+     * @param filename  the asset file name
+     *
+     * @return the estimated memory (in bytes) used by a loaded asset (0 if not loaded)
+     */
+    private long estimateBytes(String filename) {
+        if (!isLoaded( filename )) {
+            return 0;
+        }
+        return estimateBytes( get( filename, getAssetType( filename ) ), resolver.resolve( filename ) );
+    }
+
+    /**
+     * Returns the estimated memory (in bytes) used by an asset
+     *
+     * @param asset     the loaded asset
+     * @param file      the asset file
+     *
+     * @return the estimated memory (in bytes) used by an asset
+     */
+    static long estimateBytes(Object asset, FileHandle file) {
+        if (asset instanceof Texture) {
+            return getTextureBytes( (Texture)asset );
+        } else if (asset instanceof TextureAtlas) {
+            long bytes = 0;
+            for (Texture texture : ((TextureAtlas)asset).getTextures()) {
+                bytes += getTextureBytes( texture );
+            }
+            return bytes;
+        } else if (asset instanceof BitmapFont) {
+            long bytes = 0;
+            for (TextureRegion region : ((BitmapFont)asset).getRegions()) {
+                bytes += getTextureBytes( region.getTexture() );
+            }
+            return bytes;
+        } else if (asset instanceof TextureRegion || asset instanceof Index ||
+                   asset instanceof Music) {
+            // regions share the texture of their file, music is streamed
+            return 0;
+        }
+        return file.length();
+    }
+
+    /**
+     * Returns the memory (in bytes) used by the pixels of a texture
+     *
+     * @param texture  the texture
+     *
+     * @return the memory (in bytes) used by the pixels of a texture
+     */
+    private static long getTextureBytes(Texture texture) {
+        int bytesPerPixel;
+        switch (texture.getTextureData().getFormat()) {
+            case Alpha:
+            case Intensity:
+                bytesPerPixel = 1;
+                break;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                bytesPerPixel = 2;
+                break;
+            case RGB888:
+                bytesPerPixel = 3;
+                break;
+            default:
+                bytesPerPixel = 4;
+                break;
+        }
+        return (long)texture.getWidth()*texture.getHeight()*bytesPerPixel;
+    }
+
+    /**
+     * Returns the memory budget (in bytes)
+     *
+     * @return the memory budget (in bytes), 0 if there is no budget
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the memory budget (in bytes)
+     *
+     * The budget does not prevent any load. Callers should check {@link #isOverBudget}
+     * before optional loads, such as prefetching the next level.
+     *
+     * @param bytes  the memory budget (in bytes), 0 for no budget
+     */
+    public void setMemoryBudget(long bytes) {
+        memoryBudget = bytes;
+    }
+
+    /**
+     * Returns true if the loaded assets use more memory than the budget
+     *
+     * @return true if the loaded assets use more memory than the budget
+     */
+    public boolean isOverBudget() {
+        return memoryBudget > 0 && getResidentBytes() > memoryBudget;
+    }
+
+    /**
+     * Returns the manifest file of the given level key
+     *
+     * Levels list their own assets (level data, level specific art and music) in a
+     * manifest, which has the same format as the asset directory. The manifests are
+     * named in the "levels" section of the directory, as key : manifest file.
+     *
+     * The method {@link #loadAssets} must have been called for this method to
+     * return a value.
+     *
+     * @param key  the level key (e.g. "level0")
+     *
+     * @return the manifest file of the given level key (or null)
+     */
+    public String getManifest(String key) {
+        JsonValue levels = contents.directory.get( "levels" );
+        return levels == null ? null : levels.getString( key, null );
+    }
+
+    /**
+     * Queues all assets of a manifest for loading
+     *
+     * Nothing is loaded until {@link #update} is called, so a manifest can be loaded in
+     * the background within a frame budget (e.g. the next level while the current one
+     * is played). Once loaded, its entries are found by {@link #getEntry} like those of
+     * the directory. Assets shared with the directory or other manifests are only
+     * loaded once, as {@link AssetManager} counts references.
+     *
+     * Loading a manifest that is already loaded (or loading) does nothing.
+     *
+     * @param manifest  the manifest file name
+     */
+    public void loadManifest(String manifest) {
+        if (manifests.containsKey( manifest )) {
+            return;
+        }
+        DirectoryLoader.DirectoryLoaderParameters params = new DirectoryLoader.DirectoryLoaderParameters();
+        params.loadedCallback = manifestCallback;
+        // the index is stored by the callback, this marks the manifest as requested
+        manifests.put( manifest, null );
+        load( manifest, Index.class, params );
+    }
+
+    /**
+     * Returns true if a manifest and all of its assets are loaded
+     *
+     * @param manifest  the manifest file name
+     *
+     * @return true if a manifest and all of its assets are loaded
+     */
+    public boolean isManifestLoaded(String manifest) {
+        Index index = manifests.get( manifest, null );
+        if (index == null) {
+            return false;
+        }
+        for (ObjectMap<String, String> category : index.keymap.values()) {
+            for (String filename : category.values()) {
+                if (!isLoaded( filename )) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads a manifest and all of its assets, blocking until they are loaded
+     *
+     * Other queued assets (e.g. a manifest being prefetched) are finished as well.
+     *
+     * @param manifest  the manifest file name
+     */
+    public void finishLoadingManifest(String manifest) {
+        loadManifest( manifest );
+        finishLoading();
+    }
+
+    /**
+     * Unloads a manifest previously loaded by {@link #loadManifest}
+     *
+     * Assets still referenced by the directory or by another manifest stay loaded.
+     *
+     * @param manifest  the manifest file name
+     */
+    public void unloadManifest(String manifest) {
+        if (!manifests.containsKey( manifest )) {
+            return;
+        }
+        if (manifests.get( manifest ) == null) {
+            // still loading, the index is needed to find the assets
+            finishLoadingAsset( manifest );
+        }
+        Index index = manifests.remove( manifest );
+        for (ObjectMap<String, String> category : index.keymap.values()) {
+            for (String filename : category.values()) {
+                unload( filename );
+            }
+        }
+        unload( manifest );
+        // cached regions may belong to unloaded atlases
+        regions.clear();
+    }
     
     /**
      * Returns the {@link AssetParser} objects associated with this directory loader
@@ -286,15 +799,112 @@ public class AssetDirectory extends AssetManager {
      * @return the asset associated with the given directory key
      */
     public <T> T getEntry(String key, Class<T> type) {
-        ObjectMap<String, String> keys = contents.keymap.get( type, null );
-        if (keys == null) {
+        String filename = findFile( key, type );
+        if (filename == null) {
             return null;
         }
-        String filename = keys.get( key, null );
+        return get( filename, type );
+    }
+
+    /**
+     * Returns the Tiled file of the given level key
+     *
+     * Level data is named in the "tiled" section of the directory or of a loaded
+     * manifest, as key : file. These files are not loaded as assets, since levels
+     * are read from their compiled form when possible; only the file is returned.
+     *
+     * @param key  the level key (e.g. "level0")
+     *
+     * @return the Tiled file of the given level key (or null)
+     */
+    public FileHandle getLevelFile(String key) {
+        String filename = findLevelFile( contents, key );
         if (filename == null) {
+            for (Index index : manifests.values()) {
+                filename = findLevelFile( index, key );
+                if (filename != null) {
+                    break;
+                }
+            }
+        }
+        return filename == null ? null : getFileHandleResolver().resolve( filename );
+    }
+
+    private static String findLevelFile(Index index, String key) {
+        if (index == null || index.directory == null) {
             return null;
         }
-        return get( filename, type );
+        JsonValue levels = index.directory.get( "tiled" );
+        return levels == null ? null : levels.getString( key, null );
+    }
+
+    /**
+     * Returns the file name of the given directory key
+     *
+     * The directory is searched first, then every loaded manifest.
+     *
+     * @param key  the asset directory key
+     * @param type the asset type
+     *
+     * @return the file name of the given directory key (or null)
+     */
+    private String findFile(String key, Class<?> type) {
+        String filename = findFile( contents, key, type );
+        if (filename != null) {
+            return filename;
+        }
+        for (Index index : manifests.values()) {
+            filename = findFile( index, key, type );
+            if (filename != null) {
+                return filename;
+            }
+        }
+        return null;
+    }
+
+    private static String findFile(Index index, String key, Class<?> type) {
+        if (index == null) {
+            return null;
+        }
+        ObjectMap<String, String> keys = index.keymap.get( type, null );
+        return keys == null ? null : keys.get( key, null );
+    }
+
+    /**
+     * Returns the texture region associated with the given directory key
+     *
+     * A key of the form "atlas:region" names a region of a {@link TextureAtlas} entry.
+     * Drawing regions of the same atlas page does not flush the sprite batch, so this
+     * should be preferred over standalone textures. If there is no such atlas region,
+     * the key is looked up as a {@link Texture} entry and the whole texture is returned.
+     *
+     * The returned region is shared by all callers and must not be modified.
+     *
+     * @param key  the asset directory key
+     *
+     * @return the texture region associated with the given directory key (or null)
+     */
+    public TextureRegion getRegion(String key) {
+        TextureRegion region = regions.get( key, null );
+        if (region != null) {
+            return region;
+        }
+        int split = key.indexOf( ':' );
+        if (split >= 0) {
+            TextureAtlas atlas = getEntry( key.substring( 0, split ), TextureAtlas.class );
+            if (atlas != null) {
+                region = atlas.findRegion( key.substring( split+1 ) );
+            }
+        }
+        if (region == null) {
+            Texture texture = getEntry( key, Texture.class );
+            if (texture == null) {
+                return null;
+            }
+            region = new TextureRegion( texture );
+        }
+        regions.put( key, region );
+        return region;
     }
 
     /**
@@ -309,11 +919,7 @@ public class AssetDirectory extends AssetManager {
      * @return true if there is an asset associated with the given directory key
      */
     public <T> boolean hasEntry(String key, Class<T> type) {
-        ObjectMap<String, String> keys = contents.keymap.get( type, null );
-        if (keys == null) {
-            return false;
-        }
-        String filename = keys.get( key, null );
+        String filename = findFile( key, type );
         if (filename == null) {
             return false;
         }
@@ -0,0 +1,198 @@
+package com.elements.game.utility.assets;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import com.elements.game.utility.audio.AudioEngine;
+import com.elements.game.utility.audio.AudioSource;
+import com.elements.game.utility.audio.AudioStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class keeps decoded audio on disk, so that compressed audio (OGG, MP3) does not
+ * have to be decoded again on the next launch.
+ *
+ * Each entry is the 16-bit PCM of a source file, stored as a WAV file so that the audio
+ * engine reads it like any other source. It is named after the path of the source file
+ * and the hash of its contents, so an edited file replaces its old entry. An entry is
+ * only used if its RIFF header matches its own size. WAV files are already PCM and are
+ * not cached.
+ *
+ * All methods may be called from several threads at once (e.g. by the workers of a
+ * {@link DecodePool}).
+ */
+public class AudioCache extends DiskCache {
+    /** Bumped whenever the entry layout changes, older entries are ignored */
+    private static final int VERSION = 1;
+    /** Size of the RIFF header of an entry */
+    private static final int HEADER_SIZE = 44;
+    /** Extension of cache entries */
+    private static final String EXTENSION = ".wav";
+    /** The number of samples decoded at a time */
+    private static final int PAGE_SIZE = 16384;
+
+    /**
+     * Creates a cache in the given directory
+     *
+     * Entries of other cache versions are deleted. The directory is created when the
+     * first entry is written.
+     *
+     * @param directory    The cache directory (must be writable)
+     */
+    public AudioCache(FileHandle directory) {
+        super( directory, VERSION );
+    }
+
+    /**
+     * Returns the audio source of a file, decoded from the cache if possible
+     *
+     * The file of the returned source (see {@link AudioSource#getFile}) is the cache
+     * entry when there is one.
+     *
+     * @param file  The audio file (wav, ogg or mp3)
+     *
+     * @return the audio source of a file
+     */
+    public AudioSource decode(FileHandle file) {
+        AudioEngine engine = (AudioEngine)Gdx.audio;
+        if (file.extension().equalsIgnoreCase( "wav" )) {
+            return engine.newSource( file );
+        }
+        final String prefix = Long.toHexString( hash( file.path() ) ) + "-";
+        FileHandle entry = entry( file, Long.toHexString( hash( file.readBytes() ) ), EXTENSION );
+        if (entry.exists() && isValid( entry )) {
+            try {
+                return engine.newSource( entry );
+            } catch (GdxRuntimeException e) {
+                // unreadable entry, decode the source instead
+            }
+        }
+        AudioSource source = engine.newSource( file );
+        // entries of older versions of the file
+        for (FileHandle old : directory.list()) {
+            if (old.name().startsWith( prefix ) && !old.name().equals( entry.name() )) {
+                old.delete();
+            }
+        }
+        write( entry, source );
+        if (entry.exists() && isValid( entry )) {
+            try {
+                AudioSource cached = engine.newSource( entry );
+                source.dispose();
+                return cached;
+            } catch (GdxRuntimeException e) {
+                entry.delete();
+            }
+        }
+        return source;
+    }
+
+    /**
+     * Returns true if the RIFF header of an entry matches its size
+     *
+     * @param entry the cache entry
+     *
+     * @return true if the RIFF header of an entry matches its size
+     */
+    private static boolean isValid(FileHandle entry) {
+        try {
+            ByteBuffer data = map( entry );
+            if (data.remaining() < HEADER_SIZE || data.getInt( 0 ) != 0x52494646 ||
+                data.getInt( 8 ) != 0x57415645 || data.getInt( 36 ) != 0x64617461) {
+                return false;
+            }
+            data.order( ByteOrder.LITTLE_ENDIAN );
+            return data.getInt( 4 ) == data.remaining() - 8 &&
+                   data.getInt( 40 ) == data.remaining() - HEADER_SIZE;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stores the decoded samples of a source in an entry
+     *
+     * The samples are streamed from the source, and the header is written once their
+     * number is known.
+     *
+     * @param entry     the cache entry
+     * @param source    the audio source
+     */
+    private static void write(FileHandle entry, final AudioSource source) {
+        final int channels = source.getChannels();
+        final int rate = source.getSampleRate();
+        try {
+            write( entry, new Writer() {
+                @Override
+                public void write(FileChannel channel) throws IOException {
+                    AudioStream stream = source.getStream();
+                    short[] samples = new short[PAGE_SIZE * channels];
+                    ByteBuffer buffer = ByteBuffer.allocate( 2 * samples.length );
+                    buffer.order( ByteOrder.LITTLE_ENDIAN );
+                    channel.position( HEADER_SIZE );
+                    long size = 0;
+                    int read = stream.read( samples );
+                    while (read > 0) {
+                        buffer.clear();
+                        buffer.asShortBuffer().put( samples, 0, read );
+                        buffer.limit( 2 * read );
+                        while (buffer.hasRemaining()) {
+                            channel.write( buffer );
+                        }
+                        size += 2 * read;
+                        read = stream.read( samples );
+                    }
+                    if (size == 0 || size > Integer.MAX_VALUE - HEADER_SIZE) {
+                        throw new IOException( "cannot cache " + size + " bytes of audio" );
+                    }
+                    ByteBuffer header = header( channels, rate, (int)size );
+                    while (header.hasRemaining()) {
+                        channel.write( header, header.position() );
+                    }
+                }
+            } );
+        } catch (RuntimeException e) {
+            // the source could not be decoded, it is loaded without the cache
+            entry.delete();
+        }
+    }
+
+    /**
+     * Returns the RIFF header of 16-bit PCM audio
+     *
+     * @param channels  the number of channels
+     * @param rate      the sample rate
+     * @param size      the size of the samples (in bytes)
+     *
+     * @return the RIFF header of 16-bit PCM audio, ready to be written
+     */
+    private static ByteBuffer header(int channels, int rate, int size) {
+        ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+        header.order( ByteOrder.BIG_ENDIAN );
+        header.putInt( 0x52494646 );                  // "RIFF"
+        header.order( ByteOrder.LITTLE_ENDIAN );
+        header.putInt( HEADER_SIZE - 8 + size );
+        header.order( ByteOrder.BIG_ENDIAN );
+        header.putInt( 0x57415645 );                  // "WAVE"
+        header.putInt( 0x666D7420 );                  // "fmt "
+        header.order( ByteOrder.LITTLE_ENDIAN );
+        header.putInt( 16 );
+        header.putShort( (short)1 );                  // PCM
+        header.putShort( (short)channels );
+        header.putInt( rate );
+        header.putInt( rate * channels * 2 );
+        header.putShort( (short)(channels * 2) );
+        header.putShort( (short)16 );
+        header.order( ByteOrder.BIG_ENDIAN );
+        header.putInt( 0x64617461 );                  // "data"
+        header.order( ByteOrder.LITTLE_ENDIAN );
+        header.putInt( size );
+        header.flip();
+        return header;
+    }
+}
@@ -32,7 +32,11 @@ public class AudioSourceLoader extends AsynchronousAssetLoader<AudioSource, Audi
 
     /** The asynchronously read audio source */
     private AudioSource cachedSource;
-    
+    /** The pool holding decoded sources (may be null) */
+    private DecodePool pool;
+    /** The on-disk cache of decoded audio (may be null) */
+    private AudioCache cache;
+
     /**
      * The definable parameters for an {@link AudioSource}.
      */
@@ -53,7 +57,55 @@ public class AudioSourceLoader extends AsynchronousAssetLoader<AudioSource, Audi
      * @param resolver    The file resolver
      */
     public AudioSourceLoader(FileHandleResolver resolver) {
+        this(resolver, null, null);
+    }
+
+    /**
+     * Creates a new AudioSourceLoader with the given file resolver
+     *
+     * Files already decoded by the pool are not decoded again.
+     *
+     * @param resolver    The file resolver
+     * @param pool        The pool holding decoded sources (may be null)
+     */
+    public AudioSourceLoader(FileHandleResolver resolver, DecodePool pool) {
+        this(resolver, pool, null);
+    }
+
+    /**
+     * Creates a new AudioSourceLoader with the given file resolver
+     *
+     * Files already decoded by the pool are not decoded again. Compressed files are
+     * decoded from the cache when possible.
+     *
+     * @param resolver    The file resolver
+     * @param pool        The pool holding decoded sources (may be null)
+     * @param cache       The on-disk cache of decoded audio (may be null)
+     */
+    public AudioSourceLoader(FileHandleResolver resolver, DecodePool pool, AudioCache cache) {
         super(resolver);
+        this.pool = pool;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the decoder to submit to the {@link DecodePool} for audio files
+     *
+     * @return the decoder to submit to the {@link DecodePool} for audio files
+     */
+    public DecodePool.Decoder<AudioSource> getDecoder() {
+        return this::decode;
+    }
+
+    /**
+     * Returns the audio source of a file, using the on-disk cache if there is one
+     *
+     * @param file  The audio file
+     *
+     * @return the audio source of a file
+     */
+    private AudioSource decode(FileHandle file) {
+        return cache == null ? ((AudioEngine)Gdx.audio).newSource(file) : cache.decode(file);
     }
 
     /** 
@@ -80,7 +132,10 @@ public class AudioSourceLoader extends AsynchronousAssetLoader<AudioSource, Audi
      */
     @Override
     public void loadAsync (AssetManager manager, String fileName, FileHandle file, AudioSourceParameters params) {
-        cachedSource = ((AudioEngine)Gdx.audio).newSource(file);
+        cachedSource = pool == null ? null : pool.take(fileName, AudioSource.class);
+        if (cachedSource == null) {
+            cachedSource = decode(file);
+        }
     }
 
     /** 
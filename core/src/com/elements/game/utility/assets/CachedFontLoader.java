@@ -0,0 +1,170 @@
+package com.elements.game.utility.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * This class is a {@link FreetypeFontLoader} that keeps the rasterized fonts in a
+ * {@link FontCache}.
+ *
+ * It takes the same parameters as {@link FreetypeFontLoader}. On a hit, the font is built
+ * from the cached pages and glyphs, and no glyph is rasterized; the entry is read on the
+ * loader thread, so only the page upload is left to the main thread. On a miss, the font
+ * is generated into a {@link PixmapPacker} owned by this loader, so that its pages can
+ * be stored before they are uploaded.
+ */
+public class CachedFontLoader extends FreetypeFontLoader {
+    /** The on-disk cache of rasterized fonts (may be null) */
+    private final FontCache cache;
+    /** The entry read by the asynchronous part of the load (null on a miss) */
+    private FontCache.Entry cachedEntry;
+
+    /**
+     * Creates a new CachedFontLoader with the given file resolver
+     *
+     * @param resolver  The file resolver
+     * @param cache     The on-disk cache of rasterized fonts (may be null)
+     */
+    public CachedFontLoader(FileHandleResolver resolver, FontCache cache) {
+        super( resolver );
+        this.cache = cache;
+    }
+
+    /**
+     * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
+     *
+     * This reads the cached rasterization of the font, if there is one.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, FreeTypeFontLoaderParameter params) {
+        super.loadAsync( manager, fileName, file, params );
+        cachedEntry = null;
+        if (cache != null && FontCache.canCache( params.fontParameters )) {
+            cachedEntry = cache.read( resolve( params.fontFileName ), params.fontParameters );
+        }
+    }
+
+    /**
+     * Loads the main thread part of the asset.
+     *
+     * This uploads the cached pages, or else rasterizes the font and caches it.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public BitmapFont loadSync(AssetManager manager, String fileName, FileHandle file, FreeTypeFontLoaderParameter params) {
+        FontCache.Entry entry = cachedEntry;
+        cachedEntry = null;
+        if (entry != null) {
+            return build( entry, params.fontParameters );
+        }
+        if (cache == null || !FontCache.canCache( params.fontParameters )) {
+            return super.loadSync( manager, fileName, file, params );
+        }
+        return generate( manager, params );
+    }
+
+    /**
+     * Returns the font stored in a cache entry
+     *
+     * @param entry     The cache entry
+     * @param params    The generator parameters
+     *
+     * @return the font stored in a cache entry
+     */
+    private static BitmapFont build(FontCache.Entry entry, FreeTypeFontGenerator.FreeTypeFontParameter params) {
+        Array<TextureRegion> regions = new Array<TextureRegion>( entry.pages.size );
+        for (final Pixmap page : entry.pages) {
+            // like the pages of a PixmapPacker, the image is kept for context loss
+            Texture texture = new Texture( new PixmapTextureData( page, page.getFormat(),
+                                                                  params.genMipMaps, false, true ) ) {
+                @Override
+                public void dispose() {
+                    super.dispose();
+                    page.dispose();
+                }
+            };
+            texture.setFilter( params.minFilter, params.magFilter );
+            regions.add( new TextureRegion( texture ) );
+        }
+        // FreeTypeFontGenerator uses integer positions as well
+        BitmapFont font = new BitmapFont( entry.data, regions, true );
+        font.setOwnsTexture( true );
+        return font;
+    }
+
+    /**
+     * Rasterizes a font and stores it in the cache
+     *
+     * @param manager   The asset manager
+     * @param params    The parameters to use for loading the asset
+     *
+     * @return the rasterized font
+     */
+    private BitmapFont generate(AssetManager manager, FreeTypeFontLoaderParameter params) {
+        FreeTypeFontGenerator generator = manager.get( params.fontFileName + ".gen", FreeTypeFontGenerator.class );
+        FreeTypeFontGenerator.FreeTypeFontParameter fontParams = params.fontParameters;
+        PixmapPacker packer = createPacker( fontParams );
+        BitmapFont font;
+        fontParams.packer = packer;
+        try {
+            font = generator.generateFont( fontParams );
+        } finally {
+            fontParams.packer = null;
+        }
+        // the page textures dispose their images, the packer only keeps the pages
+        font.setOwnsTexture( true );
+        Array<Pixmap> pages = new Array<Pixmap>( packer.getPages().size );
+        for (PixmapPacker.Page page : packer.getPages()) {
+            pages.add( page.getPixmap() );
+        }
+        cache.write( resolve( params.fontFileName ), fontParams, font.getData(), pages );
+        packer.dispose();
+        return font;
+    }
+
+    /**
+     * Returns a packer like the one {@link FreeTypeFontGenerator} creates for a font
+     *
+     * The generator sizes its pages from the line height, which is not known before
+     * the font is generated, so it is estimated from the font parameters.
+     *
+     * @param params    The generator parameters
+     *
+     * @return a packer for the glyphs of a font
+     */
+    private static PixmapPacker createPacker(FreeTypeFontGenerator.FreeTypeFontParameter params) {
+        int lineHeight = MathUtils.ceil( (params.size + 2 * params.borderWidth +
+                                          Math.abs( params.shadowOffsetY ) + params.padTop +
+                                          params.padBottom) * 1.25f );
+        int size = MathUtils.nextPowerOfTwo( (int)Math.sqrt( lineHeight * lineHeight *
+                                                             params.characters.length() ) );
+        if (FreeTypeFontGenerator.getMaxTextureSize() > 0) {
+            size = Math.min( size, FreeTypeFontGenerator.getMaxTextureSize() );
+        }
+        PixmapPacker packer = new PixmapPacker( size, size, Pixmap.Format.RGBA8888, 1, false,
+                                                new PixmapPacker.SkylineStrategy() );
+        packer.setTransparentColor( params.borderWidth > 0 ? params.borderColor : params.color );
+        packer.getTransparentColor().a = 0;
+        return packer;
+    }
+}
@@ -0,0 +1,194 @@
+package com.elements.game.utility.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+
+/**
+ * This class decodes asset files on a bounded number of worker threads.
+ *
+ * The {@link DirectoryLoader} submits the files of a directory as soon as it has
+ * parsed it, and the loaders take the decoded data when the asset manager gets to the
+ * asset. Only the work that needs the GL context (e.g. uploading a texture) is left to
+ * the main thread, where it is spread out by the budget of {@link AssetDirectory#update}.
+ *
+ * A loader that finds nothing in the pool (or a failed decode) decodes the file itself,
+ * so submitting a file is only ever an optimization.
+ */
+public class DecodePool implements Disposable {
+    /**
+     * This interface decodes a file into data that does not need the GL context.
+     *
+     * Decoders run on worker threads, so they must not touch any shared state.
+     */
+    public interface Decoder<T> {
+        /**
+         * Returns the decoded contents of the file
+         *
+         * @param file  the file to decode
+         *
+         * @return the decoded contents of the file
+         */
+        public T decode(FileHandle file);
+    }
+
+    /** The workers decoding the files */
+    private final AsyncExecutor executor;
+    /** The submitted decodes that were not taken yet, keyed by asset file name */
+    private final ObjectMap<String, AsyncResult<?>> pending;
+    /** The trace recording every decode (may be null) */
+    private LoadTrace trace;
+
+    /**
+     * Creates a pool with one worker per spare core (at most 4)
+     */
+    public DecodePool() {
+        this( Math.max( 1, Math.min( 4, Runtime.getRuntime().availableProcessors() - 1 ) ) );
+    }
+
+    /**
+     * Creates a pool with the given number of workers
+     *
+     * @param threads   The number of workers
+     */
+    public DecodePool(int threads) {
+        executor = new AsyncExecutor( threads, "DecodePool" );
+        pending = new ObjectMap<String, AsyncResult<?>>();
+    }
+
+    /**
+     * Sets the trace recording every decode
+     *
+     * @param trace     The trace to record decodes in (null to not trace)
+     */
+    public void setTrace(LoadTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Starts decoding a file in the background
+     *
+     * Nothing happens if the file was already submitted and not taken yet.
+     *
+     * @param fileName  The asset file name
+     * @param file      The resolved file
+     * @param decoder   The decoder for the file
+     */
+    public synchronized <T> void submit(String fileName, FileHandle file, Decoder<T> decoder) {
+        if (pending.containsKey( fileName )) {
+            return;
+        }
+        if (trace == null) {
+            pending.put( fileName, executor.submit( () -> decoder.decode( file ) ) );
+            return;
+        }
+        LoadTrace trace = this.trace;
+        pending.put( fileName, executor.submit( () -> {
+            trace.decodeStarted( fileName );
+            try {
+                return decoder.decode( file );
+            } finally {
+                trace.decodeFinished( fileName );
+            }
+        } ) );
+    }
+
+    /**
+     * Returns true if a file was submitted and not taken yet
+     *
+     * @param fileName  The asset file name
+     *
+     * @return true if a file was submitted and not taken yet
+     */
+    public synchronized boolean contains(String fileName) {
+        return pending.containsKey( fileName );
+    }
+
+    /**
+     * Returns the decoded contents of a file, waiting for the decode to finish
+     *
+     * The result is removed from the pool, so the caller takes ownership of it.
+     *
+     * @param fileName  The asset file name
+     * @param type      The type of the decoded contents
+     *
+     * @return the decoded contents of a file (or null if it was not submitted or failed)
+     */
+    public <T> T take(String fileName, Class<T> type) {
+        AsyncResult<?> result;
+        synchronized (this) {
+            result = pending.remove( fileName );
+        }
+        if (result == null) {
+            return null;
+        }
+        try {
+            Object data = result.get();
+            if (type.isInstance( data )) {
+                return type.cast( data );
+            }
+            dispose( data );
+        } catch (GdxRuntimeException e) {
+            // the loader will decode the file again and report the error
+        }
+        return null;
+    }
+
+    /**
+     * Frees the decoded contents of files whose assets are already loaded, or are no
+     * longer queued at all
+     *
+     * A file may be submitted again while its asset is loading (e.g. when another
+     * manifest names the same file), and those contents are never taken. A file may
+     * also be unloaded before it is loaded (e.g. when a prefetched scope is released
+     * early). Decodes that are still running are left for a later call.
+     *
+     * @param manager   The asset manager loading the assets
+     */
+    public synchronized void discardLoaded(AssetManager manager) {
+        if (pending.size == 0) {
+            return;
+        }
+        ObjectMap.Entries<String, AsyncResult<?>> entries = pending.entries();
+        while (entries.hasNext()) {
+            ObjectMap.Entry<String, AsyncResult<?>> entry = entries.next();
+            if (entry.value.isDone() &&
+                    (manager.isLoaded( entry.key ) || !manager.contains( entry.key ))) {
+                try {
+                    dispose( entry.value.get() );
+                } catch (GdxRuntimeException e) {
+                    // nothing to free
+                }
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Stops the workers and frees all decoded contents that were not taken
+     */
+    @Override
+    public void dispose() {
+        executor.dispose();
+        synchronized (this) {
+            for (AsyncResult<?> result : pending.values()) {
+                try {
+                    dispose( result.get() );
+                } catch (GdxRuntimeException e) {
+                    // nothing to free
+                }
+            }
+            pending.clear();
+        }
+    }
+
+    private static void dispose(Object data) {
+        if (data instanceof Disposable) {
+            ((Disposable)data).dispose();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.elements.game.utility.assets;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AssetLoader;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * This class is an {@link AssetLoader} to load {@link Texture} assets, using the
+ * pixmaps already decoded by a {@link DecodePool} when there are any.
+ *
+ * It takes the same parameters as {@link TextureLoader}. Files that were not
+ * submitted to the pool (e.g. atlas pages, compressed texture formats) are decoded
+ * here, like {@link TextureLoader} does. Images are looked up in a {@link PixmapCache}
+ * first, if there is one.
+ */
+public class DecodedTextureLoader extends AsynchronousAssetLoader<Texture, TextureLoader.TextureParameter> {
+    /** The pool holding decoded pixmaps (may be null) */
+    private final DecodePool pool;
+    /** The on-disk cache of decoded images (may be null) */
+    private final PixmapCache cache;
+    /** The asynchronously prepared texture data */
+    private TextureData cachedData;
+
+    /**
+     * Creates a new DecodedTextureLoader with the given file resolver
+     *
+     * @param resolver  The file resolver
+     * @param pool      The pool holding decoded pixmaps (may be null)
+     * @param cache     The on-disk cache of decoded images (may be null)
+     */
+    public DecodedTextureLoader(FileHandleResolver resolver, DecodePool pool, PixmapCache cache) {
+        super( resolver );
+        this.pool = pool;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the decoder to submit to the {@link DecodePool} for textures
+     *
+     * @return the decoder to submit to the {@link DecodePool} for textures
+     */
+    public DecodePool.Decoder<Pixmap> getDecoder() {
+        return this::decode;
+    }
+
+    /**
+     * Returns the decoded image of a file, using the on-disk cache if there is one
+     *
+     * The parameters of a submitted file are not known yet, so the image keeps its
+     * decoded format and is converted when the texture is loaded.
+     *
+     * @param file  The image file
+     *
+     * @return the decoded image of a file
+     */
+    private Pixmap decode(FileHandle file) {
+        return cache == null ? new Pixmap( file ) : cache.decode( file, null, false );
+    }
+
+    /**
+     * Returns true if the file is an image that {@link Pixmap} can decode
+     *
+     * @param file  The texture file
+     *
+     * @return true if the file is an image that {@link Pixmap} can decode
+     */
+    private static boolean isImage(FileHandle file) {
+        String extension = file.extension().toLowerCase();
+        return extension.equals( "png" ) || extension.equals( "jpg" ) ||
+               extension.equals( "jpeg" ) || extension.equals( "bmp" );
+    }
+
+    /**
+     * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
+     *
+     * This prepares the pixels of the texture, which does not require the GL context.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureLoader.TextureParameter params) {
+        Pixmap.Format format = params == null ? null : params.format;
+        boolean mipmaps = params != null && params.genMipMaps;
+        Pixmap pixmap = pool == null ? null : pool.take( fileName, Pixmap.class );
+        if (pixmap == null && cache != null && isImage( file )) {
+            // not submitted (e.g. an atlas page), the cache still saves the decode
+            pixmap = cache.decode( file, format, mipmaps );
+        }
+        if (pixmap == null) {
+            cachedData = TextureData.Factory.loadFromFile( file, format, mipmaps );
+        } else {
+            if (format != null && pixmap.getFormat() != format) {
+                Pixmap converted = new Pixmap( pixmap.getWidth(), pixmap.getHeight(), format );
+                converted.setBlending( Pixmap.Blending.None );
+                converted.drawPixmap( pixmap, 0, 0 );
+                pixmap.dispose();
+                pixmap = converted;
+            }
+            cachedData = new PixmapTextureData( pixmap, format, mipmaps, true );
+        }
+        if (!cachedData.isPrepared()) {
+            cachedData.prepare();
+        }
+    }
+
+    /**
+     * Loads the main thread part of the asset.
+     *
+     * This uploads the texture to the GPU.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public Texture loadSync(AssetManager manager, String fileName, FileHandle file, TextureLoader.TextureParameter params) {
+        Texture texture = new Texture( cachedData );
+        cachedData = null;
+        if (params != null) {
+            texture.setFilter( params.minFilter, params.magFilter );
+            texture.setWrap( params.wrapU, params.wrapV );
+        }
+        return texture;
+    }
+
+    /**
+     * Returns the other assets this asset requires to be loaded first.
+     *
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters for loading the asset
+     *
+     * @return null, as textures have no dependencies
+     */
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, TextureLoader.TextureParameter params) {
+        return null;
+    }
+}
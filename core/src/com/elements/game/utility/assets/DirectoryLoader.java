@@ -22,6 +22,7 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.elements.game.utility.audio.SoundEffect;
 
 /**
  * This class is an {@link AssetLoader} to load {@link AssetDirectory.Index} assets.
@@ -35,6 +36,10 @@ public class DirectoryLoader extends AsynchronousAssetLoader<AssetDirectory.Inde
     protected AssetDirectory.Index cachedData;
 	/** The associated parsers for parsing the JSON contents */
     protected Array<AssetParser<?>> parsers;
+    /** The pool decoding the parsed assets ahead of the asset manager (may be null) */
+    protected DecodePool pool;
+    /** The decoders of the asset types submitted to the pool */
+    protected ObjectMap<Class<?>, DecodePool.Decoder<?>> decoders;
 
     /**
      * The definable parameters for a {@link AssetDirectory.Index}.
@@ -58,6 +63,7 @@ public class DirectoryLoader extends AsynchronousAssetLoader<AssetDirectory.Inde
     public DirectoryLoader (FileHandleResolver resolver) {
         super(resolver);
         parsers = new Array<AssetParser<?>>(false, 16);
+        decoders = new ObjectMap<Class<?>, DecodePool.Decoder<?>>();
     }
 
 	/**
@@ -102,6 +108,32 @@ public class DirectoryLoader extends AsynchronousAssetLoader<AssetDirectory.Inde
         parsers.removeValue(parser,false);
     }
 
+    /**
+     * Sets the pool that decodes the assets of a directory in parallel
+     *
+     * Once a directory is parsed, the files of every asset type with a decoder (see
+     * {@link #addDecoder}) are submitted to the pool. The loaders of those types must
+     * take the decoded data from the same pool.
+     *
+     * @param pool  The decode pool (null to decode every asset in its loader)
+     */
+    public void setDecodePool(DecodePool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Adds the decoder for the files of an asset type
+     *
+     * For {@link SoundEffect} assets (named file:alias), the decoder receives the file
+     * only, which is loaded as an {@link com.elements.game.utility.audio.AudioSource}.
+     *
+     * @param type      The asset type
+     * @param decoder   The decoder submitted to the pool for files of that type
+     */
+    public void addDecoder(Class<?> type, DecodePool.Decoder<?> decoder) {
+        decoders.put(type, decoder);
+    }
+
     /**
      * Returns the {@link JsonValue} instance currently loaded by this loader.
      *
@@ -141,6 +173,39 @@ public class DirectoryLoader extends AsynchronousAssetLoader<AssetDirectory.Inde
                 parser.processNext( manager, keys );
             }
         }
+        if (pool != null) {
+            for (ObjectMap.Entry<Class<?>, DecodePool.Decoder<?>> entry : decoders) {
+                submit( manager, entry.key, entry.value );
+            }
+        }
+    }
+
+    /**
+     * Submits the files of all assets of the given type to the decode pool
+     *
+     * Assets that are already loaded are skipped, as their loader will not run again.
+     * A file another directory queued may still be loading; its second decode is freed
+     * once the asset is loaded (see {@link DecodePool#discardLoaded}).
+     *
+     * @param manager   The asset manager
+     * @param type      The asset type
+     * @param decoder   The decoder for files of that type
+     */
+    private void submit(AssetManager manager, Class<?> type, DecodePool.Decoder<?> decoder) {
+        ObjectMap<String,String> keys = cachedData.keymap.get( type, null );
+        if (keys == null) {
+            return;
+        }
+        for (String fileName : keys.values()) {
+            if (type == SoundEffect.class) {
+                // sound effects are named file:alias, the file is loaded as an AudioSource
+                int suffix = fileName.lastIndexOf( ':' );
+                fileName = suffix == -1 ? fileName : fileName.substring( 0, suffix );
+            }
+            if (!manager.isLoaded( fileName )) {
+                pool.submit( fileName, resolve( fileName ), decoder );
+            }
+        }
     }
 
     /**
@@ -0,0 +1,184 @@
+package com.elements.game.utility.assets;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class is the base of the on-disk caches of decoded assets.
+ *
+ * A cache keeps its entries in a subdirectory named after its version, and deletes the
+ * entries of other versions when it is created. Entries are read through memory-mapped
+ * files and written to a temporary file first, then moved over the entry in a single
+ * atomic step, so readers never see a partial entry.
+ *
+ * All methods may be called from several threads at once (e.g. by the workers of a
+ * {@link DecodePool}).
+ */
+public abstract class DiskCache {
+    /** The root directory of the cache */
+    private final FileHandle root;
+    /** The directory holding the entries of this cache version */
+    protected final FileHandle directory;
+
+    /**
+     * Creates a cache in the given directory
+     *
+     * Entries of other cache versions are deleted. The directory is created when the
+     * first entry is written.
+     *
+     * @param directory    The cache directory (must be writable)
+     * @param version      The version of the entry layout
+     */
+    protected DiskCache(FileHandle directory, int version) {
+        root = directory;
+        this.directory = directory.child( "v" + version );
+        for (FileHandle child : root.list()) {
+            if (!child.name().equals( this.directory.name() )) {
+                if (child.isDirectory()) {
+                    child.deleteDirectory();
+                } else {
+                    child.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes all entries
+     */
+    public void clear() {
+        if (root.exists()) {
+            root.deleteDirectory();
+        }
+    }
+
+    /**
+     * Returns the entry of a source file decoded with the given parameters
+     *
+     * Every source file has at most one entry per set of parameters, so an edited file
+     * replaces its old entry.
+     *
+     * @param file          The source file
+     * @param parameters    The decoding parameters, as a string
+     * @param extension     The extension of the entry (with the dot)
+     *
+     * @return the entry of a source file decoded with the given parameters
+     */
+    protected FileHandle entry(FileHandle file, String parameters, String extension) {
+        return directory.child( Long.toHexString( hash( file.path() ) ) + "-" +
+                                parameters + extension );
+    }
+
+    /**
+     * Returns the contents of an entry, mapped into memory
+     *
+     * @param entry the cache entry
+     *
+     * @return the contents of an entry (big endian)
+     * @throws IOException if the entry cannot be read
+     */
+    protected static ByteBuffer map(FileHandle entry) throws IOException {
+        try (FileChannel channel = FileChannel.open( entry.file().toPath(), StandardOpenOption.READ )) {
+            MappedByteBuffer data = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            data.order( ByteOrder.BIG_ENDIAN );
+            return data;
+        }
+    }
+
+    /**
+     * This interface writes the contents of an entry.
+     */
+    protected interface Writer {
+        /**
+         * Writes the contents of an entry
+         *
+         * @param channel   the (empty) file of the entry
+         *
+         * @throws IOException if the contents cannot be written
+         */
+        public void write(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * Stores the given buffers in an entry, one after the other
+     *
+     * Failures are ignored, as the cache is only an optimization.
+     *
+     * @param entry     the cache entry
+     * @param buffers   the contents of the entry (from position to limit)
+     */
+    protected static void write(FileHandle entry, final ByteBuffer... buffers) {
+        write( entry, new Writer() {
+            @Override
+            public void write(FileChannel channel) throws IOException {
+                for (ByteBuffer buffer : buffers) {
+                    while (buffer.hasRemaining()) {
+                        channel.write( buffer );
+                    }
+                }
+            }
+        } );
+    }
+
+    /**
+     * Stores the contents produced by a writer in an entry
+     *
+     * Failures are ignored, as the cache is only an optimization.
+     *
+     * @param entry     the cache entry
+     * @param writer    the writer of the contents
+     */
+    protected static void write(FileHandle entry, Writer writer) {
+        // File.renameTo cannot replace a file on Windows
+        FileHandle temp = entry.sibling( entry.name() + "." + Thread.currentThread().getId() );
+        try {
+            entry.parent().mkdirs();
+            try (FileChannel channel = FileChannel.open( temp.file().toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE )) {
+                writer.write( channel );
+            }
+            Files.move( temp.file().toPath(), entry.file().toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        } catch (IOException | GdxRuntimeException e) {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of a string
+     *
+     * @param text  the string to hash
+     *
+     * @return the 64-bit FNV-1a hash of a string
+     */
+    protected static long hash(String text) {
+        return hash( text.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of the given bytes
+     *
+     * @param bytes the bytes to hash
+     *
+     * @return the 64-bit FNV-1a hash of the given bytes
+     */
+    protected static long hash(byte[] bytes) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+}
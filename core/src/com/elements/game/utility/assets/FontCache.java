@@ -0,0 +1,404 @@
+package com.elements.game.utility.assets;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This class keeps rasterized TrueType fonts on disk, so that their glyphs do not have
+ * to be rasterized again on the next launch.
+ *
+ * Each entry holds the {@link BitmapFont.BitmapFontData} (metrics, glyphs and kerning)
+ * generated by {@link FreeTypeFontGenerator} and the raw pixels of its pages. It is named
+ * after the path of the font file and the generator parameters, and is only used if its
+ * header matches the hash of the font file, the hash of the parameters and the cache
+ * version. A font is rebuilt from an entry with
+ * {@link BitmapFont#BitmapFont(BitmapFont.BitmapFontData, Array, boolean)}.
+ *
+ * Incremental fonts rasterize glyphs as they are drawn, so they cannot be cached.
+ *
+ * All methods may be called from several threads at once.
+ */
+public class FontCache extends DiskCache {
+    /** Identifies a cache entry ("EEFN") */
+    private static final int MAGIC = 0x4545464E;
+    /** Bumped whenever the entry layout changes, older entries are ignored */
+    private static final int VERSION = 1;
+    /** Size of the entry header: magic, version, font hash, parameter hash */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+    /** Extension of cache entries */
+    private static final String EXTENSION = ".fnt";
+
+    /**
+     * The contents of a cache entry
+     */
+    public static class Entry {
+        /** The font data, with the glyphs referring to the pages by index */
+        public final BitmapFont.BitmapFontData data;
+        /** The images of the font pages */
+        public final Array<Pixmap> pages;
+
+        /**
+         * Creates an entry with the given font data and pages
+         *
+         * @param data  The font data
+         * @param pages The images of the font pages
+         */
+        public Entry(BitmapFont.BitmapFontData data, Array<Pixmap> pages) {
+            this.data = data;
+            this.pages = pages;
+        }
+
+        /**
+         * Disposes the images of the font pages
+         */
+        public void dispose() {
+            for (Pixmap page : pages) {
+                page.dispose();
+            }
+            pages.clear();
+        }
+    }
+
+    /**
+     * Creates a cache in the given directory
+     *
+     * Entries of other cache versions are deleted. The directory is created when the
+     * first entry is written.
+     *
+     * @param directory    The cache directory (must be writable)
+     */
+    public FontCache(FileHandle directory) {
+        super( directory, VERSION );
+    }
+
+    /**
+     * Returns true if fonts generated with the given parameters can be cached
+     *
+     * @param params    The generator parameters
+     *
+     * @return true if fonts generated with the given parameters can be cached
+     */
+    public static boolean canCache(FreeTypeFontGenerator.FreeTypeFontParameter params) {
+        return !params.incremental && params.packer == null;
+    }
+
+    /**
+     * Returns the cached rasterization of a font, or null if there is none
+     *
+     * @param file      The TrueType font file
+     * @param params    The generator parameters
+     *
+     * @return the cached rasterization of a font, or null if there is none
+     */
+    public Entry read(FileHandle file, FreeTypeFontGenerator.FreeTypeFontParameter params) {
+        String description = describe( params );
+        FileHandle entry = entry( file, description );
+        if (!entry.exists()) {
+            return null;
+        }
+        Array<Pixmap> pages = new Array<Pixmap>();
+        try {
+            ByteBuffer data = map( entry );
+            if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC ||
+                data.getInt() != VERSION || data.getLong() != hash( file.readBytes() ) ||
+                data.getLong() != hash( description )) {
+                return null;
+            }
+            BitmapFont.BitmapFontData font = readData( data );
+            int count = data.getInt();
+            for (int ii = 0; ii < count; ii++) {
+                Pixmap page = PixmapCache.readPixmap( data );
+                if (page == null) {
+                    throw new GdxRuntimeException( "invalid font page" );
+                }
+                pages.add( page );
+            }
+            if (count == 0 || data.hasRemaining()) {
+                throw new GdxRuntimeException( "invalid font entry" );
+            }
+            return new Entry( font, pages );
+        } catch (IOException | RuntimeException e) {
+            // unreadable or truncated entry, rasterize the font instead
+            for (Pixmap page : pages) {
+                page.dispose();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores the rasterization of a font
+     *
+     * @param file      The TrueType font file
+     * @param params    The generator parameters
+     * @param font      The generated font data
+     * @param pages     The images of the font pages, in page order
+     */
+    public void write(FileHandle file, FreeTypeFontGenerator.FreeTypeFontParameter params,
+                      BitmapFont.BitmapFontData font, Array<Pixmap> pages) {
+        String description = describe( params );
+        ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+        header.putInt( MAGIC );
+        header.putInt( VERSION );
+        header.putLong( hash( file.readBytes() ) );
+        header.putLong( hash( description ) );
+        header.flip();
+
+        ByteBuffer[] buffers = new ByteBuffer[3 + 2 * pages.size];
+        buffers[0] = header;
+        buffers[1] = writeData( font );
+        ByteBuffer count = ByteBuffer.allocate( 4 );
+        count.putInt( pages.size );
+        count.flip();
+        buffers[2] = count;
+        for (int ii = 0; ii < pages.size; ii++) {
+            buffers[3 + 2 * ii] = PixmapCache.pixmapHeader( pages.get( ii ) );
+            buffers[4 + 2 * ii] = PixmapCache.pixels( pages.get( ii ) );
+        }
+        write( entry( file, description ), buffers );
+    }
+
+    /**
+     * Returns the entry of a font generated with the given parameters
+     *
+     * @param file          The TrueType font file
+     * @param description   The generator parameters (see {@link #describe})
+     *
+     * @return the entry of a font generated with the given parameters
+     */
+    private FileHandle entry(FileHandle file, String description) {
+        return entry( file, Long.toHexString( hash( description ) ), EXTENSION );
+    }
+
+    /**
+     * Returns every generator parameter that affects the rasterized font, as a string
+     *
+     * @param params    The generator parameters
+     *
+     * @return every generator parameter that affects the rasterized font
+     */
+    private static String describe(FreeTypeFontGenerator.FreeTypeFontParameter params) {
+        StringBuilder builder = new StringBuilder();
+        builder.append( params.size ).append( ',' ).append( params.mono ).append( ',' );
+        builder.append( params.hinting ).append( ',' ).append( params.color ).append( ',' );
+        builder.append( params.gamma ).append( ',' ).append( params.renderCount ).append( ',' );
+        builder.append( params.borderWidth ).append( ',' ).append( params.borderColor ).append( ',' );
+        builder.append( params.borderStraight ).append( ',' ).append( params.borderGamma ).append( ',' );
+        builder.append( params.shadowOffsetX ).append( ',' ).append( params.shadowOffsetY ).append( ',' );
+        builder.append( params.shadowColor ).append( ',' );
+        builder.append( params.spaceX ).append( ',' ).append( params.spaceY ).append( ',' );
+        builder.append( params.padTop ).append( ',' ).append( params.padLeft ).append( ',' );
+        builder.append( params.padBottom ).append( ',' ).append( params.padRight ).append( ',' );
+        builder.append( params.kerning ).append( ',' ).append( params.flip ).append( ',' );
+        builder.append( params.genMipMaps ).append( ',' );
+        builder.append( params.minFilter ).append( ',' ).append( params.magFilter ).append( ',' );
+        builder.append( params.characters );
+        return builder.toString();
+    }
+
+    /**
+     * Returns the font data stored at the position of a buffer
+     *
+     * @param data  the entry contents, positioned at the font data
+     *
+     * @return the font data
+     */
+    private static BitmapFont.BitmapFontData readData(ByteBuffer data) {
+        BitmapFont.BitmapFontData font = new BitmapFont.BitmapFontData();
+        font.flipped = data.getInt() != 0;
+        font.markupEnabled = data.getInt() != 0;
+        font.padTop = data.getFloat();
+        font.padRight = data.getFloat();
+        font.padBottom = data.getFloat();
+        font.padLeft = data.getFloat();
+        font.lineHeight = data.getFloat();
+        font.capHeight = data.getFloat();
+        font.ascent = data.getFloat();
+        font.descent = data.getFloat();
+        font.down = data.getFloat();
+        font.blankLineScale = data.getFloat();
+        font.scaleX = data.getFloat();
+        font.scaleY = data.getFloat();
+        font.cursorX = data.getFloat();
+        font.spaceXadvance = data.getFloat();
+        font.xHeight = data.getFloat();
+        int breaks = data.getInt();
+        if (breaks >= 0) {
+            font.breakChars = new char[breaks];
+            for (int ii = 0; ii < breaks; ii++) {
+                font.breakChars[ii] = data.getChar();
+            }
+        }
+        if (data.getInt() != 0) {
+            font.missingGlyph = readGlyph( data );
+        }
+        int count = data.getInt();
+        for (int ii = 0; ii < count; ii++) {
+            BitmapFont.Glyph glyph = readGlyph( data );
+            font.setGlyph( glyph.id, glyph );
+        }
+        return font;
+    }
+
+    /**
+     * Returns the font data in the layout expected by {@link #readData}
+     *
+     * @param font  the font data
+     *
+     * @return the font data, ready to be written
+     */
+    private static ByteBuffer writeData(BitmapFont.BitmapFontData font) {
+        Array<BitmapFont.Glyph> glyphs = new Array<BitmapFont.Glyph>();
+        for (BitmapFont.Glyph[] page : font.glyphs) {
+            if (page == null) {
+                continue;
+            }
+            for (BitmapFont.Glyph glyph : page) {
+                if (glyph != null) {
+                    glyphs.add( glyph );
+                }
+            }
+        }
+        int size = 4 * 17 + 4 + (font.breakChars == null ? 0 : 2 * font.breakChars.length) + 4 + 4;
+        if (font.missingGlyph != null) {
+            size += glyphSize( font.missingGlyph );
+        }
+        for (BitmapFont.Glyph glyph : glyphs) {
+            size += glyphSize( glyph );
+        }
+
+        ByteBuffer data = ByteBuffer.allocate( size );
+        data.putInt( font.flipped ? 1 : 0 );
+        data.putInt( font.markupEnabled ? 1 : 0 );
+        data.putFloat( font.padTop );
+        data.putFloat( font.padRight );
+        data.putFloat( font.padBottom );
+        data.putFloat( font.padLeft );
+        data.putFloat( font.lineHeight );
+        data.putFloat( font.capHeight );
+        data.putFloat( font.ascent );
+        data.putFloat( font.descent );
+        data.putFloat( font.down );
+        data.putFloat( font.blankLineScale );
+        data.putFloat( font.scaleX );
+        data.putFloat( font.scaleY );
+        data.putFloat( font.cursorX );
+        data.putFloat( font.spaceXadvance );
+        data.putFloat( font.xHeight );
+        if (font.breakChars == null) {
+            data.putInt( -1 );
+        } else {
+            data.putInt( font.breakChars.length );
+            for (char c : font.breakChars) {
+                data.putChar( c );
+            }
+        }
+        data.putInt( font.missingGlyph == null ? 0 : 1 );
+        if (font.missingGlyph != null) {
+            writeGlyph( data, font.missingGlyph );
+        }
+        data.putInt( glyphs.size );
+        for (BitmapFont.Glyph glyph : glyphs) {
+            writeGlyph( data, glyph );
+        }
+        data.flip();
+        return data;
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeGlyph} for a glyph
+     *
+     * @param glyph the glyph
+     *
+     * @return the number of bytes written for a glyph
+     */
+    private static int glyphSize(BitmapFont.Glyph glyph) {
+        int size = 4 * 10 + 4;
+        if (glyph.kerning != null) {
+            for (byte[] page : glyph.kerning) {
+                if (page != null) {
+                    size += 4 + 4 + page.length;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Reads a glyph stored by {@link #writeGlyph}
+     *
+     * @param data  the entry contents, positioned at the glyph
+     *
+     * @return the glyph
+     */
+    private static BitmapFont.Glyph readGlyph(ByteBuffer data) {
+        BitmapFont.Glyph glyph = new BitmapFont.Glyph();
+        glyph.id = data.getInt();
+        glyph.srcX = data.getInt();
+        glyph.srcY = data.getInt();
+        glyph.width = data.getInt();
+        glyph.height = data.getInt();
+        glyph.xoffset = data.getInt();
+        glyph.yoffset = data.getInt();
+        glyph.xadvance = data.getInt();
+        glyph.page = data.getInt();
+        glyph.fixedWidth = data.getInt() != 0;
+        int pages = data.getInt();
+        for (int ii = 0; ii < pages; ii++) {
+            int page = data.getInt();
+            int length = data.getInt();
+            for (int jj = 0; jj < length; jj++) {
+                byte amount = data.get();
+                if (amount != 0) {
+                    glyph.setKerning( page * length + jj, amount );
+                }
+            }
+        }
+        return glyph;
+    }
+
+    /**
+     * Writes a glyph: its metrics, its area in its page and its kerning
+     *
+     * @param data  the buffer to write to
+     * @param glyph the glyph
+     */
+    private static void writeGlyph(ByteBuffer data, BitmapFont.Glyph glyph) {
+        data.putInt( glyph.id );
+        data.putInt( glyph.srcX );
+        data.putInt( glyph.srcY );
+        data.putInt( glyph.width );
+        data.putInt( glyph.height );
+        data.putInt( glyph.xoffset );
+        data.putInt( glyph.yoffset );
+        data.putInt( glyph.xadvance );
+        data.putInt( glyph.page );
+        data.putInt( glyph.fixedWidth ? 1 : 0 );
+        int pages = 0;
+        if (glyph.kerning != null) {
+            for (byte[] page : glyph.kerning) {
+                if (page != null) {
+                    pages++;
+                }
+            }
+        }
+        data.putInt( pages );
+        if (glyph.kerning != null) {
+            for (int ii = 0; ii < glyph.kerning.length; ii++) {
+                byte[] page = glyph.kerning[ii];
+                if (page != null) {
+                    data.putInt( ii );
+                    data.putInt( page.length );
+                    data.put( page );
+                }
+            }
+        }
+    }
+}
@@ -29,6 +29,11 @@ import com.badlogic.gdx.utils.JsonValue;
 public class JsonValueLoader extends AsynchronousAssetLoader<JsonValue, JsonValueLoader.JsonValueParameters> {
     /** The asynchronously read JsonValue */
     protected JsonValue cachedData;
+    /** The pool holding parsed files (may be null) */
+    protected DecodePool pool;
+
+    /** The decoder submitted to the {@link DecodePool} for JSON files */
+    public static final DecodePool.Decoder<JsonValue> DECODER = file -> new JsonReader().parse( file );
 
     /**
      * The definable parameters for a {@link JsonValue}.
@@ -50,7 +55,20 @@ public class JsonValueLoader extends AsynchronousAssetLoader<JsonValue, JsonValu
      * @param resolver    The file resolver
      */
     public JsonValueLoader (FileHandleResolver resolver) {
+        this(resolver, null);
+    }
+
+    /**
+     * Creates a new JsonValueLoader with the given file resolver
+     *
+     * Files already parsed by the pool are not parsed again.
+     *
+     * @param resolver    The file resolver
+     * @param pool        The pool holding parsed files (may be null)
+     */
+    public JsonValueLoader (FileHandleResolver resolver, DecodePool pool) {
         super(resolver);
+        this.pool = pool;
     }
 
     /** 
@@ -77,8 +95,11 @@ public class JsonValueLoader extends AsynchronousAssetLoader<JsonValue, JsonValu
      */
     @Override
     public void loadAsync (AssetManager manager, String fileName, FileHandle file, JsonValueParameters params) {
-        JsonReader reader = new JsonReader();
-        cachedData = reader.parse(file);
+        cachedData = pool == null ? null : pool.take(fileName, JsonValue.class);
+        if (cachedData == null) {
+            JsonReader reader = new JsonReader();
+            cachedData = reader.parse(file);
+        }
     }
 
     /** 
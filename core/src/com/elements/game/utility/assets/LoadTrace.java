@@ -0,0 +1,438 @@
+package com.elements.game.utility.assets;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AssetLoader;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.SynchronousAssetLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * This class records when each asset of an {@link AssetDirectory} is queued, decoded
+ * and uploaded.
+ *
+ * A traced directory wraps every loader it is given (see {@link #wrap}), so the trace
+ * sees the same phases as the asset manager: the time an asset waits in the queue, the
+ * time spent in the asynchronous part of its loader (on the loader thread), and the time
+ * spent in the synchronous part (on the GL thread). Decodes done ahead of time by a
+ * {@link DecodePool} are recorded as well.
+ *
+ * The trace can be written in the Chrome trace event format (open it in chrome://tracing
+ * or https://ui.perfetto.dev) or summarized as a table. All recording methods may be
+ * called from several threads at once.
+ */
+public class LoadTrace {
+    /** The phases of an asset load, and the category of their trace events */
+    private static final String QUEUE = "queue";
+    private static final String DECODE = "decode";
+    private static final String ASYNC = "async";
+    private static final String SYNC = "sync";
+
+    /** The recorded timings of an asset */
+    private static class Entry {
+        /** The asset file name */
+        final String fileName;
+        /** The loader of the asset (simple class name) */
+        String loader;
+        /** The timestamps (nanoseconds, 0 if not recorded) of each phase */
+        long queued, started;
+        long decodeStart, decodeEnd;
+        long asyncStart, asyncEnd;
+        long syncStart, syncEnd;
+        /** The threads running each phase */
+        long decodeThread, asyncThread, syncThread;
+        /** The estimated memory used by the loaded asset */
+        long bytes;
+
+        Entry(String fileName) {
+            this.fileName = fileName;
+        }
+
+        /** Returns the time (in milliseconds) between two timestamps, if both are recorded */
+        static float millis(long start, long end) {
+            return start == 0 || end == 0 ? 0 : (end - start) / 1.0e6f;
+        }
+    }
+
+    /** The time the trace started */
+    private final long origin;
+    /** The entries of every traced asset, in the order they were first seen */
+    private final Array<Entry> entries;
+    /** The entries by file name */
+    private final ObjectMap<String, Entry> lookup;
+    /** The names of the threads that ran a phase, by thread id */
+    private final LongMap<String> threads;
+
+    /**
+     * Creates an empty trace starting now
+     */
+    public LoadTrace() {
+        origin = System.nanoTime();
+        entries = new Array<Entry>();
+        lookup = new ObjectMap<String, Entry>();
+        threads = new LongMap<String>();
+    }
+
+    /**
+     * Returns the loader recording its loads in this trace
+     *
+     * Synchronous loaders stay synchronous, so the asset manager runs them the same way.
+     *
+     * @param loader    The loader to trace
+     *
+     * @return the loader recording its loads in this trace
+     */
+    @SuppressWarnings( "unchecked" )
+    public <T, P extends AssetLoaderParameters<T>> AssetLoader<T, P> wrap(AssetLoader<T, P> loader) {
+        if (loader instanceof AsynchronousAssetLoader) {
+            return new TracedAsyncLoader<T, P>( (AsynchronousAssetLoader<T, P>)loader, this );
+        } else if (loader instanceof SynchronousAssetLoader) {
+            return new TracedSyncLoader<T, P>( (SynchronousAssetLoader<T, P>)loader, this );
+        }
+        return loader;
+    }
+
+    // BEGIN-REGION RECORDING
+
+    /**
+     * Returns the entry of an asset, creating it if necessary
+     *
+     * @param fileName  The asset file name
+     *
+     * @return the entry of an asset
+     */
+    private Entry entry(String fileName) {
+        Entry entry = lookup.get( fileName );
+        if (entry == null) {
+            entry = new Entry( fileName );
+            lookup.put( fileName, entry );
+            entries.add( entry );
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the id of the current thread, remembering its name
+     *
+     * @return the id of the current thread
+     */
+    private long thread() {
+        Thread thread = Thread.currentThread();
+        if (!threads.containsKey( thread.getId() )) {
+            threads.put( thread.getId(), thread.getName() );
+        }
+        return thread.getId();
+    }
+
+    /**
+     * Records that an asset was queued, unless it was already
+     *
+     * @param fileName  The asset file name
+     */
+    public synchronized void queued(String fileName) {
+        Entry entry = entry( fileName );
+        if (entry.queued == 0) {
+            entry.queued = System.nanoTime();
+        }
+    }
+
+    /**
+     * Records that the asset manager took an asset from the queue
+     *
+     * @param fileName  The asset file name
+     * @param loader    The loader of the asset
+     */
+    synchronized void started(String fileName, AssetLoader<?, ?> loader) {
+        Entry entry = entry( fileName );
+        if (entry.started == 0) {
+            entry.started = System.nanoTime();
+            entry.loader = loader.getClass().getSimpleName();
+            if (entry.queued == 0) {
+                entry.queued = entry.started;
+            }
+        }
+    }
+
+    /**
+     * Records that a {@link DecodePool} worker started decoding an asset
+     *
+     * @param fileName  The asset file name
+     */
+    public synchronized void decodeStarted(String fileName) {
+        Entry entry = entry( fileName );
+        entry.decodeStart = System.nanoTime();
+        entry.decodeThread = thread();
+    }
+
+    /**
+     * Records that a {@link DecodePool} worker finished decoding an asset
+     *
+     * @param fileName  The asset file name
+     */
+    public synchronized void decodeFinished(String fileName) {
+        entry( fileName ).decodeEnd = System.nanoTime();
+    }
+
+    /**
+     * Records that the asynchronous part of a loader started
+     *
+     * @param fileName  The asset file name
+     */
+    synchronized void asyncStarted(String fileName) {
+        Entry entry = entry( fileName );
+        entry.asyncStart = System.nanoTime();
+        entry.asyncThread = thread();
+    }
+
+    /**
+     * Records that the asynchronous part of a loader finished
+     *
+     * @param fileName  The asset file name
+     */
+    synchronized void asyncFinished(String fileName) {
+        entry( fileName ).asyncEnd = System.nanoTime();
+    }
+
+    /**
+     * Records that the synchronous part of a loader started
+     *
+     * @param fileName  The asset file name
+     */
+    synchronized void syncStarted(String fileName) {
+        Entry entry = entry( fileName );
+        entry.syncStart = System.nanoTime();
+        entry.syncThread = thread();
+    }
+
+    /**
+     * Records that the synchronous part of a loader finished
+     *
+     * @param fileName  The asset file name
+     * @param file      The resolved file
+     * @param asset     The loaded asset
+     */
+    synchronized void syncFinished(String fileName, FileHandle file, Object asset) {
+        Entry entry = entry( fileName );
+        entry.syncEnd = System.nanoTime();
+        entry.bytes = AssetDirectory.estimateBytes( asset, file );
+    }
+
+    // END-REGION
+
+    // BEGIN-REGION OUTPUT
+
+    /**
+     * Returns the time (in milliseconds) from the start of the trace to the last load
+     *
+     * @return the time (in milliseconds) from the start of the trace to the last load
+     */
+    public synchronized float getElapsedMillis() {
+        long last = origin;
+        for (Entry entry : entries) {
+            last = Math.max( last, entry.syncEnd );
+        }
+        return (last - origin) / 1.0e6f;
+    }
+
+    /**
+     * Writes the trace in the Chrome trace event format
+     *
+     * Every phase of every asset is a complete ("X") event, with the loader and the
+     * memory of the asset as its arguments. Queue waits are drawn on a separate track.
+     *
+     * @param file  The file to write to
+     */
+    public synchronized void write(FileHandle file) {
+        Writer out = file.writer( false, "UTF-8" );
+        JsonWriter json = new JsonWriter( out );
+        json.setOutputType( JsonWriter.OutputType.json );
+        try {
+            json.object().array( "traceEvents" );
+            json.object().set( "name", "thread_name" ).set( "ph", "M" ).set( "pid", 1 ).set( "tid", 0 );
+            json.object( "args" ).set( "name", "asset queue" ).pop().pop();
+            for (LongMap.Entry<String> thread : threads) {
+                json.object().set( "name", "thread_name" ).set( "ph", "M" ).set( "pid", 1 );
+                json.set( "tid", thread.key );
+                json.object( "args" ).set( "name", thread.value ).pop().pop();
+            }
+            for (Entry entry : entries) {
+                event( json, entry, QUEUE, entry.queued, entry.started, 0 );
+                event( json, entry, DECODE, entry.decodeStart, entry.decodeEnd, entry.decodeThread );
+                event( json, entry, ASYNC, entry.asyncStart, entry.asyncEnd, entry.asyncThread );
+                event( json, entry, SYNC, entry.syncStart, entry.syncEnd, entry.syncThread );
+            }
+            json.pop();
+            json.set( "displayTimeUnit", "ms" );
+            json.pop();
+            json.close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException( "Error writing load trace: " + file, e );
+        }
+    }
+
+    /**
+     * Writes a single phase of an asset load, if it was recorded
+     */
+    private void event(JsonWriter json, Entry entry, String phase, long start, long end,
+                       long thread) throws IOException {
+        if (start == 0 || end == 0) {
+            return;
+        }
+        json.object();
+        json.set( "name", entry.fileName ).set( "cat", phase ).set( "ph", "X" );
+        json.set( "ts", (start - origin) / 1000 ).set( "dur", Math.max( 1, (end - start) / 1000 ) );
+        json.set( "pid", 1 ).set( "tid", thread );
+        json.object( "args" ).set( "phase", phase ).set( "loader", entry.loader );
+        json.set( "bytes", entry.bytes ).pop();
+        json.pop();
+    }
+
+    /**
+     * Returns a table of the traced assets, slowest first
+     *
+     * Each row shows the queue wait, the decode, async and sync times (in milliseconds),
+     * the memory of the asset and its loader.
+     *
+     * @return a table of the traced assets, slowest first
+     */
+    public synchronized String getSummary() {
+        Array<Entry> sorted = new Array<Entry>( entries );
+        sorted.sort( (a, b) -> Float.compare( total( b ), total( a ) ) );
+
+        StringBuilder table = new StringBuilder();
+        table.append( String.format( "%9s %9s %9s %9s %9s %10s  %-22s %s%n", "total", QUEUE,
+                                     DECODE, ASYNC, SYNC, "KB", "loader", "asset" ) );
+        float queue = 0, decode = 0, async = 0, sync = 0;
+        long bytes = 0;
+        for (Entry entry : sorted) {
+            float q = Entry.millis( entry.queued, entry.started );
+            float d = Entry.millis( entry.decodeStart, entry.decodeEnd );
+            float a = Entry.millis( entry.asyncStart, entry.asyncEnd );
+            float s = Entry.millis( entry.syncStart, entry.syncEnd );
+            table.append( String.format( "%9.2f %9.2f %9.2f %9.2f %9.2f %10.1f  %-22s %s%n",
+                                         total( entry ), q, d, a, s, entry.bytes / 1024.0f,
+                                         entry.loader, entry.fileName ) );
+            queue += q;
+            decode += d;
+            async += a;
+            sync += s;
+            bytes += entry.bytes;
+        }
+        table.append( String.format( "%9.2f %9.2f %9.2f %9.2f %9.2f %10.1f  %d assets, %.2f ms to last load%n",
+                                     queue + decode + async + sync, queue, decode, async, sync,
+                                     bytes / 1024.0f, entries.size, getElapsedMillis() ) );
+        return table.toString();
+    }
+
+    /**
+     * Returns the time (in milliseconds) from queueing an asset to finishing its load
+     */
+    private static float total(Entry entry) {
+        return Entry.millis( entry.queued, entry.syncEnd );
+    }
+
+    // END-REGION
+
+    // BEGIN-REGION LOADERS
+
+    /**
+     * An asynchronous loader that records the phases of its delegate
+     */
+    private static class TracedAsyncLoader<T, P extends AssetLoaderParameters<T>> extends AsynchronousAssetLoader<T, P> {
+        private final AsynchronousAssetLoader<T, P> delegate;
+        private final LoadTrace trace;
+
+        TracedAsyncLoader(AsynchronousAssetLoader<T, P> delegate, LoadTrace trace) {
+            super( null );
+            this.delegate = delegate;
+            this.trace = trace;
+        }
+
+        @Override
+        public FileHandle resolve(String fileName) {
+            return delegate.resolve( fileName );
+        }
+
+        @Override
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, P params) {
+            trace.started( fileName, delegate );
+            Array<AssetDescriptor> dependencies = delegate.getDependencies( fileName, file, params );
+            if (dependencies != null) {
+                for (AssetDescriptor dependency : dependencies) {
+                    trace.queued( dependency.fileName );
+                }
+            }
+            return dependencies;
+        }
+
+        @Override
+        public void loadAsync(AssetManager manager, String fileName, FileHandle file, P params) {
+            trace.asyncStarted( fileName );
+            delegate.loadAsync( manager, fileName, file, params );
+            trace.asyncFinished( fileName );
+        }
+
+        @Override
+        public void unloadAsync(AssetManager manager, String fileName, FileHandle file, P params) {
+            delegate.unloadAsync( manager, fileName, file, params );
+        }
+
+        @Override
+        public T loadSync(AssetManager manager, String fileName, FileHandle file, P params) {
+            trace.syncStarted( fileName );
+            T asset = delegate.loadSync( manager, fileName, file, params );
+            trace.syncFinished( fileName, file, asset );
+            return asset;
+        }
+    }
+
+    /**
+     * A synchronous loader that records the phases of its delegate
+     */
+    private static class TracedSyncLoader<T, P extends AssetLoaderParameters<T>> extends SynchronousAssetLoader<T, P> {
+        private final SynchronousAssetLoader<T, P> delegate;
+        private final LoadTrace trace;
+
+        TracedSyncLoader(SynchronousAssetLoader<T, P> delegate, LoadTrace trace) {
+            super( null );
+            this.delegate = delegate;
+            this.trace = trace;
+        }
+
+        @Override
+        public FileHandle resolve(String fileName) {
+            return delegate.resolve( fileName );
+        }
+
+        @Override
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, P params) {
+            trace.started( fileName, delegate );
+            Array<AssetDescriptor> dependencies = delegate.getDependencies( fileName, file, params );
+            if (dependencies != null) {
+                for (AssetDescriptor dependency : dependencies) {
+                    trace.queued( dependency.fileName );
+                }
+            }
+            return dependencies;
+        }
+
+        @Override
+        public T load(AssetManager manager, String fileName, FileHandle file, P params) {
+            trace.syncStarted( fileName );
+            T asset = delegate.load( manager, fileName, file, params );
+            trace.syncFinished( fileName, file, asset );
+            return asset;
+        }
+    }
+
+    // END-REGION
+}
@@ -0,0 +1,180 @@
+package com.elements.game.utility.assets;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This class keeps decoded images on disk, so that they do not have to be decoded again
+ * on the next launch.
+ *
+ * Each entry is a raw dump of the pixels of a {@link Pixmap}, named after the path of the
+ * source file and the parameters it was decoded with (see {@link DiskCache#entry}). An
+ * entry is only used if its header matches the hash of the source contents, the cache
+ * version and its own size; otherwise the image is decoded normally and the entry is
+ * rewritten. A hit costs a single copy from the mapped entry into the pixmap.
+ *
+ * All methods may be called from several threads at once (e.g. by the workers of a
+ * {@link DecodePool}).
+ */
+public class PixmapCache extends DiskCache {
+    /** Identifies a cache entry ("EEPX") */
+    private static final int MAGIC = 0x45455058;
+    /** Bumped whenever the entry layout changes, older entries are ignored */
+    private static final int VERSION = 2;
+    /** Size of the entry header: magic, version, hash, width, height, format */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+    /** Extension of cache entries */
+    private static final String EXTENSION = ".pix";
+
+    /**
+     * Creates a cache in the given directory
+     *
+     * Entries of other cache versions are deleted. The directory is created when the
+     * first entry is written.
+     *
+     * @param directory    The cache directory (must be writable)
+     */
+    public PixmapCache(FileHandle directory) {
+        super( directory, VERSION );
+    }
+
+    /**
+     * Returns the decoded image of a file, from the cache if possible
+     *
+     * @param file      The image file (png, jpg or bmp)
+     * @param format    The format of the returned image (null to keep the decoded format)
+     * @param mipmaps   Whether the image is uploaded with mipmaps
+     *
+     * @return the decoded image of a file
+     */
+    public Pixmap decode(FileHandle file, Pixmap.Format format, boolean mipmaps) {
+        byte[] source = file.readBytes();
+        long hash = hash( source );
+        FileHandle entry = entry( file, (format == null ? "raw" : format.name().toLowerCase()) +
+                                        (mipmaps ? "-mip" : ""), EXTENSION );
+        Pixmap pixmap = entry.exists() ? read( entry, hash ) : null;
+        if (pixmap == null) {
+            pixmap = new Pixmap( source, 0, source.length );
+            if (format != null && pixmap.getFormat() != format) {
+                Pixmap converted = new Pixmap( pixmap.getWidth(), pixmap.getHeight(), format );
+                converted.setBlending( Pixmap.Blending.None );
+                converted.drawPixmap( pixmap, 0, 0 );
+                pixmap.dispose();
+                pixmap = converted;
+            }
+            write( entry, hash, pixmap );
+        }
+        return pixmap;
+    }
+
+    /**
+     * Returns the image stored in an entry, or null if the entry is invalid
+     *
+     * @param entry the cache entry
+     * @param hash  the hash of the source file
+     *
+     * @return the image stored in an entry, or null if the entry is invalid
+     */
+    private static Pixmap read(FileHandle entry, long hash) {
+        try {
+            ByteBuffer data = map( entry );
+            if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC ||
+                data.getInt() != VERSION || data.getLong() != hash) {
+                return null;
+            }
+            Pixmap pixmap = readPixmap( data );
+            if (pixmap != null && data.hasRemaining()) {
+                // the entry does not match its own header
+                pixmap.dispose();
+                return null;
+            }
+            return pixmap;
+        } catch (IOException | GdxRuntimeException e) {
+            // unreadable entry, decode the source instead
+            return null;
+        }
+    }
+
+    /**
+     * Stores an image in an entry
+     *
+     * @param entry     the cache entry
+     * @param hash      the hash of the source file
+     * @param pixmap    the decoded image
+     */
+    private static void write(FileHandle entry, long hash, Pixmap pixmap) {
+        ByteBuffer header = ByteBuffer.allocate( 4 + 4 + 8 );
+        header.putInt( MAGIC );
+        header.putInt( VERSION );
+        header.putLong( hash );
+        header.flip();
+        write( entry, header, pixmapHeader( pixmap ), pixels( pixmap ) );
+    }
+
+    /**
+     * Returns the size, format and pixels of an image stored at the position of a buffer
+     *
+     * The buffer is left after the pixels.
+     *
+     * @param data  the entry contents, positioned at the image
+     *
+     * @return the image, or null if the data is invalid
+     */
+    static Pixmap readPixmap(ByteBuffer data) {
+        if (data.remaining() < 12) {
+            return null;
+        }
+        int width = data.getInt();
+        int height = data.getInt();
+        int format = data.getInt();
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        Pixmap pixmap = new Pixmap( width, height, Pixmap.Format.fromGdx2DPixmapFormat( format ) );
+        ByteBuffer pixels = pixmap.getPixels();
+        pixels.clear();
+        if (data.remaining() < pixels.remaining()) {
+            pixmap.dispose();
+            return null;
+        }
+        ByteBuffer slice = data.duplicate();
+        slice.limit( slice.position() + pixels.remaining() );
+        pixels.put( slice );
+        pixels.flip();
+        data.position( slice.position() );
+        return pixmap;
+    }
+
+    /**
+     * Returns the size and format of an image, as expected by {@link #readPixmap}
+     *
+     * @param pixmap    the image
+     *
+     * @return the size and format of an image, ready to be written
+     */
+    static ByteBuffer pixmapHeader(Pixmap pixmap) {
+        ByteBuffer header = ByteBuffer.allocate( 12 );
+        header.putInt( pixmap.getWidth() );
+        header.putInt( pixmap.getHeight() );
+        header.putInt( Pixmap.Format.toGdx2DPixmapFormat( pixmap.getFormat() ) );
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Returns the pixels of an image, as expected by {@link #readPixmap}
+     *
+     * @param pixmap    the image
+     *
+     * @return the pixels of an image, ready to be written
+     */
+    static ByteBuffer pixels(Pixmap pixmap) {
+        ByteBuffer pixels = pixmap.getPixels().duplicate();
+        pixels.clear();
+        return pixels;
+    }
+}
@@ -0,0 +1,45 @@
+package com.elements.game.utility.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * This class parses a JSON entry into a {@link TextureAtlas}.
+ *
+ * An atlas entry is either the name of the .atlas file or an object with a "file" property. The
+ * object form may also list the images packed into the atlas under "regions" (region name to
+ * source image); this list is only read by the packTextures build task. At runtime, regions are
+ * looked up by "atlas:region" keys, see {@link AssetDirectory#getRegion(String)}.
+ */
+public class TextureAtlasParser implements AssetParser<TextureAtlas> {
+    /** The current atlas entry in the JSON directory */
+    private JsonValue root;
+
+    public Class<TextureAtlas> getType() {
+        return TextureAtlas.class;
+    }
+
+    public void reset(JsonValue directory) {
+        root = directory;
+        root = root.getChild("atlases");
+    }
+
+    public boolean hasNext() {
+        return root != null;
+    }
+
+    public void processNext(AssetManager manager, ObjectMap<String, String> keymap) {
+        String file = root.isString() ? root.asString() : root.getString("file", null);
+        if (file != null) {
+            keymap.put(root.name(), file);
+            manager.load(file, TextureAtlas.class);
+        }
+        root = root.next();
+    }
+
+    public boolean equals(Object o) {
+        return o instanceof TextureAtlasParser;
+    }
+}
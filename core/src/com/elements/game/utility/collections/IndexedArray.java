@@ -0,0 +1,91 @@
+package com.elements.game.utility.collections;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * An unordered array that remembers the index of every item, so that {@link #remove} and
+ * {@link #contains} take constant time instead of searching the array. Removal swaps the last item
+ * into the hole. <br> An item may be added only once. Items are looked up by hash code, so items
+ * that override equals must not be equal to one another.
+ *
+ * @param <T> item type
+ */
+public class IndexedArray<T> {
+
+    /** the items, in no particular order */
+    private final Array<T> items;
+
+    /** index of every item in {@link #items} */
+    private final ObjectIntMap<T> indices;
+
+    /**
+     * creates an empty array.
+     *
+     * @param capacity initial capacity
+     */
+    public IndexedArray(int capacity) {
+        items = new Array<>(false, capacity);
+        indices = new ObjectIntMap<>(capacity);
+    }
+
+    /**
+     * @return number of items
+     */
+    public int size() {
+        return items.size;
+    }
+
+    /**
+     * @param index index from 0 to {@link #size()} - 1
+     * @return the item at the given index (indices change when items are removed)
+     */
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * adds the item to the end of the array.
+     *
+     * @param item item to add (not already in the array)
+     */
+    public void add(T item) {
+        indices.put(item, items.size);
+        items.add(item);
+    }
+
+    /**
+     * @param item item to look for
+     * @return whether the item is in the array
+     */
+    public boolean contains(T item) {
+        return indices.containsKey(item);
+    }
+
+    /**
+     * removes the item. The last item takes the place of the removed item.
+     *
+     * @param item item to remove
+     * @return whether the item was found
+     */
+    public boolean remove(T item) {
+        int index = indices.remove(item, -1);
+        if (index < 0) {
+            return false;
+        }
+        T last = items.pop();
+        if (index < items.size) {
+            items.set(index, last);
+            indices.put(last, index);
+        }
+        return true;
+    }
+
+    /**
+     * removes all items.
+     */
+    public void clear() {
+        items.clear();
+        indices.clear();
+    }
+}
@@ -0,0 +1,249 @@
+package com.elements.game.utility.collections;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A collection of items grouped into layers by z-index. Each layer is a contiguous array so
+ * insertion is O(1) (amortized). The index of every item within its layer is remembered, so
+ * removal and lookup are O(1) as well: removal swaps the last item of the layer into the hole. Layers are
+ * kept in drawing order (decreasing z-index), so iterating this collection always visits items in
+ * layer order without sorting. <br> Items within a layer are unordered. Individual layers can be
+ * accessed directly (see {@link #layerAt(int)} and {@link #getLayer(int)}) to draw them
+ * separately, e.g. for parallax backgrounds.
+ *
+ * @param <T> item type (an item may be in the collection only once; items are looked up by hash
+ *            code, so items that override equals must not be equal to one another)
+ */
+public class LayeredArray<T> implements Iterable<T> {
+
+    /** z-indices of the layers, in drawing order */
+    private final IntArray zIndices;
+
+    /** layer contents, parallel to {@link #zIndices} */
+    private final Array<Array<T>> layers;
+
+    /** index of every item within its layer */
+    private final ObjectIntMap<T> slots;
+
+    /** total number of items across all layers */
+    private int size;
+
+    /** reusable iterators (supports iterating at most two levels deep at a time) */
+    private LayeredIterator iterator1, iterator2;
+
+    /**
+     * creates an empty collection with no layers.
+     */
+    public LayeredArray() {
+        zIndices = new IntArray();
+        layers = new Array<>();
+        slots = new ObjectIntMap<>();
+    }
+
+    /**
+     * @return total number of items across all layers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether there are no items in this collection
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * adds the item to the end of the layer with the given z-index, creating the layer if needed.
+     *
+     * @param zIndex layer of the item
+     * @param item   item to add
+     */
+    public void add(int zIndex, T item) {
+        Array<T> layer = findOrCreateLayer(zIndex);
+        slots.put(item, layer.size);
+        layer.add(item);
+        size++;
+    }
+
+    /**
+     * removes the item from the layer with the given z-index. The last item of that layer takes
+     * the place of the removed item.
+     *
+     * @param zIndex layer of the item
+     * @param item   item to remove
+     * @return whether the item was found
+     */
+    public boolean remove(int zIndex, T item) {
+        Array<T> layer = getLayer(zIndex);
+        int slot = slots.get(item, -1);
+        if (layer == null || slot < 0 || slot >= layer.size || layer.get(slot) != item) {
+            return false;
+        }
+        slots.remove(item, -1);
+        T last = layer.pop();
+        if (slot < layer.size) {
+            layer.set(slot, last);
+            slots.put(last, slot);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * @param zIndex layer of the item
+     * @param item   item to look for
+     * @return whether the item is in the layer with the given z-index
+     */
+    public boolean contains(int zIndex, T item) {
+        Array<T> layer = getLayer(zIndex);
+        int slot = slots.get(item, -1);
+        return layer != null && slot >= 0 && slot < layer.size && layer.get(slot) == item;
+    }
+
+    /**
+     * removes all items. Layers are kept (empty) so that their storage can be reused.
+     */
+    public void clear() {
+        for (int ii = 0; ii < layers.size; ii++) {
+            layers.get(ii).clear();
+        }
+        slots.clear();
+        size = 0;
+    }
+
+    /**
+     * @return number of layers (some may be empty)
+     */
+    public int layerCount() {
+        return layers.size;
+    }
+
+    /**
+     * @param position layer position in drawing order, from 0 to {@link #layerCount()} - 1
+     * @return z-index of the layer at the given position
+     */
+    public int zIndexAt(int position) {
+        return zIndices.get(position);
+    }
+
+    /**
+     * The returned array is owned by this collection and must not be modified.
+     *
+     * @param position layer position in drawing order, from 0 to {@link #layerCount()} - 1
+     * @return the items in the layer at the given position
+     */
+    public Array<T> layerAt(int position) {
+        return layers.get(position);
+    }
+
+    /**
+     * The returned array is owned by this collection and must not be modified.
+     *
+     * @param zIndex layer z-index
+     * @return the items in the layer with the given z-index, or null if there is no such layer
+     */
+    public Array<T> getLayer(int zIndex) {
+        int position = findPosition(zIndex);
+        return position < layers.size && zIndices.get(position) == zIndex ? layers.get(position) :
+                null;
+    }
+
+    /**
+     * Iterates over all items in drawing order. The same iterator instances are reused, so at most
+     * two iterations may be in progress at a time.
+     *
+     * @return an iterator over all items
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (iterator1 == null) {
+            iterator1 = new LayeredIterator();
+            iterator2 = new LayeredIterator();
+        }
+        if (!iterator1.valid) {
+            iterator1.reset();
+            iterator1.valid = true;
+            iterator2.valid = false;
+            return iterator1;
+        }
+        iterator2.reset();
+        iterator2.valid = true;
+        iterator1.valid = false;
+        return iterator2;
+    }
+
+    /**
+     * @param zIndex layer z-index
+     * @return position of the layer with the z-index, or the position it would be inserted at
+     */
+    private int findPosition(int zIndex) {
+        // layers are few, a linear search beats a binary search here
+        int position = 0;
+        while (position < zIndices.size && zIndices.get(position) > zIndex) {
+            position++;
+        }
+        return position;
+    }
+
+    private Array<T> findOrCreateLayer(int zIndex) {
+        int position = findPosition(zIndex);
+        if (position < layers.size && zIndices.get(position) == zIndex) {
+            return layers.get(position);
+        }
+        // unordered: removals swap with the last item instead of shifting
+        Array<T> layer = new Array<>(false, 16);
+        zIndices.insert(position, zIndex);
+        layers.insert(position, layer);
+        return layer;
+    }
+
+    /**
+     * Iterator that walks the layers in order and the items of each layer by index.
+     */
+    private class LayeredIterator implements Iterator<T> {
+        private int layer;
+        private int index;
+        private boolean valid;
+
+        private void reset() {
+            layer = 0;
+            index = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!valid) {
+                throw new GdxRuntimeException("#iterator() cannot be used nested.");
+            }
+            while (layer < layers.size && index >= layers.get(layer).size) {
+                layer++;
+                index = 0;
+            }
+            return layer < layers.size;
+        }
+
+        @Override
+        public T next() {
+            if (!valid) {
+                throw new GdxRuntimeException("#iterator() cannot be used nested.");
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return layers.get(layer).get(index++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("use LayeredArray.remove instead");
+        }
+    }
+}
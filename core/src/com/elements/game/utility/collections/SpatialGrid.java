@@ -0,0 +1,288 @@
+package com.elements.game.utility.collections;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.LongMap;
+
+import java.util.Comparator;
+
+/**
+ * A uniform grid that buckets items by their Axis-Aligned-Bounding-Box (AABB). Items are stored in
+ * every cell that their AABB overlaps so that a region query only needs to visit the cells that
+ * overlap the region instead of every item in the world. <br> Items that never move only need to
+ * be inserted once. Moving items should be re-inserted through {@link #update} whenever their AABB
+ * changes; this is cheap when the item stays within the same cells.
+ *
+ * @param <T> item type (compared by identity)
+ */
+public class SpatialGrid<T> {
+
+    /** default width/height of a single grid cell (in game units) */
+    public static final float DEFAULT_CELL_SIZE = 4.0f;
+
+    /**
+     * Book-keeping for a single item in the grid.
+     */
+    private static class Entry<T> {
+        T item;
+        /** insertion sequence, breaks ties between equal items of an ordered query */
+        int order;
+        /** id of the last query that reported this entry (prevents duplicate results) */
+        int stamp;
+        int minColumn;
+        int minRow;
+        int maxColumn;
+        int maxRow;
+    }
+
+    private final float cellSize;
+
+    /** the grid cells, keyed by packed (column, row) */
+    private final LongMap<Array<Entry<T>>> cells;
+
+    /** lookup from an item to its grid entry */
+    private final IdentityMap<T, Entry<T>> entries;
+
+    /** cache of entries found by a query */
+    private final Array<Entry<T>> queryCache;
+
+    /** sorts entries by {@link #itemOrder}, then by insertion */
+    private final Comparator<Entry<T>> orderComparator;
+
+    /** order of the ordered query in progress */
+    private Comparator<? super T> itemOrder;
+
+    private int nextOrder;
+
+    private int queryStamp;
+
+    /**
+     * creates an empty grid with the default cell size.
+     */
+    public SpatialGrid() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * creates an empty grid
+     *
+     * @param cellSize width/height of a single grid cell (in game units)
+     */
+    public SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+        cells = new LongMap<>();
+        entries = new IdentityMap<>();
+        queryCache = new Array<>(false, 64);
+        orderComparator = (e1, e2) -> {
+            int compare = itemOrder.compare(e1.item, e2.item);
+            return compare != 0 ? compare : Integer.compare(e1.order, e2.order);
+        };
+    }
+
+    /**
+     * @return number of items in this grid
+     */
+    public int size() {
+        return entries.size;
+    }
+
+    /**
+     * @param item grid item
+     * @return whether the item is stored in this grid
+     */
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    /**
+     * adds the item to every cell overlapping the given bounds. If the item is already in the grid,
+     * this behaves like {@link #update}.
+     *
+     * @param item   grid item
+     * @param bounds AABB of the item (in game units)
+     */
+    public void insert(T item, Rectangle bounds) {
+        Entry<T> entry = entries.get(item);
+        if (entry != null) {
+            update(item, bounds);
+            return;
+        }
+        entry = new Entry<>();
+        entry.item = item;
+        entry.order = nextOrder++;
+        entry.stamp = queryStamp;
+        setCellRange(entry, bounds);
+        addToCells(entry);
+        entries.put(item, entry);
+    }
+
+    /**
+     * moves the item to the cells overlapping the given bounds. Nothing changes if the item still
+     * overlaps the same cells.
+     *
+     * @param item   grid item
+     * @param bounds new AABB of the item (in game units)
+     */
+    public void update(T item, Rectangle bounds) {
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            insert(item, bounds);
+            return;
+        }
+        int minColumn = toCell(bounds.x);
+        int minRow = toCell(bounds.y);
+        int maxColumn = toCell(bounds.x + bounds.width);
+        int maxRow = toCell(bounds.y + bounds.height);
+        if (minColumn == entry.minColumn && minRow == entry.minRow &&
+                maxColumn == entry.maxColumn && maxRow == entry.maxRow) {
+            return;
+        }
+        removeFromCells(entry);
+        entry.minColumn = minColumn;
+        entry.minRow = minRow;
+        entry.maxColumn = maxColumn;
+        entry.maxRow = maxRow;
+        addToCells(entry);
+    }
+
+    /**
+     * removes the item from this grid
+     *
+     * @param item grid item
+     * @return whether the item was in the grid
+     */
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        removeFromCells(entry);
+        return true;
+    }
+
+    /**
+     * removes all items from this grid
+     */
+    public void clear() {
+        cells.clear();
+        entries.clear();
+        queryCache.clear();
+        nextOrder = 0;
+    }
+
+    /**
+     * collects every item whose cells overlap the given region. Items are reported once each, in
+     * no particular order. The result may contain items that are near (but not inside) the region
+     * since the test is done at cell granularity.
+     *
+     * @param region query region (in game units)
+     * @param out    array to append results to (it is not cleared)
+     * @return the given array, for chaining
+     */
+    public Array<T> query(Rectangle region, Array<T> out) {
+        collect(region);
+        for (int ii = 0; ii < queryCache.size; ii++) {
+            out.add(queryCache.get(ii).item);
+        }
+        queryCache.clear();
+        return out;
+    }
+
+    /**
+     * collects every item whose cells overlap the given region, like {@link #query(Rectangle,
+     * Array)}, sorted in the given order. Items the order considers equal are reported in the
+     * order in which they were inserted.
+     *
+     * @param region query region (in game units)
+     * @param order  order of the results
+     * @param out    array to append results to (it is not cleared)
+     * @return the given array, for chaining
+     */
+    public Array<T> query(Rectangle region, Comparator<? super T> order, Array<T> out) {
+        collect(region);
+        itemOrder = order;
+        queryCache.sort(orderComparator);
+        itemOrder = null;
+        for (int ii = 0; ii < queryCache.size; ii++) {
+            out.add(queryCache.get(ii).item);
+        }
+        queryCache.clear();
+        return out;
+    }
+
+    /**
+     * stores the entries whose cells overlap the given region in the query cache, once each.
+     */
+    private void collect(Rectangle region) {
+        queryStamp++;
+        int minColumn = toCell(region.x);
+        int minRow = toCell(region.y);
+        int maxColumn = toCell(region.x + region.width);
+        int maxRow = toCell(region.y + region.height);
+        for (int column = minColumn; column <= maxColumn; column++) {
+            for (int row = minRow; row <= maxRow; row++) {
+                Array<Entry<T>> cell = cells.get(key(column, row));
+                if (cell == null) {
+                    continue;
+                }
+                for (int ii = 0; ii < cell.size; ii++) {
+                    Entry<T> entry = cell.get(ii);
+                    if (entry.stamp != queryStamp) {
+                        entry.stamp = queryStamp;
+                        queryCache.add(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param value a coordinate (in game units)
+     * @return the column/row containing the coordinate
+     */
+    private int toCell(float value) {
+        return MathUtils.floor(value / cellSize);
+    }
+
+    /**
+     * @return the cell map key for the given column and row
+     */
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    private void setCellRange(Entry<T> entry, Rectangle bounds) {
+        entry.minColumn = toCell(bounds.x);
+        entry.minRow = toCell(bounds.y);
+        entry.maxColumn = toCell(bounds.x + bounds.width);
+        entry.maxRow = toCell(bounds.y + bounds.height);
+    }
+
+    private void addToCells(Entry<T> entry) {
+        for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+            for (int row = entry.minRow; row <= entry.maxRow; row++) {
+                long key = key(column, row);
+                Array<Entry<T>> cell = cells.get(key);
+                if (cell == null) {
+                    // cells are unordered so removals are a swap with the last element
+                    cell = new Array<>(false, 8);
+                    cells.put(key, cell);
+                }
+                cell.add(entry);
+            }
+        }
+    }
+
+    private void removeFromCells(Entry<T> entry) {
+        for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+            for (int row = entry.minRow; row <= entry.maxRow; row++) {
+                Array<Entry<T>> cell = cells.get(key(column, row));
+                if (cell != null) {
+                    cell.removeValue(entry, true);
+                }
+            }
+        }
+    }
+}
@@ -1,17 +1,38 @@
 package com.elements.game.utility.json;
 
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Base64Coder;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.elements.game.utility.assets.AssetDirectory;
-
+import com.elements.game.utility.level.LevelDescriptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Converts Tiled level data into a {@link LevelDescriptor}. Objects are written straight into the
+ * descriptor's columns, so parsing a level allocates nothing per object (apart from growing the
+ * columns the first time a large level is parsed). <br> Levels may use several tilesets; each
+ * tileset is compiled once into flat tables, and the tiles of a level are looked up by gid in a
+ * dense table built from the level's tileset list. <br> Tile layers (csv or base64, optionally zlib
+ * or gzip compressed, and the chunks of infinite maps) are decoded into the descriptor's tile grid
+ * with one cell per map tile.
+ */
 public class LevelParser {
 
-    // Data Containers for Output of Parsing
-    private JsonValue platformData;
-
-    private JsonValue woodData;
+    // Output of Parsing (owned by the caller)
+    private LevelDescriptor output;
 
-    private JsonValue playerData;
+    private boolean playerFound;
 
     private int mapTileHeight;
 
@@ -23,113 +44,231 @@ public class LevelParser {
 
     private final Vector2 positionCache = new Vector2();
 
-    private final TilesetHelper tilesetHelper;
+    /** tilesets that levels can refer to, keyed by file name */
+    private final ObjectMap<String, Tileset> tilesets;
+
+    /** used when a level refers to a tileset that was not registered */
+    private final Tileset defaultTileset;
+
+    // BEGIN-REGION ================== GID TABLE ===============================
+
+    // rebuilt for each level from the tilesets it uses, indexed by processed gid
+
+    private int[] gidKinds = new int[0];
+
+    private float[] gidWidths = new float[0];
+
+    private float[] gidHeights = new float[0];
+
+    /** number of valid entries in the gid table (highest gid + 1) */
+    private int gidCount;
+
+    /** decoded gids of the tile layer (or chunk) being parsed */
+    private int[] gidBuffer = new int[0];
+
+    // END-REGION ==================== GID TABLE ===============================
 
     private static final int LOWER28BITMASK = 0xFFFFFFF;
 
-    public static final int DEFAULT_TILE_SIZE = 32;
+    /** gid bit set when a tile is flipped horizontally */
+    private static final long FLIPPED_HORIZONTALLY = 0x80000000L;
 
-    /**
-     * Collection of helper methods associated with tileset related properties.
-     */
-    private static class TilesetHelper {
-        private final JsonValue[] tiles;
+    /** gid bit set when a tile is flipped vertically */
+    private static final long FLIPPED_VERTICALLY = 0x40000000L;
 
-        public static final String DEFAULT_TYPE = "MISSING";
+    /** gid bit set when a tile is flipped along its anti-diagonal (tile layers only) */
+    private static final long FLIPPED_DIAGONALLY = 0x20000000L;
 
-        // assume single tileset collection
-        // implementation will need changes for multi-sets
-        public TilesetHelper(JsonValue objectTileset) {
-            JsonValue tilesJson = objectTileset.get("tiles");
-            this.tiles = new JsonValue[tilesJson.size];
-            for (JsonValue tile : tilesJson) {
-                tiles[tile.getInt("id")] = tile;
-            }
-        }
+    public static final int DEFAULT_TILE_SIZE = 32;
 
-        /**
-         * @param id processed ID (non-negative)
-         * @return complete json data for corresponding tile ID
-         */
-        public JsonValue getTileById(int id) {
-            return id > tiles.length ? null : tiles[id - 1];
-        }
+    /** tile kind of objects that are ignored */
+    private static final int KIND_NONE = -1;
 
-        /**
-         * @param id processed id (non-negative)
-         * @return class/type of tile with given ID
-         */
-        public String getTileType(int id) {
-            return id > tiles.length ? DEFAULT_TYPE : tiles[id - 1].getString("type", DEFAULT_TYPE);
-        }
+    /** tile kind of the player spawn */
+    private static final int KIND_PLAYER = -2;
 
-        private int getTileDimension(int id, String property) {
-            if (id > tiles.length) return DEFAULT_TILE_SIZE;
-            return tiles[id - 1].getInt(property, DEFAULT_TILE_SIZE);
-        }
+    /** spawn position used when a level has no player (in game units) */
+    private static final float DEFAULT_PLAYER_POSITION = 2;
 
-        public int getTileWidth(int id) {
-            return getTileDimension(id, "imagewidth");
-        }
+    /**
+     * A tileset compiled into flat tables indexed by local tile id. The tables are copied into the
+     * gid table of each level that uses the tileset, starting at the level's firstgid.
+     */
+    private static class Tileset {
+        public static final String DEFAULT_TYPE = "MISSING";
 
-        public int getTileHeight(int id) {
-            return getTileDimension(id, "imageheight");
+        /** what each tile becomes in a level, see {@link #toKind(String)} */
+        final int[] kinds;
+
+        /** image size of each tile (in pixels) */
+        final float[] widths;
+        final float[] heights;
+
+        Tileset(JsonValue tilesetJson) {
+            int tileWidth = tilesetJson.getInt("tilewidth", DEFAULT_TILE_SIZE);
+            int tileHeight = tilesetJson.getInt("tileheight", DEFAULT_TILE_SIZE);
+            JsonValue tilesJson = tilesetJson.get("tiles");
+            // image collections may have gaps in their ids, so size the tables by the largest id
+            int count = tilesetJson.getInt("tilecount", 0);
+            if (tilesJson != null) {
+                for (JsonValue tile = tilesJson.child; tile != null; tile = tile.next) {
+                    count = Math.max(count, tile.getInt("id") + 1);
+                }
+            }
+            kinds = new int[count];
+            widths = new float[count];
+            heights = new float[count];
+            // tiles without an entry take the tileset's grid size and are ignored
+            for (int i = 0; i < count; i++) {
+                kinds[i] = KIND_NONE;
+                widths[i] = tileWidth;
+                heights[i] = tileHeight;
+            }
+            if (tilesJson != null) {
+                for (JsonValue tile = tilesJson.child; tile != null; tile = tile.next) {
+                    int id = tile.getInt("id");
+                    // older Tiled versions call the type "class"
+                    kinds[id] = toKind(tile.getString("type", tile.getString("class",
+                                                                              DEFAULT_TYPE)));
+                    widths[id] = tile.getInt("imagewidth", tileWidth);
+                    heights[id] = tile.getInt("imageheight", tileHeight);
+                }
+            }
         }
 
-        public JsonValue getTileProperty(int id, String propertyName) {
-            return id > tiles.length ? null : tiles[id - 1].get(propertyName);
+        private static int toKind(String type) {
+            switch (type) {
+                case "player":
+                    return KIND_PLAYER;
+                case "grass":
+                    return LevelDescriptor.PLATFORM;
+                case "wood":
+                    return LevelDescriptor.WOOD;
+                default:
+                    return KIND_NONE;
+            }
         }
     }
 
+    /**
+     * creates a parser using the "tileset" entry of the asset directory
+     *
+     * @param directory asset directory
+     */
     public LevelParser(AssetDirectory directory) {
-        // this.directory = directory;
-        // this.globalConstants = directory.getEntry("constants", JsonValue.class);
-        JsonValue objTileset = directory.getEntry("tileset", JsonValue.class);
-        this.tilesetHelper = new TilesetHelper(objTileset);
+        this(directory.getEntry("tileset", JsonValue.class));
+        JsonValue tileset = directory.getEntry("tileset", JsonValue.class);
+        addTileset(directory.getAssetFileName(tileset), tileset);
     }
 
     /**
-     * @param levelData raw/unprocessed level data,
-     * @return processed data ready for rendering level
+     * creates a parser without an asset directory (e.g. for the offline level compiler)
+     *
+     * @param objTileset tileset json data, used for every tileset a level refers to that was not
+     *                   added through {@link #addTileset}
      */
-    public JsonValue parse(JsonValue levelData) {
+    public LevelParser(JsonValue objTileset) {
+        tilesets = new ObjectMap<>();
+        defaultTileset = new Tileset(objTileset);
+    }
+
+    /**
+     * registers an external tileset. Levels refer to their tilesets by file path (relative to the
+     * level); they are matched by file name only.
+     *
+     * @param source  file path or name of the tileset
+     * @param tileset tileset json data
+     */
+    public void addTileset(String source, JsonValue tileset) {
+        tilesets.put(fileName(source), new Tileset(tileset));
+    }
+
+    /**
+     * @param levelData raw/unprocessed level data
+     * @param out       descriptor to fill (cleared first)
+     * @return the given descriptor, ready for building the level
+     */
+    public LevelDescriptor parse(JsonValue levelData, LevelDescriptor out) {
         // load some necessary map data
         mapTileHeight = levelData.getInt("tileheight", DEFAULT_TILE_SIZE);
         mapTileWidth = levelData.getInt("tilewidth", DEFAULT_TILE_SIZE);
         mapHeight = levelData.getInt("height");
 
-        // initialize output containers
-        // json object = {}
-        // json array = []
-        platformData = new JsonValue(JsonValue.ValueType.array);
-        playerData = new JsonValue(JsonValue.ValueType.object);
-        woodData = new JsonValue(JsonValue.ValueType.array);
+        buildGidTable(levelData.get("tilesets"));
+        output = out;
+        output.clear();
+        playerFound = false;
 
-        // get object layers from level data (layering helps provide depth and organization)
+        // get layers from level data (layering helps provide depth and organization)
         JsonValue layers = levelData.get("layers");
-        for (JsonValue layer : layers) {
-            if (layer.getString("type").equals("objectgroup")) {
+        // all tile layers share one grid, so it has to cover every one of them
+        computeTileBounds(layers);
+        for (JsonValue layer = layers.child; layer != null; layer = layer.next) {
+            String type = layer.getString("type");
+            if (type.equals("objectgroup")) {
                 // object layer found, parse all objects
-                for (JsonValue object : layer.get("objects")) {
+                JsonValue objects = layer.get("objects");
+                for (JsonValue object = objects.child; object != null; object = object.next) {
                     parseObject(object);
                 }
+            } else if (type.equals("tilelayer")) {
+                parseTileLayer(layer);
             }
         }
         // somehow player was not found
-        if (playerData.size == 0) {
+        if (!playerFound) {
             System.err.println("player not found");
-            playerData.addChild("x", new JsonValue(2));
-            playerData.addChild("y", new JsonValue(2));
+            output.setPlayer(DEFAULT_PLAYER_POSITION, DEFAULT_PLAYER_POSITION);
         }
-        JsonValue processedLevel = new JsonValue(JsonValue.ValueType.object);
         // TODO: add remaining needed map components
-        processedLevel.addChild("player", playerData);
-        processedLevel.addChild("platform", platformData);
-        processedLevel.addChild("wood", woodData);
-        return processedLevel;
+        output = null;
+        return out;
     }
 
 
+    /**
+     * fills the gid table from the tilesets of a level
+     *
+     * @param tilesetRefs the level's "tilesets" list (firstgid and source or embedded data)
+     */
+    private void buildGidTable(JsonValue tilesetRefs) {
+        gidCount = 1;
+        if (tilesetRefs == null) {
+            // no list, assume the level was made with the default tileset only
+            copyToGidTable(defaultTileset, 1);
+            return;
+        }
+        for (JsonValue ref = tilesetRefs.child; ref != null; ref = ref.next) {
+            Tileset tileset;
+            if (ref.has("source")) {
+                tileset = tilesets.get(fileName(ref.getString("source")), defaultTileset);
+            } else {
+                // embedded tileset, only used by this level
+                tileset = new Tileset(ref);
+            }
+            copyToGidTable(tileset, ref.getInt("firstgid", 1));
+        }
+    }
+
+    private void copyToGidTable(Tileset tileset, int firstGid) {
+        int count = tileset.kinds.length;
+        int end = firstGid + count;
+        if (end > gidKinds.length) {
+            int length = Math.max(end, gidKinds.length * 2);
+            gidKinds = Arrays.copyOf(gidKinds, length);
+            gidWidths = Arrays.copyOf(gidWidths, length);
+            gidHeights = Arrays.copyOf(gidHeights, length);
+        }
+        // gids skipped between tilesets do not map to any tile
+        if (firstGid > gidCount) {
+            Arrays.fill(gidKinds, gidCount, firstGid, KIND_NONE);
+        }
+        System.arraycopy(tileset.kinds, 0, gidKinds, firstGid, count);
+        System.arraycopy(tileset.widths, 0, gidWidths, firstGid, count);
+        System.arraycopy(tileset.heights, 0, gidHeights, firstGid, count);
+        gidCount = Math.max(gidCount, end);
+    }
+
     /**
      * Given an object, convert to game data if applicable and store results.
      *
@@ -137,65 +276,189 @@ public class LevelParser {
      */
     private void parseObject(JsonValue objectJson) {
         long gid = objectJson.getLong("gid", 0);
-        if (gid == 0){
+        int id = getProcessedId(gid);
+        if (id == 0 || id >= gidCount) {
             return;
         }
-        int tileID = getProcessedId(gid);
-        String objType = tilesetHelper.getTileType(tileID);
-        switch (objType) {
-            case "player":
-                if (playerData != null) {
-                    playerData = parsePlayer(objectJson);
-                } else {
-                    System.err.println("multiple players found");
-                }
-                break;
-            case "grass":
-                platformData.addChild(parsePlatform(objectJson));
-                break;
-            case "wood":
-                woodData.addChild(parsePlatform(objectJson));
-                break;
-            default:
-                break;
+        int kind = gidKinds[id];
+        if (kind == KIND_NONE) {
+            return;
+        }
+        computePosition(objectJson);
+        computeDisplayDimensions(objectJson, id);
+        addObject(kind, positionCache.x, positionCache.y, dimensionCache.x, dimensionCache.y,
+                  getFlipFlags(gid));
+    }
+
+    /**
+     * stores an object of the given kind.
+     *
+     * @param kind  tile kind (not {@link #KIND_NONE})
+     * @param x     center x (in game units)
+     * @param y     center y (in game units)
+     * @param flags flip flags
+     */
+    private void addObject(int kind, float x, float y, float width, float height, int flags) {
+        if (kind == KIND_PLAYER) {
+            if (!playerFound) {
+                // there's only 1 player, and we really only need player position (unless
+                // other properties can vary from level to level).
+                output.setPlayer(x, y);
+                playerFound = true;
+            } else {
+                System.err.println("multiple players found");
+            }
+            return;
+        }
+        // a box-shaped object (platform, wood), its hit-box covers its display area
+        output.get(kind).add(x, y, width, height, flags);
+    }
+
+    // BEGIN-REGION ================== TILE LAYERS =============================
+
+    /**
+     * sizes the tile grid of the output to cover all tile layers (including every chunk of
+     * infinite maps).
+     *
+     * @param layers the level's layers
+     */
+    private void computeTileBounds(JsonValue layers) {
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (JsonValue layer = layers.child; layer != null; layer = layer.next) {
+            if (!layer.getString("type").equals("tilelayer")) {
+                continue;
+            }
+            JsonValue chunks = layer.get("chunks");
+            JsonValue area = chunks == null ? layer : chunks.child;
+            for (; area != null; area = chunks == null ? null : area.next) {
+                int x = area.getInt("x", 0);
+                int y = area.getInt("y", 0);
+                left = Math.min(left, x);
+                top = Math.min(top, y);
+                right = Math.max(right, x + area.getInt("width"));
+                bottom = Math.max(bottom, y + area.getInt("height"));
+            }
+        }
+        if (left > right) {
+            // no tile layers
+            output.getTiles().clear();
+            return;
+        }
+        // Tiled rows go down, so the bottom row of the layers is the first row of the grid
+        output.getTiles().reset(left, mapHeight - bottom, right - left, bottom - top);
+    }
+
+    /**
+     * decodes a tile layer into the tile grid of the output. Platform tiles become grid cells;
+     * tiles of other kinds are stored as one-tile objects at the center of their cell.
+     *
+     * @param layer unprocessed tile layer data
+     */
+    private void parseTileLayer(JsonValue layer) {
+        String encoding = layer.getString("encoding", "csv");
+        String compression = layer.getString("compression", "");
+        JsonValue chunks = layer.get("chunks");
+        if (chunks == null) {
+            parseTileArea(layer, encoding, compression);
+        } else {
+            // infinite maps store their tiles in chunks of fixed size
+            for (JsonValue chunk = chunks.child; chunk != null; chunk = chunk.next) {
+                parseTileArea(chunk, encoding, compression);
+            }
         }
     }
 
     /**
-     * @param data unprocessed player object
-     * @return processed player object
+     * @param area        unprocessed tile layer or chunk with x, y, width, height and data
+     * @param encoding    "csv" or "base64"
+     * @param compression "", "zlib" or "gzip"
      */
-    private JsonValue parsePlayer(JsonValue data) {
-        // there's only 1 player, and we really only need player position (unless other properties
-        // can vary from level to level).
-        JsonValue player = new JsonValue(JsonValue.ValueType.object);
-        computePosition(data);
-        player.addChild("x", new JsonValue(positionCache.x));
-        player.addChild("y", new JsonValue(positionCache.x));
-        return player;
+    private void parseTileArea(JsonValue area, String encoding, String compression) {
+        int areaX = area.getInt("x", 0);
+        int areaY = area.getInt("y", 0);
+        int width = area.getInt("width");
+        int height = area.getInt("height");
+        int count = width * height;
+        decodeTiles(area.get("data"), encoding, compression, count);
+
+        LevelDescriptor.TileGrid grid = output.getTiles();
+        for (int i = 0; i < count; i++) {
+            long gid = gidBuffer[i] & 0xFFFFFFFFL;
+            int id = getProcessedId(gid);
+            if (id == 0 || id >= gidCount || gidKinds[id] == KIND_NONE) {
+                continue;
+            }
+            int column = areaX + i % width - grid.x;
+            // Tiled rows go down, grid rows go up
+            int row = mapHeight - (areaY + i / width) - 1 - grid.y;
+            if (gidKinds[id] == LevelDescriptor.PLATFORM) {
+                grid.set(column, row, LevelDescriptor.TileGrid.cell(LevelDescriptor.PLATFORM,
+                                                                    getFlipFlags(gid)));
+            } else {
+                addObject(gidKinds[id], grid.x + column + 0.5f, grid.y + row + 0.5f, 1, 1,
+                          getFlipFlags(gid));
+            }
+        }
     }
 
     /**
-     * @param data unprocessed platform object
-     * @return processed platform object
+     * decodes the gids of a tile layer (or chunk) into {@link #gidBuffer}.
+     *
+     * @param data        the layer's data, an array of gids or a base64 string
+     * @param encoding    "csv" or "base64"
+     * @param compression "", "zlib" or "gzip" (base64 only)
+     * @param count       number of tiles
      */
-    private JsonValue parsePlatform(JsonValue data) {
-        JsonValue platform = new JsonValue(JsonValue.ValueType.object);
-        computePosition(data);
-        platform.addChild("x", new JsonValue(positionCache.x));
-        platform.addChild("y", new JsonValue(positionCache.y));
-        computeDisplayDimensions(data);
-        platform.addChild("width", new JsonValue(dimensionCache.x));
-        platform.addChild("height", new JsonValue(dimensionCache.y));
-        // TODO: use some implied inheritance of data in constructors if object is a box so no need
-        //  to duplicate information
-        JsonValue hitbox = new JsonValue(JsonValue.ValueType.object);
-        hitbox.addChild("width", new JsonValue(dimensionCache.x));
-        hitbox.addChild("height", new JsonValue(dimensionCache.y));
-        platform.addChild("hit-box", hitbox);
-        return platform;
+    private void decodeTiles(JsonValue data, String encoding, String compression, int count) {
+        if (gidBuffer.length < count) {
+            gidBuffer = new int[count];
+        }
+        if (!encoding.equals("base64")) {
+            // gids are unsigned 32-bit, flipped ones do not fit an int
+            int i = 0;
+            for (JsonValue gid = data.child; gid != null && i < count; gid = gid.next) {
+                gidBuffer[i++] = (int) gid.asLong();
+            }
+            return;
+        }
+        byte[] bytes = Base64Coder.decode(data.asString().trim());
+        switch (compression) {
+            case "":
+                break;
+            case "zlib":
+            case "gzip":
+                bytes = inflate(bytes, compression.equals("gzip"), 4 * count);
+                break;
+            default:
+                throw new GdxRuntimeException("unsupported tile layer compression: " + compression);
+        }
+        // gids are stored as little endian unsigned 32-bit integers
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer()
+                .get(gidBuffer, 0, count);
     }
 
+    /**
+     * @param bytes  compressed data
+     * @param gzip   whether the data has a gzip header (otherwise zlib)
+     * @param length size of the uncompressed data
+     * @return the uncompressed data
+     */
+    private static byte[] inflate(byte[] bytes, boolean gzip, int length) {
+        byte[] result = new byte[length];
+        try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(bytes)) :
+                new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            new DataInputStream(in).readFully(result);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("corrupt tile layer data", e);
+        }
+        return result;
+    }
+
+    // END-REGION ==================== TILE LAYERS =============================
+
     /**
      * @param gid unprocessed object gid
      * @return tile id of object, where gid is processed with flag bits removed.
@@ -204,16 +467,39 @@ public class LevelParser {
         return (int) (gid & LOWER28BITMASK);
     }
 
+    /**
+     * @param gid unprocessed object gid
+     * @return the flip bits of the gid as {@link LevelDescriptor} flip flags
+     */
+    private static int getFlipFlags(long gid) {
+        int flags = 0;
+        if ((gid & FLIPPED_HORIZONTALLY) != 0) flags |= LevelDescriptor.FLIP_HORIZONTAL;
+        if ((gid & FLIPPED_VERTICALLY) != 0) flags |= LevelDescriptor.FLIP_VERTICAL;
+        if ((gid & FLIPPED_DIAGONALLY) != 0) flags |= LevelDescriptor.FLIP_DIAGONAL;
+        return flags;
+    }
+
+    /**
+     * @param path file path
+     * @return the last segment of the path
+     */
+    private static String fileName(String path) {
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return path.substring(slash + 1);
+    }
+
     /**
      * loads the corresponding game width and height for the specified dimensions into dimension
      * cache.
      *
      * @param objectJson unprocessed json data with (width, height) properties
+     * @param id         processed id of the object's tile, its image size is used for missing
+     *                   properties
      * @apiNote requires map tile dimensions to be preloaded.
      */
-    private void computeDisplayDimensions(JsonValue objectJson) {
-        float width = objectJson.getFloat("width");
-        float height = objectJson.getFloat("height");
+    private void computeDisplayDimensions(JsonValue objectJson, int id) {
+        float width = objectJson.getFloat("width", gidWidths[id]);
+        float height = objectJson.getFloat("height", gidHeights[id]);
         dimensionCache.set(width / mapTileWidth, height / mapTileHeight);
     }
 
@@ -0,0 +1,254 @@
+package com.elements.game.utility.level;
+
+import java.util.Arrays;
+
+/**
+ * A Level Descriptor holds everything needed to build a level, stored as flat primitive arrays
+ * instead of an object tree. Objects of the same type are kept in parallel columns (x, y, width,
+ * height, flags) and tile layers are kept as a grid of cells, so a level can be read straight from
+ * a compiled file (see {@link LevelFormat}) or filled by the
+ * {@link com.elements.game.utility.json.LevelParser} without building object trees. <br> A
+ * descriptor can be reused for several levels; clearing it keeps the storage.
+ */
+public class LevelDescriptor {
+
+    /** platform (grass) tiles */
+    public static final int PLATFORM = 0;
+
+    /** movable (wood) blocks */
+    public static final int WOOD = 1;
+
+    /** number of object types */
+    public static final int TYPE_COUNT = 2;
+
+    /** flag of objects mirrored along the x-axis (left to right) */
+    public static final int FLIP_HORIZONTAL = 1;
+
+    /** flag of objects mirrored along the y-axis (top to bottom) */
+    public static final int FLIP_VERTICAL = 2;
+
+    /** flag of tiles mirrored along their anti-diagonal (only set by Tiled for tile layers) */
+    public static final int FLIP_DIAGONAL = 4;
+
+    /**
+     * Parallel columns describing the objects of one type. All positions and sizes are in game
+     * units and positions are object centers; flags are combinations of the FLIP constants. Only
+     * the first {@link #size} entries are valid.
+     */
+    public static class Columns {
+        public float[] x;
+        public float[] y;
+        public float[] width;
+        public float[] height;
+        public int[] flags;
+        public int size;
+
+        Columns() {
+            x = new float[16];
+            y = new float[16];
+            width = new float[16];
+            height = new float[16];
+            flags = new int[16];
+        }
+
+        /**
+         * appends an object that is not flipped
+         */
+        public void add(float x, float y, float width, float height) {
+            add(x, y, width, height, 0);
+        }
+
+        /**
+         * appends an object
+         */
+        public void add(float x, float y, float width, float height, int flags) {
+            ensureCapacity(size + 1);
+            this.x[size] = x;
+            this.y[size] = y;
+            this.width[size] = width;
+            this.height[size] = height;
+            this.flags[size] = flags;
+            size++;
+        }
+
+        /**
+         * makes room for at least the given number of objects, keeping the current ones
+         *
+         * @param capacity number of objects
+         */
+        public void ensureCapacity(int capacity) {
+            if (capacity <= x.length) {
+                return;
+            }
+            int length = Math.max(capacity, x.length * 2);
+            x = copyOf(x, length);
+            y = copyOf(y, length);
+            width = copyOf(width, length);
+            height = copyOf(height, length);
+            int[] result = new int[length];
+            System.arraycopy(flags, 0, result, 0, size);
+            flags = result;
+        }
+
+        /**
+         * removes all objects, the storage is kept
+         */
+        public void clear() {
+            size = 0;
+        }
+
+        private float[] copyOf(float[] column, int length) {
+            float[] result = new float[length];
+            System.arraycopy(column, 0, result, 0, size);
+            return result;
+        }
+    }
+
+    /**
+     * A Tile Grid holds the tiles of Tiled tile layers as one int per cell. Every cell is one game
+     * unit wide and tall; a cell is either {@link #EMPTY} or encodes an object type and flip flags
+     * (see {@link #cell(int, int)}). Cells are stored row by row, starting from the bottom row.
+     */
+    public static class TileGrid {
+        /** value of cells without a tile */
+        public static final int EMPTY = 0;
+
+        /** column of the left-most cells (in game units) */
+        public int x;
+        /** row of the bottom cells (in game units) */
+        public int y;
+        public int width;
+        public int height;
+        public int[] cells;
+
+        TileGrid() {
+            cells = new int[0];
+        }
+
+        /**
+         * resizes the grid and empties all cells
+         *
+         * @param x      column of the left-most cells (in game units)
+         * @param y      row of the bottom cells (in game units)
+         * @param width  number of columns
+         * @param height number of rows
+         */
+        public void reset(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            if (cells.length < width * height) {
+                cells = new int[width * height];
+            } else {
+                Arrays.fill(cells, 0, width * height, EMPTY);
+            }
+        }
+
+        /**
+         * @param column column relative to {@link #x}
+         * @param row    row relative to {@link #y}
+         * @return the cell at the given position
+         */
+        public int get(int column, int row) {
+            return cells[row * width + column];
+        }
+
+        public void set(int column, int row, int cell) {
+            cells[row * width + column] = cell;
+        }
+
+        /**
+         * removes all cells, the storage is kept
+         */
+        public void clear() {
+            reset(0, 0, 0, 0);
+        }
+
+        /**
+         * @param type  object type, e.g. {@link #PLATFORM}
+         * @param flags flip flags
+         * @return the cell holding a tile of the given type
+         */
+        public static int cell(int type, int flags) {
+            return (type + 1) | flags << 8;
+        }
+
+        /**
+         * @return the object type of a non-empty cell
+         */
+        public static int getType(int cell) {
+            return (cell & 0xFF) - 1;
+        }
+
+        /**
+         * @return the flip flags of a cell
+         */
+        public static int getFlags(int cell) {
+            return cell >>> 8;
+        }
+    }
+
+    private final Columns[] objects;
+
+    private final TileGrid tiles;
+
+    private float playerX;
+
+    private float playerY;
+
+    /**
+     * creates an empty level description
+     */
+    public LevelDescriptor() {
+        objects = new Columns[TYPE_COUNT];
+        for (int ii = 0; ii < TYPE_COUNT; ii++) {
+            objects[ii] = new Columns();
+        }
+        tiles = new TileGrid();
+    }
+
+    /**
+     * removes all objects and tiles; the storage is kept for reuse
+     */
+    public void clear() {
+        for (Columns columns : objects) {
+            columns.clear();
+        }
+        tiles.clear();
+        playerX = 0;
+        playerY = 0;
+    }
+
+    /**
+     * @param type object type, e.g. {@link #PLATFORM}
+     * @return the objects of the given type
+     */
+    public Columns get(int type) {
+        return objects[type];
+    }
+
+    /**
+     * @return the tiles of the level's tile layers
+     */
+    public TileGrid getTiles() {
+        return tiles;
+    }
+
+    public float getPlayerX() {
+        return playerX;
+    }
+
+    public float getPlayerY() {
+        return playerY;
+    }
+
+    /**
+     * @param x player spawn x (in game units)
+     * @param y player spawn y (in game units)
+     */
+    public void setPlayer(float x, float y) {
+        playerX = x;
+        playerY = y;
+    }
+}
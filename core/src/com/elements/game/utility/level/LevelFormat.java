@@ -0,0 +1,191 @@
+package com.elements.game.utility.level;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * The binary format of compiled levels. A compiled level is produced offline from the Tiled JSON
+ * by the level compiler (tools module, {@code ./gradlew compileLevels}) and read back at runtime
+ * into a {@link LevelDescriptor} with a single file read and bulk float copies. <br> Layout (big
+ * endian):
+ * <pre>
+ * header:  int magic ("EELV"), int version, long length of the source json,
+ *          long modification time of the source json, int checksum of the payload,
+ *          int payload size
+ * payload: float player x, float player y, int section count,
+ *          then per section: int object type, int count,
+ *                            float[count] x, float[count] y, float[count] width, float[count] height,
+ *                            int[count] flags,
+ *          int tile grid x, int tile grid y, int tile grid width, int tile grid height,
+ *          int[width * height] tile cells
+ * </pre>
+ * Readers reject files with a different magic number, version or checksum, and files compiled
+ * from a different version of the source (see {@link LevelLoader}).
+ */
+public final class LevelFormat {
+
+    /** identifies a compiled level file ("EELV") */
+    public static final int MAGIC = 0x45454C56;
+
+    /** bumped whenever the layout changes, old files must be recompiled */
+    public static final int VERSION = 5;
+
+    /** file extension of compiled levels */
+    public static final String EXTENSION = "lvl";
+
+    /** size of the header (in bytes) */
+    private static final int HEADER_SIZE = 32;
+
+    private LevelFormat() {}
+
+    /**
+     * reads a compiled level. Only the size and modification time of the source are checked, the
+     * source itself is not read.
+     *
+     * @param file   compiled level file
+     * @param source the source json the level must be compiled from
+     * @param out    descriptor to fill (cleared first)
+     * @return the given descriptor, for chaining
+     * @throws GdxRuntimeException if the file is not a valid compiled level of this version, or
+     *                             if it was compiled from a different source
+     */
+    public static LevelDescriptor read(FileHandle file, FileHandle source, LevelDescriptor out) {
+        return read(ByteBuffer.wrap(file.readBytes()), source.length(), source.lastModified(),
+                    out);
+    }
+
+    /**
+     * reads a compiled level from a buffer, starting at its position.
+     *
+     * @param buffer         compiled level data
+     * @param sourceLength   length (in bytes) of the source json the level must be compiled from
+     * @param sourceModified modification time of the source json, 0 if unknown (e.g. packaged
+     *                       assets), in which case only the length is checked
+     * @param out            descriptor to fill (cleared first)
+     * @return the given descriptor, for chaining
+     * @throws GdxRuntimeException if the data is not a valid compiled level of this version, or
+     *                             if it was compiled from a different source
+     */
+    public static LevelDescriptor read(ByteBuffer buffer, long sourceLength, long sourceModified,
+                                       LevelDescriptor out) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException("not a compiled level");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("compiled level has version " + version + ", expected " +
+                                                  VERSION + " (recompile the levels)");
+        }
+        long length = buffer.getLong();
+        long modified = buffer.getLong();
+        if (length != sourceLength || (sourceModified != 0 && modified != sourceModified)) {
+            throw new GdxRuntimeException("compiled level is out of date (recompile the levels)");
+        }
+        int checksum = buffer.getInt();
+        int size = buffer.getInt();
+        if (size < 0 || size > buffer.remaining() ||
+                checksum(buffer, buffer.position(), size) != checksum) {
+            throw new GdxRuntimeException("compiled level is corrupt");
+        }
+        out.clear();
+        out.setPlayer(buffer.getFloat(), buffer.getFloat());
+        int sections = buffer.getInt();
+        for (int ii = 0; ii < sections; ii++) {
+            int type = buffer.getInt();
+            int count = buffer.getInt();
+            if (type < 0 || type >= LevelDescriptor.TYPE_COUNT) {
+                // unknown object type, skip its columns
+                buffer.position(buffer.position() + 5 * 4 * count);
+                continue;
+            }
+            LevelDescriptor.Columns columns = out.get(type);
+            columns.ensureCapacity(count);
+            FloatBuffer floats = buffer.asFloatBuffer();
+            floats.get(columns.x, 0, count);
+            floats.get(columns.y, 0, count);
+            floats.get(columns.width, 0, count);
+            floats.get(columns.height, 0, count);
+            buffer.position(buffer.position() + 4 * floats.position());
+            buffer.asIntBuffer().get(columns.flags, 0, count);
+            buffer.position(buffer.position() + 4 * count);
+            columns.size = count;
+        }
+        int x = buffer.getInt();
+        int y = buffer.getInt();
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        LevelDescriptor.TileGrid tiles = out.getTiles();
+        tiles.reset(x, y, width, height);
+        buffer.asIntBuffer().get(tiles.cells, 0, width * height);
+        buffer.position(buffer.position() + 4 * width * height);
+        return out;
+    }
+
+    /**
+     * encodes a level.
+     *
+     * @param level          level to encode
+     * @param sourceLength   length (in bytes) of the source json the level was parsed from
+     * @param sourceModified modification time of the source json
+     * @return the compiled level, ready to be written to a file
+     */
+    public static byte[] write(LevelDescriptor level, long sourceLength, long sourceModified) {
+        int size = 4 + 4 + 4;
+        for (int ii = 0; ii < LevelDescriptor.TYPE_COUNT; ii++) {
+            size += 4 + 4 + 5 * 4 * level.get(ii).size;
+        }
+        LevelDescriptor.TileGrid tiles = level.getTiles();
+        size += 4 * 4 + 4 * tiles.width * tiles.height;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + size);
+        buffer.position(HEADER_SIZE);
+        buffer.putFloat(level.getPlayerX());
+        buffer.putFloat(level.getPlayerY());
+        buffer.putInt(LevelDescriptor.TYPE_COUNT);
+        for (int ii = 0; ii < LevelDescriptor.TYPE_COUNT; ii++) {
+            LevelDescriptor.Columns columns = level.get(ii);
+            buffer.putInt(ii);
+            buffer.putInt(columns.size);
+            FloatBuffer floats = buffer.asFloatBuffer();
+            floats.put(columns.x, 0, columns.size);
+            floats.put(columns.y, 0, columns.size);
+            floats.put(columns.width, 0, columns.size);
+            floats.put(columns.height, 0, columns.size);
+            buffer.position(buffer.position() + 4 * floats.position());
+            buffer.asIntBuffer().put(columns.flags, 0, columns.size);
+            buffer.position(buffer.position() + 4 * columns.size);
+        }
+        buffer.putInt(tiles.x);
+        buffer.putInt(tiles.y);
+        buffer.putInt(tiles.width);
+        buffer.putInt(tiles.height);
+        buffer.asIntBuffer().put(tiles.cells, 0, tiles.width * tiles.height);
+        buffer.position(buffer.position() + 4 * tiles.width * tiles.height);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, sourceLength);
+        buffer.putLong(16, sourceModified);
+        buffer.putInt(24, checksum(buffer, HEADER_SIZE, size));
+        buffer.putInt(28, size);
+        return buffer.array();
+    }
+
+    /**
+     * computes the 32-bit FNV-1a hash of a range of bytes. This does not move the buffer position.
+     *
+     * @param buffer data
+     * @param offset index of the first byte
+     * @param length number of bytes
+     * @return the checksum
+     */
+    static int checksum(ByteBuffer buffer, int offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int ii = offset; ii < offset + length; ii++) {
+            hash ^= buffer.get(ii) & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+}
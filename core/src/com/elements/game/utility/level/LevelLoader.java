@@ -0,0 +1,53 @@
+package com.elements.game.utility.level;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.elements.game.utility.json.LevelParser;
+
+/**
+ * Loads levels the same way for the game and the tools: from the compiled level (see
+ * {@link LevelFormat}) when it exists and was compiled from the current source json, or else by
+ * parsing the source json. A compiled level that is missing, corrupt or out of date is never an
+ * error, the level is just parsed instead. The source json is only read on that fallback.
+ */
+public final class LevelLoader {
+
+    /** directory of compiled levels, relative to the assets */
+    public static final String COMPILED_DIRECTORY = "levels/compiled/";
+
+    private LevelLoader() {}
+
+    /**
+     * @param name level name, e.g. "level1"
+     * @return the compiled level file of the given level (it may not exist)
+     */
+    public static FileHandle compiledFile(String name) {
+        return Gdx.files.internal(COMPILED_DIRECTORY + name + "." + LevelFormat.EXTENSION);
+    }
+
+    /**
+     * fills a level descriptor from the compiled level if it is up to date, or else by parsing the
+     * source json.
+     *
+     * @param name   level name, e.g. "level1"
+     * @param source the Tiled json of the level
+     * @param parser parser for the source
+     * @param out    descriptor to fill
+     * @return the given descriptor, for chaining
+     */
+    public static LevelDescriptor load(String name, FileHandle source, LevelParser parser,
+                                       LevelDescriptor out) {
+        FileHandle compiled = compiledFile(name);
+        if (compiled.exists()) {
+            try {
+                return LevelFormat.read(compiled, source, out);
+            } catch (GdxRuntimeException e) {
+                Gdx.app.error("LevelLoader", "cannot use " + compiled.path() + ", parsing " +
+                        source.path() + " instead: " + e.getMessage());
+            }
+        }
+        return parser.parse(new JsonReader().parse(source), out);
+    }
+}
@@ -1,5 +1,6 @@
 package com.elements.game.utility.physics;
 
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
@@ -14,7 +15,7 @@ import java.awt.*;
  */
 public class BoxPhysicsBody extends PhysicsBody {
     /**
-     * Shape information for this box
+     * Shape information for this box, created with the first fixture (see {@link #getShape()})
      */
     protected PolygonShape shape;
 
@@ -125,7 +126,6 @@ public class BoxPhysicsBody extends PhysicsBody {
         super(x, y);
         dimension = new Vector2(width, height);
         sizeCache = new Vector2();
-        shape = new PolygonShape();
         vertices = new float[8];
         geometry = null;
 
@@ -146,7 +146,24 @@ public class BoxPhysicsBody extends PhysicsBody {
         vertices[5] = height / 2.0f;
         vertices[6] = width / 2.0f;
         vertices[7] = -height / 2.0f;
-        shape.set(vertices);
+        if (shape != null) {
+            shape.set(vertices);
+        }
+    }
+
+    /**
+     * The shape is native memory, so it is only allocated once it is needed. A box that never gets
+     * a body (e.g. a scenery tile) never allocates one, and the box itself can be created on any
+     * thread.
+     *
+     * @return the shape of this box
+     */
+    protected PolygonShape getShape() {
+        if (shape == null) {
+            shape = new PolygonShape();
+            shape.set(vertices);
+        }
+        return shape;
     }
 
     @Override
@@ -158,7 +175,7 @@ public class BoxPhysicsBody extends PhysicsBody {
         releaseFixtures();
 
         // Create the fixture
-        fixture.shape = shape;
+        fixture.shape = getShape();
         geometry = body.createFixture(fixture);
         markDirty(false);
     }
@@ -171,7 +188,12 @@ public class BoxPhysicsBody extends PhysicsBody {
         }
     }
 
+    @Override
+    public Rectangle computeBounds(Rectangle out) {
+        return computeBoxBounds(dimension.x, dimension.y, out);
+    }
+
     public void debug(GameCanvas canvas, Vector2 drawScale){
-        canvas.drawPhysics(shape,Color.RED,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
+        canvas.drawPhysics(getShape(),Color.RED,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
     }
 }
\ No newline at end of file
@@ -425,6 +425,12 @@ public class CapsulePhysicsBody extends PhysicsBody {
         }
     }
 
+    @Override
+    public Rectangle computeBounds(Rectangle out) {
+        // the capsule never leaves its bounding box
+        return computeBoxBounds(dimension.x, dimension.y, out);
+    }
+
     public void debug(GameCanvas canvas, Vector2 drawScale){
         canvas.drawPhysics(shape,Color.BLUE,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
         if (cap1 != null) {
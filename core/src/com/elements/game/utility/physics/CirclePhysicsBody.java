@@ -1,5 +1,6 @@
 package com.elements.game.utility.physics;
 
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.CircleShape;
 import com.badlogic.gdx.physics.box2d.Fixture;
@@ -81,6 +82,12 @@ public class CirclePhysicsBody extends PhysicsBody {
         }
     }
 
+    @Override
+    public Rectangle computeBounds(Rectangle out) {
+        float radius = shape.getRadius();
+        return out.set(getX() - radius, getY() - radius, 2 * radius, 2 * radius);
+    }
+
     @Override
     public void debug(GameCanvas canvas, Vector2 drawScale) {
         canvas.drawPhysics(shape,Color.YELLOW,getX(),getY(),drawScale.x,drawScale.y);
@@ -1,5 +1,6 @@
 package com.elements.game.utility.physics;
 
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.physics.box2d.Joint;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
@@ -26,6 +27,11 @@ public abstract class CompositePhysicsBody extends PhysicsBody {
      */
     protected Array<Joint> joints;
 
+    /**
+     * A cache value for computing the bounds of the component bodies
+     */
+    private final Rectangle boundsCache = new Rectangle();
+
     /// Physics Bodies
 
     /**
@@ -121,6 +127,18 @@ public abstract class CompositePhysicsBody extends PhysicsBody {
         // do nothing
     }
 
+    @Override
+    public Rectangle computeBounds(Rectangle out) {
+        if (physicsBodies.size == 0) {
+            return out.set(getX(), getY(), 0, 0);
+        }
+        physicsBodies.get(0).computeBounds(out);
+        for (int ii = 1; ii < physicsBodies.size; ii++) {
+            out.merge(physicsBodies.get(ii).computeBounds(boundsCache));
+        }
+        return out;
+    }
+
     /**
      * Creates the joints for this object. <br>
      * This method is executed as part of activePhysics. This method must be
@@ -1,5 +1,7 @@
 package com.elements.game.utility.physics;
 
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
@@ -11,6 +13,18 @@ import com.elements.game.view.GameCanvas;
  * into a single interface.
  */
 public abstract class PhysicsBody {
+    /**
+     * Told whenever a physics body becomes dirty, so that only dirty bodies need to be updated.
+     */
+    public interface DirtyListener {
+        /**
+         * Called when a body becomes dirty (see {@link #markDirty(boolean)})
+         *
+         * @param body the body whose shape information must be updated
+         */
+        public void bodyDirtied(PhysicsBody body);
+    }
+
     /**
      * The physics body for Box2D.
      */
@@ -51,6 +65,16 @@ public abstract class PhysicsBody {
      */
     protected Vector2 centroidCache = new Vector2();
 
+    /**
+     * The body position at the start of the most recent physics step (for render interpolation)
+     */
+    protected Vector2 previousPosition = new Vector2();
+
+    /**
+     * The body angle at the start of the most recent physics step (for render interpolation)
+     */
+    protected float previousAngle;
+
     /**
      * A tag for debugging purposes
      */
@@ -66,6 +90,11 @@ public abstract class PhysicsBody {
      */
     private boolean isDirty;
 
+    /**
+     * Told when the object becomes dirty (may be null)
+     */
+    private DirtyListener dirtyListener;
+
     /**
      * Create a new physics object at the origin.
      */
@@ -103,6 +132,7 @@ public abstract class PhysicsBody {
         // body initially null, until physics body activated by adding to
         // physics world
         body = null;
+        previousPosition.set(x, y);
     }
 
     /**
@@ -242,6 +272,45 @@ public abstract class PhysicsBody {
         return body != null ? body.getLinearVelocity() : velocityCache.set(bodyInfo.linearVelocity);
     }
 
+    /**
+     * Records the current transform as the previous transform. This should be called right before
+     * each physics step so that rendering can blend between the last two simulated states.
+     */
+    public void snapshotTransform() {
+        previousPosition.set(getPosition());
+        previousAngle = getAngle();
+    }
+
+    /**
+     * Blends the x-coordinate of the previous and current physics states.
+     *
+     * @param alpha interpolation factor in [0,1] (0 = previous state, 1 = current state)
+     * @return the interpolated x-coordinate for this physics body
+     */
+    public float getInterpolatedX(float alpha) {
+        return previousPosition.x + (getX() - previousPosition.x) * alpha;
+    }
+
+    /**
+     * Blends the y-coordinate of the previous and current physics states.
+     *
+     * @param alpha interpolation factor in [0,1] (0 = previous state, 1 = current state)
+     * @return the interpolated y-coordinate for this physics body
+     */
+    public float getInterpolatedY(float alpha) {
+        return previousPosition.y + (getY() - previousPosition.y) * alpha;
+    }
+
+    /**
+     * Blends the angle of the previous and current physics states.
+     *
+     * @param alpha interpolation factor in [0,1] (0 = previous state, 1 = current state)
+     * @return the interpolated angle for this physics body (in radians)
+     */
+    public float getInterpolatedAngle(float alpha) {
+        return previousAngle + (getAngle() - previousAngle) * alpha;
+    }
+
     /**
      * Sets the linear velocity for this physics body <br> This method does not keep a reference to
      * the vector parameter.
@@ -662,9 +731,69 @@ public abstract class PhysicsBody {
             fixture.filter.groupIndex = 0;
             fixture.filter.maskBits = -1;
         }
+        updateFixtureFilters();
+    }
+
+    /**
+     * The category is the bit (or bits) that other bodies test against their masks. <br> Two bodies
+     * only collide if each one's category is in the other one's mask. Pairs that fail this test
+     * are rejected by the broad-phase, before any contact is created.
+     *
+     * @return the collision category bits of this body
+     */
+    public short getCollisionCategory() {
+        return fixture.filter.categoryBits;
+    }
+
+    /**
+     * Sets the collision category bits of this body. See {@link #getCollisionCategory()}.
+     *
+     * @param value the collision category bits of this body
+     */
+    public void setCollisionCategory(short value) {
+        fixture.filter.categoryBits = value;
+        updateFixtureFilters();
+    }
+
+    /**
+     * @return the categories of bodies this body may collide with
+     */
+    public short getCollisionMask() {
+        return fixture.filter.maskBits;
+    }
+
+    /**
+     * Sets the categories of bodies this body may collide with. See
+     * {@link #getCollisionCategory()}.
+     *
+     * @param value the categories of bodies this body may collide with
+     */
+    public void setCollisionMask(short value) {
+        fixture.filter.maskBits = value;
+        updateFixtureFilters();
+    }
+
+    /**
+     * Copies the filter of this body into the given fixture definition. Subclasses that build
+     * fixtures from their own {@link FixtureDef} (rather than {@link #fixture}) must call this so
+     * the extra fixtures are filtered like the rest of the body.
+     *
+     * @param def fixture definition to update
+     */
+    protected void copyFilter(FixtureDef def) {
+        def.filter.categoryBits = fixture.filter.categoryBits;
+        def.filter.maskBits = fixture.filter.maskBits;
+        def.filter.groupIndex = fixture.filter.groupIndex;
+    }
+
+    /**
+     * Pushes the filter of this body onto its existing fixtures (if any). Box2D re-filters the
+     * affected contacts on the next step.
+     */
+    private void updateFixtureFilters() {
         if (body != null) {
             for (Fixture f : body.getFixtureList()) {
-                f.setFilterData(value);
+                f.setFilterData(fixture.filter);
             }
         }
     }
@@ -789,9 +918,25 @@ public abstract class PhysicsBody {
      * @param value whether the shape information must be updated.
      */
     public void markDirty(boolean value) {
+        if (value && !isDirty && dirtyListener != null) {
+            dirtyListener.bodyDirtied(this);
+        }
         isDirty = value;
     }
 
+    /**
+     * Sets the listener told whenever this body becomes dirty. If the body is dirty already, the
+     * listener is told right away.
+     *
+     * @param listener the listener to tell, null for none
+     */
+    public void setDirtyListener(DirtyListener listener) {
+        dirtyListener = listener;
+        if (isDirty && listener != null) {
+            listener.bodyDirtied(this);
+        }
+    }
+
     /**
      * @return the Box2D body for this object.
      */
@@ -834,6 +979,8 @@ public abstract class PhysicsBody {
         // Only initialize if a body was created.
         if (body != null) {
             createFixtures();
+            // nothing to interpolate from yet
+            snapshotTransform();
             return true;
         }
 
@@ -880,7 +1027,7 @@ public abstract class PhysicsBody {
     /**
      * Updates the body's physics state. This method should be called after collisions have been
      * resolved. Collisions may result in changes to physics geometry so fixtures need to be
-     * updated.
+     * updated. This does nothing unless the body is dirty (see {@link #setDirtyListener}).
      *
      * @param delta Timing values from game loop
      */
@@ -891,6 +1038,38 @@ public abstract class PhysicsBody {
         }
     }
 
+    /**
+     * Computes the world-space Axis-Aligned-Bounding-Box (AABB) enclosing every fixture of this
+     * body. The box may be slightly larger than the exact shape but never smaller.
+     *
+     * @param out rectangle to store the result in
+     * @return the given rectangle, for chaining
+     */
+    public abstract Rectangle computeBounds(Rectangle out);
+
+    /**
+     * Computes the world-space AABB of a width x height rectangle centered at this body's position
+     * and rotated by this body's angle.
+     *
+     * @param width  width of the (local) rectangle
+     * @param height height of the (local) rectangle
+     * @param out    rectangle to store the result in
+     * @return the given rectangle, for chaining
+     */
+    protected Rectangle computeBoxBounds(float width, float height, Rectangle out) {
+        float angle = getAngle();
+        float halfWidth = width / 2.0f;
+        float halfHeight = height / 2.0f;
+        if (angle != 0) {
+            float cos = Math.abs(MathUtils.cos(angle));
+            float sin = Math.abs(MathUtils.sin(angle));
+            float rotatedHalfWidth = halfWidth * cos + halfHeight * sin;
+            halfHeight = halfWidth * sin + halfHeight * cos;
+            halfWidth = rotatedHalfWidth;
+        }
+        return out.set(getX() - halfWidth, getY() - halfHeight, 2 * halfWidth, 2 * halfHeight);
+    }
+
     /**
      * output debug information to the canvas
      * @param canvas rendering canvas
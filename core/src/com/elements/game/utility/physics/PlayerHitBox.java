@@ -91,6 +91,8 @@ public class PlayerHitBox extends CapsulePhysicsBody {
         FixtureDef sensorDef = new FixtureDef();
         sensorDef.density = getDensity();
         sensorDef.isSensor = true;
+        // the sensor filters contacts the same way as the rest of the body
+        copyFilter(sensorDef);
         groundSensorShape = new PolygonShape();
         groundSensorShape.setAsBox(groundSensorWidthRatio * getWidth() / 2.0f, groundSensorHeight,
                                    sensorCenter, 0.0f);
@@ -1,6 +1,8 @@
 package com.elements.game.utility.physics;
 
 import com.badlogic.gdx.math.EarClippingTriangulator;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
@@ -320,6 +322,25 @@ public class PolygonPhysicsBody extends PhysicsBody {
         }
     }
 
+    @Override
+    public Rectangle computeBounds(Rectangle out) {
+        float cos = MathUtils.cos(getAngle());
+        float sin = MathUtils.sin(getAngle());
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int ii = 0; ii < points.length; ii += 2) {
+            float x = points[ii] * cos - points[ii + 1] * sin;
+            float y = points[ii] * sin + points[ii + 1] * cos;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        return out.set(getX() + minX, getY() + minY, maxX - minX, maxY - minY);
+    }
+
     @Override
     public void debug(GameCanvas canvas, Vector2 drawScale) {
         for(PolygonShape tri : shapes) {
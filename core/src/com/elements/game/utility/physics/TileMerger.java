@@ -0,0 +1,155 @@
+package com.elements.game.utility.physics;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.LongMap;
+
+import java.util.Arrays;
+
+/**
+ * Merges grid-aligned, same-sized rectangular tiles into as few large rectangles as possible. This
+ * is used to build the physics geometry of a level: one large static box has a single broad-phase
+ * proxy and no internal seams for other bodies to snag on, unlike a row of individual tiles. <br>
+ * Tiles are grouped by size and grid alignment. Within a group, a greedy pass takes the lowest
+ * unmerged tile, extends it as far right as possible, and then as far up as the whole run allows.
+ * All rectangles are given as (center x, center y, width, height).
+ */
+public final class TileMerger {
+
+    /** tolerance when comparing tile sizes and grid alignment (in game units) */
+    private static final float EPSILON = 1e-3f;
+
+    /** bias that keeps the packed column non-negative, so it never borrows from the row */
+    private static final long BIAS = 1L << 31;
+
+    private TileMerger() {}
+
+    /**
+     * merges the given tiles into rectangles.
+     *
+     * @param tiles tile rectangles, 4 floats (center x, center y, width, height) per tile
+     * @param count number of tiles
+     * @param out   array to append the merged rectangles to, 4 floats per rectangle
+     * @return the given array, for chaining
+     */
+    public static FloatArray merge(float[] tiles, int count, FloatArray out) {
+        // tile groups: each entry is (width, height, x-offset, y-offset) of the group's grid
+        Array<float[]> groups = new Array<>();
+        int[] groupOf = new int[count];
+        for (int ii = 0; ii < count; ii++) {
+            float width = tiles[4 * ii + 2];
+            float height = tiles[4 * ii + 3];
+            float offsetX = offset(tiles[4 * ii], width);
+            float offsetY = offset(tiles[4 * ii + 1], height);
+            int group = 0;
+            while (group < groups.size && !matches(groups.get(group), width, height, offsetX,
+                                                   offsetY)) {
+                group++;
+            }
+            if (group == groups.size) {
+                groups.add(new float[]{width, height, offsetX, offsetY});
+            }
+            groupOf[ii] = group;
+        }
+
+        LongMap<Boolean> cells = new LongMap<>();
+        LongArray order = new LongArray();
+        for (int group = 0; group < groups.size; group++) {
+            float[] grid = groups.get(group);
+            cells.clear();
+            order.clear();
+            for (int ii = 0; ii < count; ii++) {
+                if (groupOf[ii] != group) {
+                    continue;
+                }
+                long key = key(Math.round((tiles[4 * ii] - grid[2]) / grid[0]),
+                               Math.round((tiles[4 * ii + 1] - grid[3]) / grid[1]));
+                // duplicated tiles collapse into one cell
+                if (!cells.containsKey(key)) {
+                    cells.put(key, Boolean.FALSE);
+                    order.add(key);
+                }
+            }
+            // bottom row first, left to right
+            Arrays.sort(order.items, 0, order.size);
+            for (int ii = 0; ii < order.size; ii++) {
+                long start = order.get(ii);
+                if (cells.get(start)) {
+                    continue;
+                }
+                int column = column(start);
+                int row = row(start);
+                int columns = 1;
+                while (isFree(cells, column + columns, row)) {
+                    columns++;
+                }
+                int rows = 1;
+                while (isRowFree(cells, column, columns, row + rows)) {
+                    rows++;
+                }
+                for (int r = row; r < row + rows; r++) {
+                    for (int c = column; c < column + columns; c++) {
+                        cells.put(key(c, r), Boolean.TRUE);
+                    }
+                }
+                // tile centers are at offset + index * size
+                float width = columns * grid[0];
+                float height = rows * grid[1];
+                out.add(grid[2] + column * grid[0] - grid[0] / 2 + width / 2);
+                out.add(grid[3] + row * grid[1] - grid[1] / 2 + height / 2);
+                out.add(width);
+                out.add(height);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @return the position of a tile center relative to the grid of its size, in [0, size)
+     */
+    private static float offset(float center, float size) {
+        float offset = center % size;
+        if (offset < 0) {
+            offset += size;
+        }
+        // treat offsets that are (almost) a full tile as zero
+        return size - offset < EPSILON ? 0 : offset;
+    }
+
+    private static boolean matches(float[] grid, float width, float height, float offsetX,
+                                   float offsetY) {
+        return Math.abs(grid[0] - width) < EPSILON && Math.abs(grid[1] - height) < EPSILON &&
+                Math.abs(grid[2] - offsetX) < EPSILON && Math.abs(grid[3] - offsetY) < EPSILON;
+    }
+
+    private static boolean isFree(LongMap<Boolean> cells, int column, int row) {
+        Boolean merged = cells.get(key(column, row));
+        return merged != null && !merged;
+    }
+
+    private static boolean isRowFree(LongMap<Boolean> cells, int column, int columns, int row) {
+        for (int c = column; c < column + columns; c++) {
+            if (!isFree(cells, c, row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * packs a cell into a long: the (signed) row in the high half and the biased column in the low
+     * half. Comparing keys as signed longs then orders cells row by row, then column by column.
+     */
+    private static long key(int column, int row) {
+        return ((long) row << 32) | (column + BIAS);
+    }
+
+    private static int column(long key) {
+        return (int) ((key & 0xFFFFFFFFL) - BIAS);
+    }
+
+    private static int row(long key) {
+        return (int) (key >> 32);
+    }
+}
@@ -0,0 +1,311 @@
+package com.elements.game.utility.profiling;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Measures the last {@link #WINDOW} frames: the frame time, the time spent in every section of a
+ * frame (see {@link #start}) and a few counters. While the profiler is disabled every call returns
+ * right away, so the measuring calls can stay in the game loop.
+ * <p>
+ * A section may run several times a frame (e.g. one physics step after the other), its times are
+ * added up. The Java heap is read once a frame, a drop in heap usage is counted as a garbage
+ * collection.
+ */
+public class FrameProfiler {
+
+    /** number of frames kept */
+    public static final int WINDOW = 600;
+
+    /** sections of a frame */
+    public static final int INPUT = 0;
+    public static final int PHYSICS = 1;
+    public static final int HIT_BOXES = 2;
+    public static final int RENDER = 3;
+    public static final int FLUSH = 4;
+    public static final int SECTION_COUNT = 5;
+
+    /** names of the sections, as shown in the overlay and in the CSV header */
+    public static final String[] SECTION_NAMES = {"input", "world.step", "hit-boxes", "render",
+            "flush"};
+
+    /** counters of a frame */
+    public static final int BODIES = 0;
+    public static final int CONTACTS = 1;
+    public static final int RENDER_CALLS = 2;
+    public static final int SPRITES = 3;
+    public static final int COUNTER_COUNT = 4;
+
+    /** names of the counters, as shown in the overlay and in the CSV header */
+    public static final String[] COUNTER_NAMES = {"bodies", "contacts", "render calls",
+            "sprites"};
+
+    private boolean enabled;
+
+    /** time (ns) at which the current frame started, 0 if no frame started yet */
+    private long frameStart;
+
+    /** time (ms) between the starts of the previous and the current frame, -1 if unknown */
+    private float currentFrameMillis;
+
+    /** time (ns) at which every section was last started */
+    private final long[] sectionStart;
+
+    /** time (ns) spent in every section during the current frame */
+    private final long[] sectionTime;
+
+    /** heap used (bytes) at the end of the previous frame, -1 if unknown */
+    private long lastHeap;
+
+    /** total number of frames recorded */
+    private long frames;
+
+    // BEGIN-REGION ================== HISTORY =================================
+    // every array holds the last WINDOW frames, frame f at index f % WINDOW
+
+    /** frame times (ms) */
+    private final float[] frameMillis;
+
+    /** section times (ms), by section */
+    private final float[][] sectionMillis;
+
+    /** counters, by counter */
+    private final int[][] counters;
+
+    /** change of the heap used (bytes) */
+    private final long[] heapDelta;
+
+    /** whether the heap usage dropped during the frame */
+    private final boolean[] collected;
+
+    // END-REGION ==================== HISTORY =================================
+
+    /** sorted copy of the frame times, for the percentiles */
+    private final float[] sorted;
+
+    /**
+     * creates a disabled profiler
+     */
+    public FrameProfiler() {
+        sectionStart = new long[SECTION_COUNT];
+        sectionTime = new long[SECTION_COUNT];
+        frameMillis = new float[WINDOW];
+        sectionMillis = new float[SECTION_COUNT][WINDOW];
+        counters = new int[COUNTER_COUNT][WINDOW];
+        heapDelta = new long[WINDOW];
+        collected = new boolean[WINDOW];
+        sorted = new float[WINDOW];
+        lastHeap = -1;
+        currentFrameMillis = -1;
+    }
+
+    /**
+     * @return whether the profiler measures anything
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * enables or disables the profiler. Enabling it starts over with an empty history.
+     *
+     * @param enabled whether to measure frames
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            frames = 0;
+            frameStart = 0;
+            currentFrameMillis = -1;
+            lastHeap = -1;
+            Arrays.fill(sectionTime, 0);
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * starts a frame. The frame time is the time since the previous frame started (like the delta
+     * time of the game loop), so it includes the time spent outside the game loop, e.g. waiting
+     * for vsync.
+     */
+    public void beginFrame() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        currentFrameMillis = frameStart == 0 ? -1 : (now - frameStart) / 1e6f;
+        frameStart = now;
+    }
+
+    /**
+     * records the measures of the frame started by {@link #beginFrame()}. The first frame after
+     * enabling the profiler has no frame time and is not recorded.
+     */
+    public void endFrame() {
+        if (!enabled) {
+            return;
+        }
+        if (currentFrameMillis < 0) {
+            Arrays.fill(sectionTime, 0);
+            return;
+        }
+        int index = (int) (frames % WINDOW);
+        for (int s = 0; s < SECTION_COUNT; s++) {
+            sectionMillis[s][index] = sectionTime[s] / 1e6f;
+            sectionTime[s] = 0;
+        }
+        long heap = Gdx.app.getJavaHeap();
+        heapDelta[index] = lastHeap < 0 ? 0 : heap - lastHeap;
+        collected[index] = heapDelta[index] < 0;
+        lastHeap = heap;
+        frameMillis[index] = currentFrameMillis;
+        frames++;
+    }
+
+    /**
+     * starts timing a section of the current frame
+     *
+     * @param section section index, e.g. {@link #PHYSICS}
+     */
+    public void start(int section) {
+        if (enabled) {
+            sectionStart[section] = System.nanoTime();
+        }
+    }
+
+    /**
+     * stops timing a section, adding the time since {@link #start} to the current frame
+     *
+     * @param section section index
+     */
+    public void stop(int section) {
+        if (enabled) {
+            sectionTime[section] += System.nanoTime() - sectionStart[section];
+        }
+    }
+
+    /**
+     * sets a counter of the current frame
+     *
+     * @param counter counter index, e.g. {@link #BODIES}
+     * @param value   value of the counter
+     */
+    public void count(int counter, int value) {
+        if (enabled) {
+            counters[counter][(int) (frames % WINDOW)] = value;
+        }
+    }
+
+    /**
+     * @return number of frames in the history
+     */
+    public int getFrameCount() {
+        return (int) Math.min(frames, WINDOW);
+    }
+
+    /**
+     * @param percentile percentile in [0, 100]
+     * @return the given percentile of the frame times (ms) in the history, 0 if there is none
+     */
+    public float getFramePercentile(float percentile) {
+        int size = getFrameCount();
+        if (size == 0) {
+            return 0;
+        }
+        System.arraycopy(frameMillis, 0, sorted, 0, size);
+        Arrays.sort(sorted, 0, size);
+        int rank = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, rank))];
+    }
+
+    /**
+     * @param section section index
+     * @return average time (ms) spent in a section per frame, over the history
+     */
+    public float getSectionAverage(int section) {
+        int size = getFrameCount();
+        float sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += sectionMillis[section][i];
+        }
+        return size == 0 ? 0 : sum / size;
+    }
+
+    /**
+     * @param counter counter index
+     * @return value of a counter in the last recorded frame
+     */
+    public int getCounter(int counter) {
+        return frames == 0 ? 0 : counters[counter][(int) ((frames - 1) % WINDOW)];
+    }
+
+    /**
+     * @return average change of the heap used (bytes) per frame, over the history
+     */
+    public long getHeapDeltaAverage() {
+        int size = getFrameCount();
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += heapDelta[i];
+        }
+        return size == 0 ? 0 : sum / size;
+    }
+
+    /**
+     * @return number of frames of the history in which the heap usage dropped
+     */
+    public int getCollectionCount() {
+        int size = getFrameCount();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (collected[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * writes the history to a CSV file, one row per frame (oldest first), replacing the file
+     *
+     * @param file file to write
+     */
+    public void writeCsv(FileHandle file) {
+        Writer out = file.writer(false, "UTF-8");
+        try {
+            StringBuilder row = new StringBuilder("frame,frame_ms");
+            for (String name : SECTION_NAMES) {
+                row.append(',').append(name.replace(' ', '_')).append("_ms");
+            }
+            for (String name : COUNTER_NAMES) {
+                row.append(',').append(name.replace(' ', '_'));
+            }
+            row.append(",heap_delta_bytes,gc\n");
+            out.write(row.toString());
+            int size = getFrameCount();
+            long first = frames - size;
+            for (long f = first; f < frames; f++) {
+                int index = (int) (f % WINDOW);
+                row.setLength(0);
+                row.append(f - first).append(',').append(frameMillis[index]);
+                for (int s = 0; s < SECTION_COUNT; s++) {
+                    row.append(',').append(sectionMillis[s][index]);
+                }
+                for (int c = 0; c < COUNTER_COUNT; c++) {
+                    row.append(',').append(counters[c][index]);
+                }
+                row.append(',').append(heapDelta[index]).append(',')
+                        .append(collected[index] ? 1 : 0).append('\n');
+                out.write(row.toString());
+            }
+        } catch (IOException e) {
+            Gdx.app.error("FrameProfiler", "cannot write " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+}
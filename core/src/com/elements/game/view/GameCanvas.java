@@ -32,7 +32,11 @@ public class GameCanvas {
         /**
          * We are drawing outlines
          */
-        DEBUG
+        DEBUG,
+        /**
+         * We are drawing pre-built sprite caches
+         */
+        CACHED
     }
 
     /**
@@ -73,6 +77,11 @@ public class GameCanvas {
      */
     private ShapeRenderer debugRender;
 
+    /**
+     * Sprite cache being drawn in the current CACHED pass (owned by the caller)
+     */
+    private SpriteCache activeCache;
+
     /**
      * Track whether canvas is active (for error checking)
      */
@@ -83,6 +92,16 @@ public class GameCanvas {
      */
     private BlendState blend;
 
+    /**
+     * Number of sprites submitted since the last {@link #clear()}
+     */
+    private int spriteCount;
+
+    /**
+     * Number of sprite batch flushes (OpenGL draw calls) since the last {@link #clear()}
+     */
+    private int renderCalls;
+
     /**
      * Value to cache window width (if we are currently full screen)
      */
@@ -115,9 +134,22 @@ public class GameCanvas {
      * <p> This constructor initializes all the necessary graphics objects.
      */
     public GameCanvas() {
+        this(new PolygonSpriteBatch(), new ShapeRenderer());
+    }
+
+    /**
+     * Creates a new GameCanvas drawing with the given graphics objects.
+     * <p> Subclasses that record or redirect drawing instead of submitting it to OpenGL (e.g.
+     * headless benchmarks) may pass null, as long as they override every method they use that
+     * touches the graphics objects.
+     *
+     * @param spriteBatch The sprite batch to draw textures and polygons with
+     * @param debugRender The shape renderer to draw debug outlines with
+     */
+    protected GameCanvas(PolygonSpriteBatch spriteBatch, ShapeRenderer debugRender) {
         active = DrawPass.INACTIVE;
-        spriteBatch = new PolygonSpriteBatch();
-        debugRender = new ShapeRenderer();
+        this.spriteBatch = spriteBatch;
+        this.debugRender = debugRender;
 
         // Initialize the cache objects
         holder = new TextureRegion();
@@ -332,12 +364,47 @@ public class GameCanvas {
      * Clear the screen, so we can start a new animation frame
      */
     public void clear() {
+        spriteCount = 0;
+        renderCalls = 0;
         // sets screen to all black
         Gdx.gl.glClearColor(0, 0, 0, 1.0f);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
     }
 
 
+    /**
+     * Returns the number of sprites (textures, regions and polygons) drawn since the
+     * last call to {@link #clear()}.
+     *
+     * @return the number of sprites drawn this frame
+     */
+    public int getSpriteCount() {
+        return spriteCount;
+    }
+
+    /**
+     * Returns the number of times the sprite batch was flushed to the graphics card
+     * since the last call to {@link #clear()}, counting only completed passes. Each
+     * flush is one OpenGL draw call; the batch flushes whenever the texture changes,
+     * so drawing from a single atlas page keeps this number low. Draw calls of
+     * sprite caches (see {@link #beginCache}) are included.
+     *
+     * @return the number of sprite batch draw calls this frame
+     */
+    public int getRenderCalls() {
+        return renderCalls;
+    }
+
+    /**
+     * Returns the largest number of sprites sent to the graphics card in a single
+     * draw call since this canvas was created.
+     *
+     * @return the largest sprite batch size so far
+     */
+    public int getMaxSpritesInBatch() {
+        return spriteBatch.maxSpritesInBatch;
+    }
+
     // BEGIN-REGION ================ STANDARD-DRAW =============================
 
     /**
@@ -357,6 +424,8 @@ public class GameCanvas {
      */
     public void end() {
         spriteBatch.end();
+        // the batch resets this counter on begin(), so collect it for every pass
+        renderCalls += spriteBatch.renderCalls;
         active = DrawPass.INACTIVE;
     }
 
@@ -385,6 +454,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
+        spriteCount++;
         spriteBatch.draw(image, x, y);
     }
 
@@ -417,6 +487,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
+        spriteCount++;
         spriteBatch.draw(image, x, y, width, height);
     }
 
@@ -557,6 +628,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
+        spriteCount++;
         spriteBatch.draw(region, x, y);
     }
 
@@ -590,6 +662,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
+        spriteCount++;
         spriteBatch.draw(region, x, y, width, height);
     }
 
@@ -624,6 +697,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
+        spriteCount++;
         spriteBatch.draw(region, x - ox, y - oy, width, height);
     }
 
@@ -671,6 +745,7 @@ public class GameCanvas {
         // For now, it is better to set the affine transform directly.
         computeTransform(ox, oy, x, y, angle, sx, sy);
         spriteBatch.setColor(tint);
+        spriteCount++;
         spriteBatch.draw(region, region.getRegionWidth(),
                 region.getRegionHeight(), local);
     }
@@ -708,6 +783,7 @@ public class GameCanvas {
         local.set(affine);
         local.translate(-ox, -oy);
         spriteBatch.setColor(tint);
+        spriteCount++;
         spriteBatch.draw(region, region.getRegionWidth(),
                 region.getRegionHeight(), local);
     }
@@ -745,6 +821,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
+        spriteCount++;
         spriteBatch.draw(region, x, y);
     }
 
@@ -785,6 +862,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
+        spriteCount++;
         spriteBatch.draw(region, x, y, width, height);
     }
 
@@ -827,6 +905,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
+        spriteCount++;
         spriteBatch.draw(region, x - ox, y - oy, width, height);
     }
 
@@ -870,6 +949,7 @@ public class GameCanvas {
 
         TextureRegion bounds = region.getRegion();
         spriteBatch.setColor(tint);
+        spriteCount++;
         spriteBatch.draw(region, x, y, ox, oy, bounds.getRegionWidth(),
                 bounds.getRegionHeight(), sx, sy,
                 180.0f * angle / (float) Math.PI);
@@ -914,6 +994,7 @@ public class GameCanvas {
         computeVertices(local, region.getVertices());
 
         spriteBatch.setColor(tint);
+        spriteCount++;
         spriteBatch.draw(region, 0, 0);
 
         // Invert and restore
@@ -939,6 +1020,24 @@ public class GameCanvas {
         font.draw(spriteBatch, layout, x, y);
     }
 
+    /**
+     * Draws text laid out beforehand. Unlike {@link #drawText(String, BitmapFont, float, float)},
+     * nothing is allocated, so this suits text drawn every frame.
+     *
+     * @param layout The laid out text (see {@link GlyphLayout#setText})
+     * @param font   The font the text was laid out with
+     * @param x      The x-coordinate of the upper-left corner
+     * @param y      The y-coordinate of the upper-left corner
+     */
+    public void drawText(GlyphLayout layout, BitmapFont font, float x, float y) {
+        if (active != DrawPass.STANDARD) {
+            Gdx.app.error("GameCanvas", "Cannot draw without active begin()",
+                    new IllegalStateException());
+            return;
+        }
+        font.draw(spriteBatch, layout, x, y);
+    }
+
     /**
      * Draws text centered on the screen.
      *
@@ -962,6 +1061,61 @@ public class GameCanvas {
     // END-REGION ================== STANDARD-DRAW =============================
 
 
+    // BEGIN-REGION ================= CACHED-DRAW ==============================
+
+    /**
+     * Start a drawing sequence of pre-built sprite caches.<br>
+     * A {@link SpriteCache} keeps its geometry on the graphics card, so drawing a
+     * cache is a single draw call no matter how many sprites it holds. This pass
+     * uses the same blend function as the standard pass. It cannot be nested
+     * inside another pass.
+     *
+     * @param camera the game camera
+     * @param cache  the sprite cache to draw from
+     */
+    public void beginCache(Camera camera, SpriteCache cache) {
+        if (active != DrawPass.INACTIVE) {
+            Gdx.app.error("GameCanvas", "Cannot begin a cache pass while drawing "
+                    + "active", new IllegalStateException());
+            return;
+        }
+        activeCache = cache;
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(spriteBatch.getBlendSrcFunc(),
+                spriteBatch.getBlendDstFunc());
+        cache.setProjectionMatrix(camera.combined);
+        cache.begin();
+        active = DrawPass.CACHED;
+    }
+
+    /**
+     * Draws a single cache of the sprite cache given to {@link #beginCache}.
+     *
+     * @param cacheId the id returned by {@link SpriteCache#endCache()}
+     */
+    public void drawCache(int cacheId) {
+        if (active != DrawPass.CACHED) {
+            Gdx.app.error("GameCanvas", "Cannot draw without active beginCache()",
+                    new IllegalStateException());
+            return;
+        }
+        activeCache.draw(cacheId);
+    }
+
+    /**
+     * Ends a drawing sequence of sprite caches.
+     */
+    public void endCache() {
+        activeCache.end();
+        renderCalls += activeCache.renderCalls;
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+        activeCache = null;
+        active = DrawPass.INACTIVE;
+    }
+    // END-REGION =================== CACHED-DRAW ==============================
+
+
+
     // BEGIN-REGION ================ DEBUG-DRAW ================================
 
     /**
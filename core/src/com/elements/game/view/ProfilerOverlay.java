@@ -0,0 +1,110 @@
+package com.elements.game.view;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.elements.game.utility.profiling.FrameProfiler;
+
+/**
+ * Draws the measures of a {@link FrameProfiler} in the top left corner of the screen. The text is
+ * only laid out again every {@link #REFRESH_FRAMES} frames, so it stays readable and adds little
+ * to the frames it measures.
+ */
+public class ProfilerOverlay {
+
+    /** frames between two updates of the text */
+    private static final int REFRESH_FRAMES = 15;
+
+    /** distance (in screen units) of the text from the corner of the screen */
+    private static final float PADDING = 10;
+
+    private final FrameProfiler profiler;
+
+    /** libGDX's built-in font, so the overlay needs no asset */
+    private final BitmapFont font;
+
+    private final GlyphLayout layout;
+
+    private final StringBuilder text;
+
+    /** camera with screen units, independent of the game camera */
+    private final OrthographicCamera camera;
+
+    /** frames until the text is updated */
+    private int refresh;
+
+    /**
+     * @param profiler the profiler to show
+     */
+    public ProfilerOverlay(FrameProfiler profiler) {
+        this.profiler = profiler;
+        font = new BitmapFont();
+        layout = new GlyphLayout();
+        text = new StringBuilder();
+        camera = new OrthographicCamera();
+    }
+
+    /**
+     * draws the overlay. It must be drawn outside of any drawing pass.
+     *
+     * @param canvas drawing context
+     * @param width  width of the screen (in the units of the screen's viewport)
+     * @param height height of the screen (in the units of the screen's viewport)
+     */
+    public void draw(GameCanvas canvas, float width, float height) {
+        if (refresh <= 0) {
+            updateText();
+            refresh = REFRESH_FRAMES;
+        }
+        refresh--;
+        if (camera.viewportWidth != width || camera.viewportHeight != height) {
+            camera.setToOrtho(false, width, height);
+        }
+        canvas.begin(camera);
+        canvas.drawText(layout, font, PADDING, height - PADDING);
+        canvas.end();
+    }
+
+    private void updateText() {
+        text.setLength(0);
+        text.append("frame ms  p50 ");
+        appendMillis(profiler.getFramePercentile(50));
+        text.append("  p95 ");
+        appendMillis(profiler.getFramePercentile(95));
+        text.append("  p99 ");
+        appendMillis(profiler.getFramePercentile(99));
+        text.append('\n');
+        for (int s = 0; s < FrameProfiler.SECTION_COUNT; s++) {
+            text.append(FrameProfiler.SECTION_NAMES[s]).append(' ');
+            appendMillis(profiler.getSectionAverage(s));
+            text.append(" ms\n");
+        }
+        for (int c = 0; c < FrameProfiler.COUNTER_COUNT; c++) {
+            text.append(FrameProfiler.COUNTER_NAMES[c]).append(' ')
+                    .append(profiler.getCounter(c)).append('\n');
+        }
+        text.append("heap ").append(profiler.getHeapDeltaAverage() >> 10).append(" KB/frame, ")
+                .append(profiler.getCollectionCount()).append(" GC in ")
+                .append(profiler.getFrameCount()).append(" frames");
+        layout.setText(font, text);
+    }
+
+    /**
+     * appends a time in milliseconds with two decimals
+     */
+    private void appendMillis(float millis) {
+        int hundredths = Math.round(millis * 100);
+        text.append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) {
+            text.append('0');
+        }
+        text.append(hundredths % 100);
+    }
+
+    /**
+     * frees the font
+     */
+    public void dispose() {
+        font.dispose();
+    }
+}
@@ -0,0 +1,407 @@
+package com.elements.game.view;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * A Static Tile Cache bakes the sprites of non-moving level tiles into {@link SpriteCache}s,
+ * instead of pushing their vertices through the sprite batch every frame. Tiles are grouped into
+ * square chunks, and each chunk is baked as one cache id within a shared page (a sprite cache
+ * holding many chunks). Chunks outside the view are skipped, drawing a page is a single pass with
+ * one draw call per visible chunk, and tiles added later (e.g. by a level chunk streaming in) only
+ * re-bake the chunks they fall into. All pages share one shader, so baking never compiles one.
+ * <br> The cache is built in screen space, so it has to be rebuilt whenever the level or the draw
+ * scale changes (see {@link #isBuiltFor(Vector2)}).
+ */
+public class StaticTileCache implements Disposable {
+
+    /** default width/height of a chunk (in game units) */
+    public static final float DEFAULT_CHUNK_SIZE = 8.0f;
+
+    /** number of floats recorded per tile: x, y, width, height, angle, x scale, y scale */
+    private static final int TILE_STRIDE = 7;
+
+    /** number of sprites in a page, the most a sprite cache with 16-bit indices can hold */
+    private static final int PAGE_SIZE = 8191;
+
+    /**
+     * the tiles of a chunk and where they are baked
+     */
+    private static class Chunk {
+        /** every tile of the chunk, TILE_STRIDE floats each (in game units) */
+        final FloatArray tiles = new FloatArray();
+        /** texture regions of the tiles, parallel to {@link #tiles} */
+        final Array<TextureRegion> regions = new Array<>();
+        /** area covered by the baked tiles (in game units) */
+        final Rectangle bounds = new Rectangle();
+        /** page holding the baked tiles, null until the chunk is baked */
+        Page page;
+        int cacheId;
+        /** number of sprites the cache id can hold */
+        int capacity;
+        /** whether tiles were added since the chunk was last baked */
+        boolean dirty;
+    }
+
+    /**
+     * a sprite cache holding the baked tiles of several chunks
+     */
+    private static class Page {
+        final SpriteCache cache;
+        /** number of sprites the page can hold */
+        final int size;
+        /** chunks baked into the page, in the order they were baked */
+        final Array<Chunk> chunks = new Array<>();
+        /** number of sprites reserved so far, including those of replaced caches */
+        int used;
+
+        Page(int size, ShaderProgram shader) {
+            this.size = size;
+            // indices are 16-bit, larger pages fall back to plain vertices
+            cache = new SpriteCache(size, shader, size <= PAGE_SIZE);
+        }
+
+        /**
+         * @return whether the chunk holds the last cache id of the page, which can grow in place
+         */
+        boolean isLast(Chunk chunk) {
+            return chunks.size > 0 && chunks.peek() == chunk;
+        }
+    }
+
+    private final float chunkSize;
+
+    /** chunks keyed by packed (column, row) */
+    private final LongMap<Chunk> chunkMap;
+
+    /** chunks with tiles added since {@link #end()} */
+    private final Array<Chunk> dirtyChunks;
+
+    private final Array<Page> pages;
+
+    /** shader of every page, created with the first page */
+    private ShaderProgram shader;
+
+    /** draw scale the cache was built with */
+    private final Vector2 drawScale;
+
+    private boolean built;
+
+    /**
+     * creates an empty cache with the default chunk size.
+     */
+    public StaticTileCache() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * creates an empty cache
+     *
+     * @param chunkSize width/height of a chunk (in game units)
+     */
+    public StaticTileCache(float chunkSize) {
+        this.chunkSize = chunkSize;
+        chunkMap = new LongMap<>();
+        dirtyChunks = new Array<>();
+        pages = new Array<>();
+        drawScale = new Vector2();
+    }
+
+    /**
+     * @param scale current draw scale
+     * @return whether the cache was built for the given draw scale (and not invalidated since)
+     */
+    public boolean isBuiltFor(Vector2 scale) {
+        return built && drawScale.equals(scale);
+    }
+
+    /**
+     * marks the cache as out of date (e.g. a new level is loaded). Nothing is drawn until it is
+     * built again.
+     */
+    public void invalidate() {
+        built = false;
+    }
+
+    /**
+     * starts building the cache, dropping the previous contents. Tiles are recorded with
+     * {@link #add} and baked by {@link #end()}. The pages are kept and reused.
+     *
+     * @param scale draw scale (1 unit in game to pixels in screen space)
+     */
+    public void begin(Vector2 scale) {
+        drawScale.set(scale);
+        chunkMap.clear();
+        dirtyChunks.clear();
+        for (int ii = 0; ii < pages.size; ii++) {
+            Page page = pages.get(ii);
+            page.cache.clear();
+            page.chunks.clear();
+            page.used = 0;
+        }
+        built = false;
+    }
+
+    /**
+     * records a tile to bake.
+     *
+     * @param region texture region of the tile
+     * @param x      center x of the tile (in game units)
+     * @param y      center y of the tile (in game units)
+     * @param width  display width of the tile (in game units)
+     * @param height display height of the tile (in game units)
+     * @param angle  rotation of the tile about its center (in radians)
+     */
+    public void add(TextureRegion region, float x, float y, float width, float height,
+                    float angle) {
+        add(region, x, y, width, height, angle, false, false);
+    }
+
+    /**
+     * records a tile to bake, possibly mirrored. Tiles may also be added after the cache was
+     * built; the next {@link #end()} then bakes the chunks they fall into again.
+     *
+     * @param region texture region of the tile
+     * @param x      center x of the tile (in game units)
+     * @param y      center y of the tile (in game units)
+     * @param width  display width of the tile (in game units)
+     * @param height display height of the tile (in game units)
+     * @param angle  rotation of the tile about its center (in radians)
+     * @param flipX  whether the tile is mirrored left to right
+     * @param flipY  whether the tile is mirrored top to bottom
+     */
+    public void add(TextureRegion region, float x, float y, float width, float height,
+                    float angle, boolean flipX, boolean flipY) {
+        long key = key(MathUtils.floor(x / chunkSize), MathUtils.floor(y / chunkSize));
+        Chunk chunk = chunkMap.get(key);
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunkMap.put(key, chunk);
+        }
+        if (!chunk.dirty) {
+            chunk.dirty = true;
+            dirtyChunks.add(chunk);
+        }
+        FloatArray tiles = chunk.tiles;
+        tiles.add(x);
+        tiles.add(y);
+        tiles.add(width);
+        tiles.add(height);
+        tiles.add(angle);
+        tiles.add(flipX ? -1 : 1);
+        tiles.add(flipY ? -1 : 1);
+        chunk.regions.add(region);
+    }
+
+    /**
+     * bakes the chunks that tiles were added to since the last call.
+     */
+    public void end() {
+        for (int ii = 0; ii < dirtyChunks.size; ii++) {
+            Chunk chunk = dirtyChunks.get(ii);
+            bake(chunk);
+            chunk.dirty = false;
+        }
+        dirtyChunks.clear();
+        built = true;
+    }
+
+    /**
+     * draws every chunk that overlaps the given region, in one pass per page. This starts and
+     * ends its own passes on the canvas, so it must not be called between
+     * {@link GameCanvas#begin} and {@link GameCanvas#end()}.
+     *
+     * @param canvas drawing canvas
+     * @param camera game camera
+     * @param region visible area (in game units)
+     */
+    public void draw(GameCanvas canvas, Camera camera, Rectangle region) {
+        if (!built) {
+            return;
+        }
+        for (int ii = 0; ii < pages.size; ii++) {
+            Page page = pages.get(ii);
+            boolean drawing = false;
+            for (int jj = 0; jj < page.chunks.size; jj++) {
+                Chunk chunk = page.chunks.get(jj);
+                if (!chunk.bounds.overlaps(region)) {
+                    continue;
+                }
+                if (!drawing) {
+                    canvas.beginCache(camera, page.cache);
+                    drawing = true;
+                }
+                canvas.drawCache(chunk.cacheId);
+            }
+            if (drawing) {
+                canvas.endCache();
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        for (int ii = 0; ii < pages.size; ii++) {
+            pages.get(ii).cache.dispose();
+        }
+        pages.clear();
+        chunkMap.clear();
+        dirtyChunks.clear();
+        if (shader != null) {
+            shader.dispose();
+            shader = null;
+        }
+        built = false;
+    }
+
+    /**
+     * bakes a chunk, in place if its cache id has room for its tiles, or else into a page with
+     * enough free room.
+     *
+     * @param chunk chunk to bake
+     */
+    private void bake(Chunk chunk) {
+        int count = chunk.regions.size;
+        Page page = chunk.page;
+        if (page != null) {
+            if (page.isLast(chunk) && page.used - chunk.capacity + count <= page.size) {
+                // the last cache id of a sprite cache is redefined at the end, with any size
+                page.used += count - chunk.capacity;
+                chunk.capacity = count;
+                record(chunk, chunk.cacheId);
+                return;
+            } else if (count <= chunk.capacity) {
+                record(chunk, chunk.cacheId);
+                return;
+            }
+            // the old cache id stays unused until the page is compacted
+            page.chunks.removeValue(chunk, true);
+        }
+        page = findPage(count);
+        append(page, chunk);
+    }
+
+    /**
+     * @param count number of sprites to fit
+     * @return a page with room for the given number of sprites after the last cache id
+     */
+    private Page findPage(int count) {
+        for (int ii = 0; ii < pages.size; ii++) {
+            Page page = pages.get(ii);
+            if (page.size - page.used >= count) {
+                return page;
+            }
+        }
+        // reclaim the room of replaced cache ids before allocating another page
+        for (int ii = 0; ii < pages.size; ii++) {
+            Page page = pages.get(ii);
+            int live = 0;
+            for (int jj = 0; jj < page.chunks.size; jj++) {
+                live += page.chunks.get(jj).regions.size;
+            }
+            if (page.size - live >= count) {
+                compact(page);
+                return page;
+            }
+        }
+        if (shader == null) {
+            shader = SpriteCache.createDefaultShader();
+        }
+        Page page = new Page(Math.max(PAGE_SIZE, count), shader);
+        pages.add(page);
+        return page;
+    }
+
+    /**
+     * bakes every chunk of a page again, dropping the room of replaced cache ids.
+     */
+    private void compact(Page page) {
+        page.cache.clear();
+        page.used = 0;
+        Array<Chunk> chunks = new Array<>(page.chunks);
+        page.chunks.clear();
+        for (int ii = 0; ii < chunks.size; ii++) {
+            append(page, chunks.get(ii));
+        }
+    }
+
+    /**
+     * bakes a chunk as a new cache id at the end of a page, which must have room for it.
+     */
+    private void append(Page page, Chunk chunk) {
+        chunk.page = page;
+        chunk.capacity = chunk.regions.size;
+        page.chunks.add(chunk);
+        page.used += chunk.capacity;
+        record(chunk, -1);
+    }
+
+    /**
+     * bakes the tiles of a chunk into its page and grows the chunk bounds to contain them.
+     *
+     * @param chunk   chunk to bake
+     * @param cacheId cache id to redefine, -1 for a new one
+     */
+    private void record(Chunk chunk, int cacheId) {
+        SpriteCache cache = chunk.page.cache;
+        if (cacheId < 0) {
+            cache.beginCache();
+        } else {
+            cache.beginCache(cacheId);
+        }
+        for (int ii = 0; ii < chunk.regions.size; ii++) {
+            bakeTile(chunk, ii);
+        }
+        chunk.cacheId = cache.endCache();
+    }
+
+    /**
+     * adds a tile of a chunk to the cache being built and grows the chunk bounds to contain it.
+     *
+     * @param chunk chunk being baked
+     * @param tile  index of the tile within the chunk
+     */
+    private void bakeTile(Chunk chunk, int tile) {
+        TextureRegion region = chunk.regions.get(tile);
+        FloatArray tiles = chunk.tiles;
+        int offset = TILE_STRIDE * tile;
+        float x = tiles.get(offset);
+        float y = tiles.get(offset + 1);
+        float width = tiles.get(offset + 2);
+        float height = tiles.get(offset + 3);
+        float angle = tiles.get(offset + 4);
+        float pixelWidth = width * drawScale.x;
+        float pixelHeight = height * drawScale.y;
+        // a negative scale mirrors the tile about its center
+        chunk.page.cache.add(region, x * drawScale.x - pixelWidth / 2,
+                             y * drawScale.y - pixelHeight / 2, pixelWidth / 2, pixelHeight / 2,
+                             pixelWidth, pixelHeight, tiles.get(offset + 5), tiles.get(offset + 6),
+                             angle * MathUtils.radiansToDegrees);
+        // a rotated tile stays within the circle around its center
+        float extent = angle == 0 ? 0 : (float) Math.sqrt(width * width + height * height) / 2;
+        float halfWidth = Math.max(width / 2, extent);
+        float halfHeight = Math.max(height / 2, extent);
+        if (tile == 0) {
+            chunk.bounds.set(x - halfWidth, y - halfHeight, 2 * halfWidth, 2 * halfHeight);
+        } else {
+            chunk.bounds.merge(x - halfWidth, y - halfHeight);
+            chunk.bounds.merge(x + halfWidth, y + halfHeight);
+        }
+    }
+
+    /**
+     * @return the chunk map key for the given column and row
+     */
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+}
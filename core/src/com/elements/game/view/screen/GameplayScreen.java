@@ -1,27 +1,102 @@
 package com.elements.game.view.screen;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.JsonValue;
 import com.elements.game.controller.GameplayController;
+import com.elements.game.controller.InputController;
+import com.elements.game.controller.InputLog;
+import com.elements.game.controller.InputReplay;
 import com.elements.game.model.CollidableObject;
 import com.elements.game.model.GameWorld;
 import com.elements.game.utility.assets.AssetDirectory;
 import com.elements.game.utility.json.LevelParser;
+import com.elements.game.utility.level.LevelDescriptor;
+import com.elements.game.utility.level.LevelLoader;
+import com.elements.game.utility.profiling.FrameProfiler;
+import com.elements.game.utility.physics.PhysicsBody;
 import com.elements.game.view.GameCanvas;
+import com.elements.game.view.ProfilerOverlay;
+import com.elements.game.view.StaticTileCache;
 import com.elements.game.visitors.GameObjectRenderer;
+import com.elements.game.visitors.StaticTileBaker;
 
 public class GameplayScreen extends GameScreen {
 
     /** Exit code to quit game */
     public static final int EXIT_GAME = 0;
 
+    /** extra game units around the camera in which objects are still drawn */
+    private static final float VIEW_MARGIN = 1.0f;
+
+    /** game units across the width of the screen */
+    private static final int VIEW_COLUMNS = 16;
+
+    /** game units across the height of the screen */
+    private static final int VIEW_ROWS = 9;
+
+    /** milliseconds per frame spent loading the assets of the next level */
+    private static final int PREFETCH_BUDGET = 2;
+
+    /** file (in local storage) the profiler measures are dumped to */
+    private static final String PROFILE_FILE = "profile.csv";
+
     private AssetDirectory assetDirectory;
 
-    private JsonValue levelData;
+    /** description of the current level, reused across levels */
+    private LevelDescriptor levelDescriptor;
+
+    // BEGIN-REGION ================== LEVEL PREFETCH ==========================
+
+    /** asset scope held for the current level (null if the level has none) */
+    private String currentScope;
+
+    /** id of the level whose assets are loaded in the background (-1 if none) */
+    private int prefetchLevel;
+
+    /** asset scope held for {@link #prefetchLevel} (null if none) */
+    private String prefetchScope;
+
+    /** description of {@link #prefetchLevel}, swapped with the current one on transition */
+    private LevelDescriptor prefetchDescriptor;
+
+    /** whether the assets of {@link #prefetchLevel} are loaded and its descriptor is filled */
+    private boolean prefetchReady;
+
+    // END-REGION ==================== LEVEL PREFETCH ==========================
+
+    // BEGIN-REGION ================== INPUT RECORDING =========================
+
+    /** file the input of the last attempt is written to (null if not recording) */
+    private FileHandle recordingFile;
+
+    /** input applied since the last reset (null if not recording) */
+    private InputLog recording;
+
+    /** recorded input played instead of the keyboard (null to play normally) */
+    private InputLog replay;
+
+    // END-REGION ==================== INPUT RECORDING =========================
+
+    // BEGIN-REGION ================== PROFILER ================================
+
+    /** measures the frames while the overlay is shown */
+    private final FrameProfiler profiler;
+
+    /** shows the profiler measures (toggled with F2) */
+    private final ProfilerOverlay profilerOverlay;
+
+    // END-REGION ==================== PROFILER ================================
+
+    /** id of the level being played */
+    private int currentLevel;
 
     private JsonValue testLevelData;
 
@@ -33,6 +108,18 @@ public class GameplayScreen extends GameScreen {
     /** renderer to draw game objects */
     private final GameObjectRenderer renderer;
 
+    /** pre-built sprites of the static level tiles */
+    private final StaticTileCache staticTiles;
+
+    /** records static level tiles into {@link #staticTiles} */
+    private final StaticTileBaker tileBaker;
+
+    /** static revision of the game world that {@link #staticTiles} was baked from */
+    private int bakedRevision;
+
+    /** number of static objects of the game world baked into {@link #staticTiles} */
+    private int bakedStaticCount;
+
     private final Vector2 drawScale;
 
     private GameplayController gameplayController;
@@ -44,21 +131,48 @@ public class GameplayScreen extends GameScreen {
     /** whether debug mode is active */
     private boolean debug;
 
+    /** area of the game world visible to the camera (in game units) */
+    private final Rectangle viewBounds;
+
+    /** objects within the view bounds, in drawing order */
+    private final Array<CollidableObject> visibleObjects;
+
 
     public GameplayScreen(GameCanvas canvas) {
         this.canvas = canvas;
         this.renderer = new GameObjectRenderer(canvas);
+        this.staticTiles = new StaticTileCache();
+        this.tileBaker = new StaticTileBaker();
+        tileBaker.setCache(staticTiles);
+        renderer.setStaticTilesCached(true);
         this.drawScale = new Vector2(1, 1);
+        this.viewBounds = new Rectangle();
+        this.visibleObjects = new Array<>();
+        this.levelDescriptor = new LevelDescriptor();
+        this.prefetchDescriptor = new LevelDescriptor();
+        this.prefetchLevel = -1;
+        this.profiler = new FrameProfiler();
+        this.profilerOverlay = new ProfilerOverlay(profiler);
     }
 
     @Override
     public void gatherAssets(AssetDirectory assets) {
         this.assetDirectory = assets;
-        background = new TextureRegion(assets.getEntry("game:background", Texture.class));
+        background = assets.getRegion("game:background");
         renderer.gatherAssets(assets);
+        tileBaker.gatherAssets(assets);
         JsonValue gameConstants = assets.getEntry("constants", JsonValue.class);
         gameWorld = new GameWorld(gameConstants);
         gameplayController = new GameplayController(gameWorld, gameConstants);
+        gameplayController.setProfiler(profiler);
+        if (replay != null) {
+            gameplayController.setInputController(new InputReplay(replay));
+        }
+        // low-end machines can cap the memory used by assets (0 = no budget)
+        JsonValue assetConstants = gameConstants.get("assets");
+        if (assetConstants != null) {
+            assets.setMemoryBudget(assetConstants.getLong("memoryBudgetMB", 0) * 1024 * 1024);
+        }
         parser = new LevelParser(this.assetDirectory);
 
     }
@@ -69,43 +183,204 @@ public class GameplayScreen extends GameScreen {
         // the update loop should focus on high-level updates, such as reading whether game has
         // lost or won to transition to another screen (by setting exit-code).
         gameplayController.update(delta);
+        if (gameplayController.isResetRequested()) {
+            // the reset is part of the (recorded) input, the step that applied it ended the attempt
+            reset();
+        }
+        updatePrefetch();
+    }
+
+    /**
+     * loads the assets of the next level a little at a time, and fills its level descriptor once
+     * they are all loaded.
+     */
+    private void updatePrefetch() {
+        if (prefetchLevel < 0 || prefetchReady) {
+            return;
+        }
+        assetDirectory.update(PREFETCH_BUDGET);
+        if (assetDirectory.isScopeLoaded(prefetchScope)) {
+            // parsing a level takes less than a frame, so it is done in one go
+            loadLevel(prefetchLevel, prefetchDescriptor);
+            prefetchReady = true;
+        }
     }
 
     @Override
     public void render(float delta) {
+        profiler.beginFrame();
         update(delta);
         canvas.clear();
         viewport.apply(true);
+        if (!staticTiles.isBuiltFor(drawScale) ||
+                bakedRevision != gameWorld.getStaticRevision()) {
+            bakeStaticTiles();
+        } else if (bakedStaticCount < gameWorld.getStaticObjects().size) {
+            // chunks streaming in add static tiles, only the cache chunks they touch are re-baked
+            bakeNewStaticTiles();
+        }
+        computeViewBounds();
+        profiler.start(FrameProfiler.RENDER);
         canvas.begin(camera);
         // this background to fit exactly onto the viewable screen
         canvas.draw(background, Color.WHITE, background.getRegionWidth() / 2f,
                     background.getRegionHeight() / 2f, camera.position.x, camera.position.y, 0,
                     viewport.getWorldWidth() / background.getRegionWidth(),
                     viewport.getWorldHeight() / background.getRegionHeight());
-        gameWorld.getGameObjects().forEach(co -> co.accept(renderer));
+        profiler.stop(FrameProfiler.RENDER);
+        profiler.start(FrameProfiler.FLUSH);
+        canvas.end();
+        profiler.stop(FrameProfiler.FLUSH);
+        profiler.start(FrameProfiler.RENDER);
+        // static tiles are drawn from the cache, one draw call per visible chunk
+        staticTiles.draw(canvas, camera, viewBounds);
+        canvas.begin(camera);
+        renderer.setInterpolationAlpha(gameplayController.getInterpolationAlpha());
+        // only objects near the camera are drawn
+        gameWorld.queryObjects(viewBounds, visibleObjects);
+        for (int i = 0; i < visibleObjects.size; i++) {
+            visibleObjects.get(i).accept(renderer);
+        }
+        profiler.stop(FrameProfiler.RENDER);
+        profiler.start(FrameProfiler.FLUSH);
         canvas.end();
+        profiler.stop(FrameProfiler.FLUSH);
         if (debug) {
             canvas.beginDebug(camera);
-            gameWorld.getGameObjects().forEach((CollidableObject co) -> {
-                co.getHitBox().debug(canvas, drawScale);
-            });
+            for (int i = 0; i < visibleObjects.size; i++) {
+                PhysicsBody hitBox = visibleObjects.get(i).getHitBox();
+                // merged platform tiles have no body of their own, their collider is drawn instead
+                if (hitBox.getBody() != null) {
+                    hitBox.debug(canvas, drawScale);
+                }
+            }
             canvas.endDebug();
         }
+        if (profiler.isEnabled()) {
+            // counted before the overlay adds its own sprites and draw calls
+            profiler.count(FrameProfiler.BODIES, gameWorld.getWorld().getBodyCount());
+            profiler.count(FrameProfiler.CONTACTS, gameWorld.getWorld().getContactCount());
+            profiler.count(FrameProfiler.RENDER_CALLS, canvas.getRenderCalls());
+            profiler.count(FrameProfiler.SPRITES, canvas.getSpriteCount());
+            profiler.endFrame();
+            profilerOverlay.draw(canvas, viewport.getWorldWidth(), viewport.getWorldHeight());
+        }
+    }
+
+    /**
+     * converts the area seen by the camera from screen space into game units.
+     *
+     * @return the view bounds (with a small margin) in game units
+     */
+    private Rectangle computeViewBounds() {
+        float width = viewport.getWorldWidth() * camera.zoom / drawScale.x;
+        float height = viewport.getWorldHeight() * camera.zoom / drawScale.y;
+        float x = camera.position.x / drawScale.x - width / 2;
+        float y = camera.position.y / drawScale.y - height / 2;
+        return viewBounds.set(x - VIEW_MARGIN, y - VIEW_MARGIN, width + 2 * VIEW_MARGIN,
+                              height + 2 * VIEW_MARGIN);
     }
 
     /**
-     * sets the current level to be played. This also resets the game screen.
+     * fills a level descriptor from the compiled level if it is up to date, or else from the
+     * Tiled json (see {@link LevelLoader}). The level's assets must be loaded.
+     *
+     * @param level game level id
+     * @param out   descriptor to fill
+     */
+    private void loadLevel(int level, LevelDescriptor out) {
+        String name = "level" + level;
+        FileHandle source = assetDirectory.getLevelFile(name);
+        if (source == null) {
+            throw new GdxRuntimeException("no level " + name);
+        }
+        LevelLoader.load(name, source, parser, out);
+    }
+
+    /**
+     * starts loading the assets of a level in the background (see {@link #updatePrefetch()}).
+     * The assets of a previously prefetched level that was not played are released.
+     *
+     * @param level game level id (nothing is prefetched if the level has no asset scope, or if
+     *              the assets already exceed the memory budget)
+     */
+    private void prefetch(int level) {
+        String scope = "level" + level;
+        // acquire before releasing, so assets both scopes share stay loaded
+        boolean enabled = testLevelData == null && assetDirectory.hasScope(scope) &&
+                !assetDirectory.isOverBudget();
+        if (enabled) {
+            assetDirectory.acquireScope(scope);
+        }
+        if (prefetchScope != null) {
+            assetDirectory.releaseScope(prefetchScope);
+        }
+        prefetchScope = enabled ? scope : null;
+        prefetchLevel = enabled ? level : -1;
+        prefetchReady = false;
+    }
+
+    /**
+     * rebuilds the static tile cache from the current level at the current draw scale.
+     */
+    private void bakeStaticTiles() {
+        staticTiles.begin(drawScale);
+        Array<CollidableObject> statics = gameWorld.getStaticObjects();
+        for (int i = 0; i < statics.size; i++) {
+            statics.get(i).accept(tileBaker);
+        }
+        tileBaker.bake(levelDescriptor.getTiles());
+        staticTiles.end();
+        bakedStaticCount = statics.size;
+        bakedRevision = gameWorld.getStaticRevision();
+    }
+
+    /**
+     * adds the static objects added to the world since the last bake to the static tile cache.
+     */
+    private void bakeNewStaticTiles() {
+        Array<CollidableObject> statics = gameWorld.getStaticObjects();
+        for (int i = bakedStaticCount; i < statics.size; i++) {
+            statics.get(i).accept(tileBaker);
+        }
+        staticTiles.end();
+        bakedStaticCount = statics.size;
+    }
+
+    /**
+     * sets the current level to be played. This also resets the game screen. If the level was
+     * prefetched, this does not load anything; otherwise its assets are loaded right away. The
+     * assets of the previous level are released and the next level starts prefetching.
      *
      * @param level game level id
      */
     public void setLevel(int level) {
-        // hijack the current level with an external level
+        currentLevel = level;
+        String scope = assetDirectory.hasScope("level" + level) ? "level" + level : null;
+        // acquire before releasing, so assets shared with the previous level stay loaded
+        if (scope != null) {
+            assetDirectory.acquireScope(scope);
+        }
         if (this.testLevelData != null){
-            levelData = testLevelData;
+            // hijack the current level with an external level
+            parser.parse(testLevelData, levelDescriptor);
+        }
+        else if (level == prefetchLevel && prefetchReady) {
+            LevelDescriptor previous = levelDescriptor;
+            levelDescriptor = prefetchDescriptor;
+            prefetchDescriptor = previous;
         }
         else {
-            levelData = assetDirectory.getEntry("level" + level, JsonValue.class);
+            if (scope != null) {
+                assetDirectory.finishLoadingScope(scope);
+            }
+            loadLevel(level, levelDescriptor);
         }
+        if (currentScope != null) {
+            assetDirectory.releaseScope(currentScope);
+        }
+        currentScope = scope;
+        prefetch(level + 1);
         reset();
     }
 
@@ -117,22 +392,70 @@ public class GameplayScreen extends GameScreen {
         this.testLevelData = testLevelData;
     }
 
+    /**
+     * records the input of every attempt at a level, so it can be replayed later (see
+     * {@link #setReplay}). The file holds the last attempt, it is written whenever the level is
+     * reset and when the screen is disposed.
+     *
+     * @param file file to write the input log to, null to stop recording
+     */
+    public void setRecordingFile(FileHandle file) {
+        recordingFile = file;
+    }
+
+    /**
+     * plays recorded input instead of the keyboard. The replay starts over whenever the level is
+     * reset, so the level the log was recorded in should be set next.
+     *
+     * @param log recorded input, null to play normally
+     */
+    public void setReplay(InputLog log) {
+        replay = log;
+        if (gameplayController != null) {
+            gameplayController.setInputController(log == null ? new InputController() :
+                                                          new InputReplay(log));
+        }
+    }
+
+    /**
+     * writes the input recorded since the last reset, if any
+     */
+    private void saveRecording() {
+        if (recording != null && recording.getTickCount() > 0) {
+            recording.write(recordingFile);
+        }
+        recording = null;
+    }
+
     /**
      * Resets the current gameplay (level)
      */
     public void reset() {
         // the game world (container) empties and loads the level. The controller resets itself
         // and is ready to update the world.
-        gameWorld.dispose();
-        JsonValue parsedData = parser.parse(levelData);
-        System.out.println(parsedData);
-        gameWorld.populate(parsedData);
-        gameplayController.reset();
+        gameWorld.clear();
+        gameWorld.populate(levelDescriptor);
         // TODO (later): set draw scale (conversion from 1 unit of game to number of pixels based
         //  on the desired number of game units to render). For instance, right now the
         //  denominators indicate that we split the screen into 16 columns and 9 rows.
-        drawScale.set(viewport.getWorldWidth() / 16, viewport.getWorldHeight() / 9);
+        drawScale.set(viewport.getWorldWidth() / VIEW_COLUMNS,
+                      viewport.getWorldHeight() / VIEW_ROWS);
         this.renderer.setDrawScale(drawScale);
+        // the level streams in around the player in lockstep with the physics steps. The area does
+        // not depend on the window size, so a replay streams exactly like the recorded session.
+        gameplayController.setStreamingArea(VIEW_COLUMNS + 2 * VIEW_MARGIN,
+                                            VIEW_ROWS + 2 * VIEW_MARGIN);
+        // this also loads the chunks around the player right away
+        gameplayController.reset();
+        // a replay starts over with the level, and the recording holds only the new attempt
+        gameplayController.getInputController().restart();
+        saveRecording();
+        if (recordingFile != null) {
+            recording = new InputLog("level" + currentLevel, gameplayController.getTimeStep());
+        }
+        gameplayController.setRecording(recording);
+        // the level changed, so the cache is rebuilt even if the draw scale did not
+        bakeStaticTiles();
     }
 
 
@@ -141,6 +464,9 @@ public class GameplayScreen extends GameScreen {
         viewport = null;
         camera = null;
         background = null;
+        staticTiles.dispose();
+        profilerOverlay.dispose();
+        saveRecording();
         if (gameWorld != null) {
             gameWorld.dispose();
         }
@@ -151,6 +477,13 @@ public class GameplayScreen extends GameScreen {
     public boolean keyDown(int keycode) {
         if (keycode == Input.Keys.F1) {
             debug = !debug;
+        } else if (keycode == Input.Keys.F2) {
+            profiler.setEnabled(!profiler.isEnabled());
+        } else if (keycode == Input.Keys.F3 && profiler.isEnabled()) {
+            FileHandle file = Gdx.files.local(PROFILE_FILE);
+            profiler.writeCsv(file);
+            Gdx.app.log("GameplayScreen", profiler.getFrameCount() + " frames written to " +
+                    file.path());
         }
         return true;
     }
@@ -1,11 +1,13 @@
 package com.elements.game.view.screen;
 
 import com.badlogic.gdx.Input;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.elements.game.utility.assets.AssetDirectory;
+import com.elements.game.utility.assets.LoadTrace;
 import com.elements.game.view.GameCanvas;
 
 /**
@@ -57,9 +59,12 @@ public class LoadingScreen extends GameScreen {
 
     private float throbberRadius;
 
-    /** number of frames until automatically switch to next screen */
+    /** default number of frames until automatically switch to next screen */
     private static final int EXIT_TIMER = 150;
 
+    /** number of frames to wait after loading before switching to next screen */
+    private int exitDelay;
+
     /** number of frames remaining until automatically switch to next screen */
     private int exitCountDown;
 
@@ -86,11 +91,28 @@ public class LoadingScreen extends GameScreen {
      * @param millis The loading budget in milliseconds
      */
     public LoadingScreen(String file, GameCanvas canvas, int millis) {
+        this(file, canvas, millis, null);
+    }
+
+    /**
+     * Creates a LoadingScreen with the given loading budget, recording every asset load.
+     * <p>
+     * Both the assets of the loading screen and the game assets are recorded in the trace, so
+     * it covers the whole startup.
+     *
+     * @param file   The asset directory to load in the background
+     * @param canvas The game canvas to draw to
+     * @param millis The loading budget in milliseconds
+     * @param trace  The trace to record asset loads in (null to not trace)
+     */
+    public LoadingScreen(String file, GameCanvas canvas, int millis, LoadTrace trace) {
         this.canvas = canvas;
         budget = millis;
+        exitDelay = EXIT_TIMER;
 
         // We need these files loaded immediately
-        internal = new AssetDirectory("catalog/loading.json");
+        internal = new AssetDirectory("catalog/loading.json", new InternalFileHandleResolver(),
+                                      trace);
         internal.loadAssets();
         internal.finishLoading();   // synchronous (blocking) loading
 
@@ -104,7 +126,7 @@ public class LoadingScreen extends GameScreen {
         progress = 0;
 
         // Start loading the real assets
-        assets = new AssetDirectory(file);
+        assets = new AssetDirectory(file, new InternalFileHandleResolver(), trace);
         assets.loadAssets();
     }
 
@@ -133,6 +155,27 @@ public class LoadingScreen extends GameScreen {
         budget = millis;
     }
 
+    /**
+     * Returns the number of frames to wait after loading before switching to the next screen.
+     *
+     * @return the number of frames to wait after loading
+     */
+    public int getExitDelay() {
+        return exitDelay;
+    }
+
+    /**
+     * Sets the number of frames to wait after loading before switching to the next screen.
+     * <p>
+     * The delay keeps the finished progress on screen for a moment. Set it to 0 when measuring
+     * startup, so the screen exits as soon as the assets are loaded.
+     *
+     * @param frames the number of frames to wait after loading
+     */
+    public void setExitDelay(int frames) {
+        exitDelay = Math.max(frames, 0);
+    }
+
     /**
      * This asset loader persists even after the scene is disposed so the game must unload the
      * assets in this directory prior to quitting.
@@ -166,7 +209,7 @@ public class LoadingScreen extends GameScreen {
             progress = assets.getProgress();
             if (progress >= 1.0f) {
                 progress = 1.0f;
-                exitCountDown = EXIT_TIMER;
+                exitCountDown = exitDelay;
             }
         }
         // todo: constants need to be defined at the top of file
@@ -1,15 +1,16 @@
 package com.elements.game.visitors;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.elements.game.model.BlockPlatform;
 import com.elements.game.model.Fireball;
 import com.elements.game.model.Player;
 import com.elements.game.model.WoodBlock;
 import com.elements.game.utility.assets.AssetDirectory;
 import com.elements.game.view.GameCanvas;
+import com.elements.game.view.StaticTileCache;
 
 /**
  * GameObjectRenderer provides functionality to render all kinds of Game objects. This is a
@@ -19,15 +20,13 @@ public class GameObjectRenderer extends GameObjectVisitor<Void> {
 
     // BEGIN-REGION ================== ASSETS ==================================
 
-    // TODO: depending on number of assets here, might be wise to set up a
-    //  texture hashmap or data structure to group textures. In this class,
-    //  we primarily need textures
+    // all regions come from the same atlas page so drawing them does not flush the batch
 
     private TextureRegion playerTexture;
 
-    private Texture grassTexture;
+    private TextureRegion grassTexture;
 
-    private Texture woodenTexture;
+    private TextureRegion woodenTexture;
 
     // END-REGION ==================== ASSETS ==================================
 
@@ -35,6 +34,15 @@ public class GameObjectRenderer extends GameObjectVisitor<Void> {
 
     private final GameCanvas canvas;
 
+    /**
+     * fraction of the way from the previous physics state to the current one (see
+     * {@link com.elements.game.controller.GameplayController#getInterpolationAlpha()})
+     */
+    private float alpha;
+
+    /** whether static platforms are drawn by a {@link StaticTileCache} instead */
+    private boolean staticTilesCached;
+
     public GameObjectRenderer(GameCanvas canvas) {
         this.canvas = canvas;
         drawScale = new Vector2();
@@ -55,15 +63,30 @@ public class GameObjectRenderer extends GameObjectVisitor<Void> {
      */
     public void setDrawScale(Vector2 scale) {drawScale.set(scale);}
 
+    /**
+     * updates the factor used to blend previous and current physics states of moving objects
+     *
+     * @param alpha interpolation factor in [0,1] (0 = previous state, 1 = current state)
+     */
+    public void setInterpolationAlpha(float alpha) {this.alpha = alpha;}
+
+    /**
+     * sets whether static platforms are skipped because they are drawn from a baked
+     * {@link StaticTileCache} (see {@link StaticTileBaker})
+     *
+     * @param cached whether static platforms are cached
+     */
+    public void setStaticTilesCached(boolean cached) {staticTilesCached = cached;}
+
     /**
      * stores and initializes all necessary assets to render game objects
      *
      * @param assets asset directory
      */
     public void gatherAssets(AssetDirectory assets) {
-        playerTexture = new TextureRegion(assets.getEntry("game:player", Texture.class));
-        grassTexture = assets.getEntry("game:grass_block", Texture.class);
-        woodenTexture = assets.getEntry("game:wooden_block", Texture.class);
+        playerTexture = assets.getRegion("game:player");
+        grassTexture = assets.getRegion("game:grass_block");
+        woodenTexture = assets.getRegion("game:wooden_block");
     }
 
     @Override
@@ -72,7 +95,9 @@ public class GameObjectRenderer extends GameObjectVisitor<Void> {
         int textureWidth = playerTexture.getRegionWidth();
         int textureHeight = playerTexture.getRegionHeight();
         canvas.draw(playerTexture, Color.WHITE, textureWidth / 2f, textureHeight / 2f,
-                    p.getX() * drawScale.x, p.getY() * drawScale.y, p.getHitBox().getAngle(),
+                    p.getHitBox().getInterpolatedX(alpha) * drawScale.x,
+                    p.getHitBox().getInterpolatedY(alpha) * drawScale.y,
+                    p.getHitBox().getInterpolatedAngle(alpha),
                     dimensions.x * drawScale.x / textureWidth,
                     dimensions.y * drawScale.y / textureHeight);
         return null;
@@ -80,28 +105,42 @@ public class GameObjectRenderer extends GameObjectVisitor<Void> {
 
     @Override
     public Void visit(BlockPlatform platform) {
+        if (staticTilesCached &&
+                platform.getHitBox().getBodyType() == BodyDef.BodyType.StaticBody) {
+            return null;
+        }
         Vector2 dimensions = platform.getDisplayDimensions();
-        int textureWidth = grassTexture.getWidth();
-        int textureHeight = grassTexture.getHeight();
+        int textureWidth = grassTexture.getRegionWidth();
+        int textureHeight = grassTexture.getRegionHeight();
         canvas.draw(grassTexture, Color.WHITE, textureWidth / 2f, textureHeight / 2f,
                     platform.getX() * drawScale.x, platform.getY() * drawScale.y,
-                    platform.getHitBox().getAngle(), dimensions.x * drawScale.x / textureWidth,
-                    dimensions.y * drawScale.y / textureHeight);
+                    platform.getHitBox().getAngle(),
+                    flipSign(platform.isFlipX()) * dimensions.x * drawScale.x / textureWidth,
+                    flipSign(platform.isFlipY()) * dimensions.y * drawScale.y / textureHeight);
         return null;
     }
 
     @Override
     public Void visit(WoodBlock moveBlock) {
         Vector2 dimensions = moveBlock.getDisplayDimensions();
-        int textureWidth = woodenTexture.getWidth();
-        int textureHeight = woodenTexture.getHeight();
+        int textureWidth = woodenTexture.getRegionWidth();
+        int textureHeight = woodenTexture.getRegionHeight();
         canvas.draw(woodenTexture, Color.WHITE, textureWidth / 2f, textureHeight / 2f,
-                    moveBlock.getX() * drawScale.x, moveBlock.getY() * drawScale.y,
-                    moveBlock.getHitBox().getAngle(), dimensions.x * drawScale.x / textureWidth,
-                    dimensions.y * drawScale.y / textureHeight);
+                    moveBlock.getHitBox().getInterpolatedX(alpha) * drawScale.x,
+                    moveBlock.getHitBox().getInterpolatedY(alpha) * drawScale.y,
+                    moveBlock.getHitBox().getInterpolatedAngle(alpha),
+                    flipSign(moveBlock.isFlipX()) * dimensions.x * drawScale.x / textureWidth,
+                    flipSign(moveBlock.isFlipY()) * dimensions.y * drawScale.y / textureHeight);
         return null;
     }
 
+    /**
+     * @return the sign of the draw scale that mirrors a texture about its origin when flipped
+     */
+    private static float flipSign(boolean flipped) {
+        return flipped ? -1 : 1;
+    }
+
     public Void visit(Fireball fireball) {
         // draw fireball
         return null;
@@ -3,6 +3,7 @@ package com.elements.game.visitors;
 import com.elements.game.model.BlockPlatform;
 import com.elements.game.model.GameObject;
 import com.elements.game.model.Player;
+import com.elements.game.model.TerrainCollider;
 import com.elements.game.model.WoodBlock;
 
 /**
@@ -38,6 +39,10 @@ public abstract class GameObjectVisitor<V> {
         return visit((GameObject) moveBlock);
     }
 
+    public V visit(TerrainCollider collider) {
+        return visit((GameObject) collider);
+    }
+
     // add visit methods for other new classes, with default implementation returning null or
     // upcasting argument and using another visit method defined in file.
 
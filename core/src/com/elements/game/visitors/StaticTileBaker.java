@@ -0,0 +1,86 @@
+package com.elements.game.visitors;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.elements.game.model.BlockPlatform;
+import com.elements.game.model.GameObject;
+import com.elements.game.utility.assets.AssetDirectory;
+import com.elements.game.utility.level.LevelDescriptor;
+import com.elements.game.view.StaticTileCache;
+
+/**
+ * StaticTileBaker records the sprites of game objects that never move, and of tile layers, into a
+ * {@link StaticTileCache}. Visiting an object returns whether it was baked; objects that were not
+ * baked still have to be drawn by the {@link GameObjectRenderer} every frame.
+ */
+public class StaticTileBaker extends GameObjectVisitor<Boolean> {
+
+    private TextureRegion grassTexture;
+
+    private StaticTileCache cache;
+
+    /**
+     * stores the textures of the objects that can be baked
+     *
+     * @param assets asset directory
+     */
+    public void gatherAssets(AssetDirectory assets) {
+        grassTexture = assets.getRegion("game:grass_block");
+    }
+
+    /**
+     * @param cache the cache to record sprites into
+     */
+    public void setCache(StaticTileCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * records the platform cells of a tile grid. Tiles flipped along their anti-diagonal are
+     * rotated by a quarter turn and mirrored, which is the same transform.
+     *
+     * @param tiles tile layers of the level
+     */
+    public void bake(LevelDescriptor.TileGrid tiles) {
+        for (int row = 0; row < tiles.height; row++) {
+            for (int column = 0; column < tiles.width; column++) {
+                int cell = tiles.get(column, row);
+                if (cell == LevelDescriptor.TileGrid.EMPTY ||
+                        LevelDescriptor.TileGrid.getType(cell) != LevelDescriptor.PLATFORM) {
+                    continue;
+                }
+                int flags = LevelDescriptor.TileGrid.getFlags(cell);
+                boolean flipX = (flags & LevelDescriptor.FLIP_HORIZONTAL) != 0;
+                boolean flipY = (flags & LevelDescriptor.FLIP_VERTICAL) != 0;
+                float angle = 0;
+                if ((flags & LevelDescriptor.FLIP_DIAGONAL) != 0) {
+                    // mirroring along the anti-diagonal, then x and y: rotate and swap the flips
+                    angle = MathUtils.HALF_PI;
+                    boolean flipped = flipX;
+                    flipX = !flipY;
+                    flipY = flipped;
+                }
+                cache.add(grassTexture, tiles.x + column + 0.5f, tiles.y + row + 0.5f, 1, 1,
+                          angle, flipX, flipY);
+            }
+        }
+    }
+
+    @Override
+    public Boolean visit(GameObject ignoredO) {
+        return Boolean.FALSE;
+    }
+
+    @Override
+    public Boolean visit(BlockPlatform platform) {
+        if (platform.getHitBox().getBodyType() != BodyDef.BodyType.StaticBody) {
+            return Boolean.FALSE;
+        }
+        Vector2 dimensions = platform.getDisplayDimensions();
+        cache.add(grassTexture, platform.getX(), platform.getY(), dimensions.x, dimensions.y,
+                  platform.getAngle(), platform.isFlipX(), platform.isFlipY());
+        return Boolean.TRUE;
+    }
+}
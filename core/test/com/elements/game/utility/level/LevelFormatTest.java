@@ -0,0 +1,129 @@
+package com.elements.game.utility.level;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LevelFormatTest {
+
+    private static final long LENGTH = 1234;
+
+    private static final long MODIFIED = 1700000000000L;
+
+    private static final float DELTA = 0;
+
+    private LevelDescriptor level;
+
+    private byte[] data;
+
+    @Before
+    public void setUp() {
+        level = new LevelDescriptor();
+        level.setPlayer(3.5f, -2);
+        level.get(LevelDescriptor.PLATFORM).add(0.5f, 0.5f, 1, 1);
+        level.get(LevelDescriptor.PLATFORM).add(-1.5f, 0.5f, 1, 1, LevelDescriptor.FLIP_VERTICAL);
+        level.get(LevelDescriptor.WOOD).add(4, 6, 2, 2, LevelDescriptor.FLIP_HORIZONTAL);
+        LevelDescriptor.TileGrid tiles = level.getTiles();
+        tiles.reset(-2, -1, 3, 2);
+        tiles.set(0, 0, LevelDescriptor.TileGrid.cell(LevelDescriptor.PLATFORM,
+                                                      LevelDescriptor.FLIP_DIAGONAL));
+        tiles.set(2, 1, LevelDescriptor.TileGrid.cell(LevelDescriptor.WOOD, 0));
+        data = LevelFormat.write(level, LENGTH, MODIFIED);
+    }
+
+    private static LevelDescriptor read(byte[] data, long length, long modified) {
+        return LevelFormat.read(ByteBuffer.wrap(data), length, modified, new LevelDescriptor());
+    }
+
+    private static void assertColumnsEqual(LevelDescriptor.Columns expected,
+                                           LevelDescriptor.Columns actual) {
+        assertEquals(expected.size, actual.size);
+        for (int ii = 0; ii < expected.size; ii++) {
+            assertEquals(expected.x[ii], actual.x[ii], DELTA);
+            assertEquals(expected.y[ii], actual.y[ii], DELTA);
+            assertEquals(expected.width[ii], actual.width[ii], DELTA);
+            assertEquals(expected.height[ii], actual.height[ii], DELTA);
+            assertEquals(expected.flags[ii], actual.flags[ii]);
+        }
+    }
+
+    @Test
+    public void roundTrip() {
+        LevelDescriptor copy = read(data, LENGTH, MODIFIED);
+        assertEquals(level.getPlayerX(), copy.getPlayerX(), DELTA);
+        assertEquals(level.getPlayerY(), copy.getPlayerY(), DELTA);
+        for (int type = 0; type < LevelDescriptor.TYPE_COUNT; type++) {
+            assertColumnsEqual(level.get(type), copy.get(type));
+        }
+        LevelDescriptor.TileGrid tiles = copy.getTiles();
+        assertEquals(-2, tiles.x);
+        assertEquals(-1, tiles.y);
+        assertEquals(3, tiles.width);
+        assertEquals(2, tiles.height);
+        for (int row = 0; row < tiles.height; row++) {
+            for (int column = 0; column < tiles.width; column++) {
+                assertEquals(level.getTiles().get(column, row), tiles.get(column, row));
+            }
+        }
+    }
+
+    @Test
+    public void readClearsReusedDescriptor() {
+        LevelDescriptor other = new LevelDescriptor();
+        other.get(LevelDescriptor.WOOD).add(1, 1, 1, 1);
+        other.get(LevelDescriptor.WOOD).add(2, 2, 1, 1);
+        other.get(LevelDescriptor.WOOD).add(3, 3, 1, 1);
+        LevelFormat.read(ByteBuffer.wrap(data), LENGTH, MODIFIED, other);
+        assertColumnsEqual(level.get(LevelDescriptor.WOOD), other.get(LevelDescriptor.WOOD));
+    }
+
+    @Test
+    public void writeIsDeterministic() {
+        assertArrayEquals(data, LevelFormat.write(read(data, LENGTH, MODIFIED), LENGTH, MODIFIED));
+    }
+
+    @Test
+    public void unknownModificationTimeOnlyChecksLength() {
+        assertEquals(3.5f, read(data, LENGTH, 0).getPlayerX(), DELTA);
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void rejectsWrongMagic() {
+        data[0] ^= 1;
+        read(data, LENGTH, MODIFIED);
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void rejectsOtherVersion() {
+        ByteBuffer.wrap(data).putInt(4, LevelFormat.VERSION - 1);
+        read(data, LENGTH, MODIFIED);
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void rejectsOtherSourceLength() {
+        read(data, LENGTH + 1, MODIFIED);
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void rejectsOtherSourceModificationTime() {
+        read(data, LENGTH, MODIFIED + 1);
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void rejectsCorruptPayload() {
+        data[data.length - 1] ^= 1;
+        read(data, LENGTH, MODIFIED);
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void rejectsTruncatedData() {
+        byte[] truncated = new byte[data.length - 1];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        read(truncated, LENGTH, MODIFIED);
+    }
+}
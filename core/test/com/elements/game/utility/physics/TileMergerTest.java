@@ -0,0 +1,79 @@
+package com.elements.game.utility.physics;
+
+import com.badlogic.gdx.utils.FloatArray;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class TileMergerTest {
+
+    private static final float DELTA = 1e-4f;
+
+    private static float[] merge(float... tiles) {
+        return TileMerger.merge(tiles, tiles.length / 4, new FloatArray()).toArray();
+    }
+
+    @Test
+    public void mergesColumnAcrossRowZero() {
+        float[] merged = merge(0.5f, -1.5f, 1, 1,
+                               0.5f, 0.5f, 1, 1,
+                               0.5f, -0.5f, 1, 1);
+        assertArrayEquals(new float[]{0.5f, -0.5f, 1, 3}, merged, DELTA);
+    }
+
+    @Test
+    public void mergesRowAcrossColumnZero() {
+        float[] merged = merge(0.5f, 0.5f, 1, 1,
+                               -1.5f, 0.5f, 1, 1,
+                               -0.5f, 0.5f, 1, 1);
+        assertArrayEquals(new float[]{-0.5f, 0.5f, 3, 1}, merged, DELTA);
+    }
+
+    @Test
+    public void mergesBlockAroundOrigin() {
+        float[] merged = merge(-0.5f, -0.5f, 1, 1,
+                               0.5f, -0.5f, 1, 1,
+                               -0.5f, 0.5f, 1, 1,
+                               0.5f, 0.5f, 1, 1);
+        assertArrayEquals(new float[]{0, 0, 2, 2}, merged, DELTA);
+    }
+
+    @Test
+    public void splitsRowsOfDifferentWidths() {
+        // the bottom run is two tiles wide, the tile above it cannot extend it upwards
+        float[] merged = merge(-0.5f, -0.5f, 1, 1,
+                               0.5f, -0.5f, 1, 1,
+                               -0.5f, 0.5f, 1, 1);
+        assertArrayEquals(new float[]{0, -0.5f, 2, 1, -0.5f, 0.5f, 1, 1}, merged, DELTA);
+    }
+
+    @Test
+    public void keepsGapsBetweenTiles() {
+        float[] merged = merge(-2.5f, 0.5f, 1, 1,
+                               -0.5f, 0.5f, 1, 1);
+        assertArrayEquals(new float[]{-2.5f, 0.5f, 1, 1, -0.5f, 0.5f, 1, 1}, merged, DELTA);
+    }
+
+    @Test
+    public void doesNotMergeDifferentSizes() {
+        float[] merged = merge(0.5f, 0.5f, 1, 1,
+                               2, 0.5f, 2, 1);
+        assertArrayEquals(new float[]{0.5f, 0.5f, 1, 1, 2, 0.5f, 2, 1}, merged, DELTA);
+    }
+
+    @Test
+    public void doesNotMergeDifferentGridAlignments() {
+        // both tiles are one unit wide and touch, but lie on grids offset by a quarter unit
+        float[] merged = merge(0.5f, 0.5f, 1, 1,
+                               1.75f, 0.5f, 1, 1);
+        assertArrayEquals(new float[]{0.5f, 0.5f, 1, 1, 1.75f, 0.5f, 1, 1}, merged, DELTA);
+    }
+
+    @Test
+    public void collapsesDuplicateTiles() {
+        float[] merged = merge(-0.5f, -0.5f, 1, 1,
+                               -0.5f, -0.5f, 1, 1,
+                               0.5f, -0.5f, 1, 1);
+        assertArrayEquals(new float[]{0, -0.5f, 2, 1}, merged, DELTA);
+    }
+}
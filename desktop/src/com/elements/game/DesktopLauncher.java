@@ -13,12 +13,33 @@ public class DesktopLauncher {
 		config.setTitle("Elemental Escape");
 		config.setWindowedMode(800, 450);
 		config.setResizable(true);
-		if (arg.length > 0) {
-			new Lwjgl3Application(new GDXRoot(arg[0]), config);
-		}
-		else {
-			// standard, use this branch for shipping
-			new Lwjgl3Application(new GDXRoot(), config);
+		// options: --trace=<file> records the startup asset loads, --no-exit-delay skips the
+		// pause after loading (use both for startup benchmarks), --record=<file> records the
+		// player's input and --replay=<file> plays recorded input instead of the keyboard
+		String testLevel = "";
+		String traceFile = null;
+		String recordFile = null;
+		String replayFile = null;
+		boolean exitDelay = true;
+		for (String option : arg) {
+			if (option.startsWith("--trace=")) {
+				traceFile = option.substring("--trace=".length());
+			} else if (option.startsWith("--record=")) {
+				recordFile = option.substring("--record=".length());
+			} else if (option.startsWith("--replay=")) {
+				replayFile = option.substring("--replay=".length());
+			} else if (option.equals("--no-exit-delay")) {
+				exitDelay = false;
+			} else {
+				testLevel = option;
+			}
 		}
+		// standard, use an empty test level for shipping
+		GDXRoot root = new GDXRoot(testLevel);
+		root.setStartupTrace(traceFile);
+		root.setLoadingExitDelay(exitDelay);
+		root.setInputRecording(recordFile);
+		root.setInputReplay(replayFile);
+		new Lwjgl3Application(root, config);
 	}
 }
@@ -0,0 +1,357 @@
+package com.elements.game.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.elements.game.controller.InputLog;
+import com.elements.game.controller.InputReplay;
+import com.elements.game.utility.json.LevelParser;
+import com.elements.game.utility.level.LevelDescriptor;
+import com.elements.game.utility.level.LevelLoader;
+
+/**
+ * Runs the game simulation without a window or GL context, at maximum speed and with scripted
+ * input (see {@link ScriptedInput}). Must be started in the assets directory.
+ * <p>
+ * Usage: HeadlessLauncher &lt;mode&gt; [options], where mode is one of
+ * <ul>
+ * <li>run: simulates a level for a number of ticks and reports the ticks per second</li>
+ * <li>soak: simulates a level for a number of minutes, checking it stays sane</li>
+ * <li>validate: loads every Tiled map in the tiled directory, simulates it with the whole level
+ * active and reports the maps that fail</li>
+ * <li>replay: simulates the input log given by --replay=&lt;file&gt; (see {@link InputLog}) in the
+ * level it was recorded in, until the log is done</li>
+ * </ul>
+ * Options are --level=&lt;catalog key or Tiled json&gt; (default level0), --ticks=&lt;n&gt;,
+ * --minutes=&lt;n&gt;, --script=&lt;input script file&gt; and, for run, --record=&lt;file&gt; to
+ * write the simulated input to an input log.
+ */
+public class HeadlessLauncher {
+
+    private static final String CATALOG = "catalog/assets.json";
+
+    private static final String TILED_DIRECTORY = "tiled";
+
+    private static final int DEFAULT_RUN_TICKS = 36000;
+
+    private static final int DEFAULT_VALIDATE_TICKS = 600;
+
+    private static final float DEFAULT_SOAK_MINUTES = 10;
+
+    /** ticks between sanity checks during a soak test */
+    private static final int SOAK_CHECK_INTERVAL = 600;
+
+    /** the "jsons" entries of the catalog and of the level manifests */
+    private final ObjectMap<String, String> jsons;
+
+    /** the "tiled" entries (level files) of the catalog and of the level manifests */
+    private final ObjectMap<String, String> levels;
+
+    private final JsonValue gameConstants;
+
+    private final LevelParser parser;
+
+    private final JsonReader reader;
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: HeadlessLauncher run|soak|validate|replay [--level=<key>] " +
+                                       "[--ticks=<n>] [--minutes=<n>] [--script=<file>] " +
+                                       "[--record=<file>] [--replay=<file>]");
+            System.exit(1);
+        }
+        ObjectMap<String, String> options = new ObjectMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            int split = arg.indexOf('=');
+            if (!arg.startsWith("--") || split < 0) {
+                System.err.println("unknown option " + arg);
+                System.exit(1);
+            }
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+
+        // only sets up Gdx.files and the natives, the listener does nothing
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.updatesPerSecond = 1;
+        new HeadlessApplication(new ApplicationAdapter() {}, config);
+
+        int status;
+        try {
+            HeadlessLauncher launcher = new HeadlessLauncher();
+            String script = options.containsKey("script") ?
+                    Gdx.files.local(options.get("script")).readString() :
+                    ScriptedInput.DEFAULT_SCRIPT;
+            String level = options.get("level", "level0");
+            switch (args[0]) {
+                case "run":
+                    status = launcher.run(level, script,
+                                          Integer.parseInt(options.get("ticks",
+                                                                       "" + DEFAULT_RUN_TICKS)),
+                                          options.get("record"));
+                    break;
+                case "soak":
+                    status = launcher.soak(level, script, Float.parseFloat(
+                            options.get("minutes", "" + DEFAULT_SOAK_MINUTES)));
+                    break;
+                case "validate":
+                    status = launcher.validate(script, Integer.parseInt(
+                            options.get("ticks", "" + DEFAULT_VALIDATE_TICKS)));
+                    break;
+                case "replay":
+                    if (!options.containsKey("replay")) {
+                        System.err.println("replay needs --replay=<file>");
+                        status = 1;
+                        break;
+                    }
+                    status = launcher.replay(InputLog.read(Gdx.files.local(options.get("replay"))));
+                    break;
+                default:
+                    System.err.println("unknown mode " + args[0]);
+                    status = 1;
+            }
+        } catch (GdxRuntimeException | NumberFormatException e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        Gdx.app.exit();
+        System.exit(status);
+    }
+
+    /**
+     * reads the catalog, the level manifests, the game constants and the tilesets
+     */
+    private HeadlessLauncher() {
+        reader = new JsonReader();
+        JsonValue catalog = reader.parse(Gdx.files.internal(CATALOG));
+        jsons = new ObjectMap<>();
+        levels = new ObjectMap<>();
+        addEntries(catalog);
+        JsonValue manifests = catalog.get("levels");
+        if (manifests != null) {
+            for (JsonValue manifest : manifests) {
+                addEntries(reader.parse(Gdx.files.internal(manifest.asString())));
+            }
+        }
+        gameConstants = reader.parse(Gdx.files.internal(jsons.get("constants")));
+        parser = new LevelParser(reader.parse(Gdx.files.internal(jsons.get("tileset"))));
+        // levels refer to external tilesets by file name
+        for (ObjectMap.Entry<String, String> entry : jsons) {
+            if (entry.key.startsWith("tileset")) {
+                parser.addTileset(entry.value, reader.parse(Gdx.files.internal(entry.value)));
+            }
+        }
+    }
+
+    private void addEntries(JsonValue manifest) {
+        addEntries(manifest.get("jsons"), jsons);
+        addEntries(manifest.get("tiled"), levels);
+    }
+
+    private static void addEntries(JsonValue entries, ObjectMap<String, String> out) {
+        if (entries == null) {
+            return;
+        }
+        for (JsonValue entry : entries) {
+            out.put(entry.name(), entry.asString());
+        }
+    }
+
+    /**
+     * loads a level the way the game does: from its compiled file if it is up to date, otherwise
+     * from its Tiled json
+     *
+     * @param level catalog key of the level, or path of a Tiled json
+     * @return the level description
+     */
+    private LevelDescriptor loadLevel(String level) {
+        FileHandle source = Gdx.files.internal(levels.get(level, level));
+        if (!source.exists()) {
+            throw new GdxRuntimeException("no level " + level);
+        }
+        return LevelLoader.load(level, source, parser, new LevelDescriptor());
+    }
+
+    /**
+     * simulates a level for a number of ticks
+     *
+     * @param record file (in local storage) to write the simulated input to, null to not record
+     * @return exit status
+     */
+    private int run(String level, String script, int ticks, String record) {
+        HeadlessSimulation simulation = new HeadlessSimulation(gameConstants,
+                                                               new ScriptedInput(script));
+        simulation.load(loadLevel(level));
+        InputLog log = null;
+        if (record != null) {
+            log = new InputLog(level, simulation.getTimeStep());
+            simulation.setRecording(log);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            simulation.step();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        String problem = simulation.findProblem();
+        System.out.printf("%s: %d ticks (%.1f s of game time) in %.3f s, %.0f ticks/s, " +
+                                  "%d objects, %d bodies%n", level, ticks,
+                          ticks * simulation.getTimeStep(), seconds, ticks / seconds,
+                          simulation.getObjectCount(), simulation.getBodyCount());
+        simulation.dispose();
+        if (log != null) {
+            log.write(Gdx.files.local(record));
+        }
+        if (problem != null) {
+            System.out.println("FAIL " + problem);
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * simulates recorded input in the level it was recorded in
+     *
+     * @return exit status
+     */
+    private int replay(InputLog log) {
+        InputReplay input = new InputReplay(log);
+        HeadlessSimulation simulation = new HeadlessSimulation(gameConstants, input);
+        if (log.getTimeStep() != simulation.getTimeStep()) {
+            System.err.println("warning: the log was recorded with a time step of " +
+                                       log.getTimeStep() + " s, the simulation uses " +
+                                       simulation.getTimeStep() + " s");
+        }
+        simulation.load(loadLevel(log.getLevel()));
+        long start = System.nanoTime();
+        int ticks = 0;
+        while (!input.isFinished()) {
+            simulation.step();
+            ticks++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        String problem = simulation.findProblem();
+        System.out.printf("%s: replayed %d ticks (%.1f s of game time) in %.3f s, %.0f ticks/s%n",
+                          log.getLevel(), ticks, ticks * simulation.getTimeStep(), seconds,
+                          ticks / seconds);
+        simulation.dispose();
+        if (problem != null) {
+            System.out.println("FAIL " + problem);
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * simulates a level for the given (real) time, checking that it stays sane and reporting the
+     * throughput once a minute
+     *
+     * @return exit status
+     */
+    private int soak(String level, String script, float minutes) {
+        HeadlessSimulation simulation = new HeadlessSimulation(gameConstants,
+                                                               new ScriptedInput(script));
+        simulation.load(loadLevel(level));
+        long start = System.nanoTime();
+        long end = start + (long) (minutes * 60e9);
+        long reportTime = start;
+        long reportTicks = 0;
+        long ticks = 0;
+        Runtime runtime = Runtime.getRuntime();
+        while (true) {
+            simulation.step();
+            ticks++;
+            if (ticks % SOAK_CHECK_INTERVAL != 0) {
+                continue;
+            }
+            String problem = simulation.findProblem();
+            if (problem != null) {
+                System.out.println("FAIL after " + ticks + " ticks: " + problem);
+                simulation.dispose();
+                return 1;
+            }
+            long now = System.nanoTime();
+            if (now - reportTime >= 60e9 || now >= end) {
+                System.out.printf("%d ticks, %.0f ticks/s, %d bodies, %d MB heap used%n", ticks,
+                                  (ticks - reportTicks) / ((now - reportTime) / 1e9),
+                                  simulation.getBodyCount(),
+                                  (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+                reportTime = now;
+                reportTicks = ticks;
+            }
+            if (now >= end) {
+                break;
+            }
+        }
+        simulation.dispose();
+        return 0;
+    }
+
+    /**
+     * loads and simulates every Tiled map in the tiled directory
+     *
+     * @return exit status (1 if any map failed)
+     */
+    private int validate(String script, int ticks) {
+        int failed = 0;
+        int validated = 0;
+        HeadlessSimulation simulation = new HeadlessSimulation(gameConstants,
+                                                               new ScriptedInput(script));
+        for (FileHandle file : Gdx.files.internal(TILED_DIRECTORY).list(".json")) {
+            String problem;
+            try {
+                JsonValue map = reader.parse(file);
+                if (!"map".equals(map.getString("type", ""))) {
+                    // tilesets live next to the maps
+                    continue;
+                }
+                LevelDescriptor descriptor = parser.parse(map, new LevelDescriptor());
+                // the whole level is simulated, not only the part around the player
+                simulation.setFocus(bounds(descriptor));
+                simulation.load(descriptor);
+                for (int i = 0; i < ticks; i++) {
+                    simulation.step();
+                }
+                problem = simulation.findProblem();
+            } catch (RuntimeException e) {
+                problem = e.toString();
+            }
+            validated++;
+            if (problem == null) {
+                System.out.println("PASS " + file.path() + " (" + simulation.getObjectCount() +
+                                           " objects)");
+            } else {
+                System.out.println("FAIL " + file.path() + ": " + problem);
+                failed++;
+            }
+        }
+        simulation.dispose();
+        System.out.println(validated + " level(s), " + failed + " failed");
+        return failed == 0 ? 0 : 1;
+    }
+
+    /**
+     * @return area covered by the objects and tiles of a level (in game units)
+     */
+    private static Rectangle bounds(LevelDescriptor level) {
+        Rectangle bounds = new Rectangle(level.getPlayerX(), level.getPlayerY(), 0, 0);
+        for (int type = 0; type < LevelDescriptor.TYPE_COUNT; type++) {
+            LevelDescriptor.Columns columns = level.get(type);
+            for (int i = 0; i < columns.size; i++) {
+                bounds.merge(columns.x[i], columns.y[i]);
+            }
+        }
+        LevelDescriptor.TileGrid tiles = level.getTiles();
+        if (tiles.width > 0 && tiles.height > 0) {
+            bounds.merge(tiles.x, tiles.y);
+            bounds.merge(tiles.x + tiles.width, tiles.y + tiles.height);
+        }
+        return bounds;
+    }
+}
@@ -0,0 +1,156 @@
+package com.elements.game.headless;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.JsonValue;
+import com.elements.game.controller.GameplayController;
+import com.elements.game.controller.InputController;
+import com.elements.game.controller.InputLog;
+import com.elements.game.model.CollidableObject;
+import com.elements.game.model.GameWorld;
+import com.elements.game.utility.level.LevelDescriptor;
+
+/**
+ * The gameplay loop of {@link com.elements.game.view.screen.GameplayScreen} without any drawing:
+ * every tick advances the controller by exactly one physics step, which streams the level around
+ * the player first.
+ */
+public class HeadlessSimulation {
+
+    /** size (in game units) of the area kept simulated around the player, as seen by the camera */
+    private static final float VIEW_WIDTH = 16;
+    private static final float VIEW_HEIGHT = 9;
+
+    /** margin (in game units) added around the view, as in the gameplay screen */
+    private static final float VIEW_MARGIN = 1.0f;
+
+    private final GameWorld gameWorld;
+
+    private final GameplayController controller;
+
+    private final InputController input;
+
+    /** level being simulated, reloaded when the input resets */
+    private LevelDescriptor level;
+
+    /** ticks simulated since the level was loaded */
+    private long ticks;
+
+    /**
+     * @param gameConstants default constant values for all levels
+     * @param input         source of the player's input, read once per tick
+     */
+    public HeadlessSimulation(JsonValue gameConstants, InputController input) {
+        this.input = input;
+        gameWorld = new GameWorld(gameConstants);
+        controller = new GameplayController(gameWorld, gameConstants, input);
+        controller.setStreamingArea(VIEW_WIDTH + 2 * VIEW_MARGIN, VIEW_HEIGHT + 2 * VIEW_MARGIN);
+    }
+
+    /**
+     * starts simulating the given level from the beginning
+     *
+     * @param level level description (must not change while it is simulated)
+     */
+    public void load(LevelDescriptor level) {
+        this.level = level;
+        input.restart();
+        reload();
+    }
+
+    /**
+     * starts the level over, the input carries on where it is (a reset is part of the input)
+     */
+    private void reload() {
+        gameWorld.populate(level);
+        // this streams in the chunks around the player
+        controller.reset();
+        ticks = 0;
+    }
+
+    /**
+     * advances the simulation by one physics step
+     */
+    public void step() {
+        controller.update(controller.getTimeStep());
+        if (controller.isResetRequested()) {
+            reload();
+            return;
+        }
+        ticks++;
+    }
+
+    /**
+     * records the input applied at every tick from now on (see
+     * {@link GameplayController#setRecording})
+     *
+     * @param log log to append the input of every tick to, null to stop recording
+     */
+    public void setRecording(InputLog log) {
+        controller.setRecording(log);
+    }
+
+    /**
+     * keeps the given area simulated instead of the area around the player, e.g. the whole level.
+     * This takes effect with the next tick or load.
+     *
+     * @param area area to keep simulated (in game units), null to follow the player again
+     */
+    public void setFocus(Rectangle area) {
+        if (area == null) {
+            controller.setStreamingArea(VIEW_WIDTH + 2 * VIEW_MARGIN, VIEW_HEIGHT + 2 * VIEW_MARGIN);
+        } else {
+            controller.setStreamingArea(area);
+        }
+    }
+
+    /**
+     * checks that the simulation is still sane, i.e. every object has a finite position
+     *
+     * @return a description of the first problem found, or null if there is none
+     */
+    public String findProblem() {
+        for (CollidableObject o : gameWorld.getGameObjects()) {
+            if (!Float.isFinite(o.getX()) || !Float.isFinite(o.getY()) ||
+                    !Float.isFinite(o.getAngle())) {
+                return o.getClass().getSimpleName() + " has position (" + o.getX() + ", " +
+                        o.getY() + ") and angle " + o.getAngle() + " after " + ticks + " ticks";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return ticks simulated since the level was (re)loaded
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return duration (seconds) of a tick
+     */
+    public float getTimeStep() {
+        return controller.getTimeStep();
+    }
+
+    /**
+     * @return number of objects in the world
+     */
+    public int getObjectCount() {
+        return gameWorld.getGameObjects().size();
+    }
+
+    /**
+     * @return number of bodies in the Box2D world
+     */
+    public int getBodyCount() {
+        return gameWorld.getWorld().getBodyCount();
+    }
+
+    /**
+     * frees the Box2D world and stops the thread that prepares level chunks
+     */
+    public void dispose() {
+        gameWorld.dispose();
+    }
+}
@@ -0,0 +1,125 @@
+package com.elements.game.headless;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.elements.game.controller.InputController;
+
+/**
+ * Input read from a script instead of the keyboard. A script is a list of lines
+ * <pre>
+ * &lt;ticks&gt; [left|right] [jump] [ability] [reset]
+ * </pre>
+ * each holding the input for the given number of calls to {@link #readInput()} (one per
+ * simulation tick). Left and right are held for the whole line, while jump, ability and reset are
+ * only pressed on its first tick, like a key that was just pressed. Blank lines and lines starting
+ * with '#' are ignored. The script starts over once it is done.
+ */
+public class ScriptedInput extends InputController {
+
+    /** walks right and left, jumping and casting every now and then */
+    public static final String DEFAULT_SCRIPT = "# walk right, jump over the gap and come back\n" +
+            "60 right\n" + "1 right jump\n" + "90 right\n" + "30\n" + "1 left jump\n" +
+            "150 left\n" + "1 ability\n" + "30\n";
+
+    private static final int LEFT = 1;
+    private static final int RIGHT = 2;
+    private static final int JUMP = 4;
+    private static final int ABILITY = 8;
+    private static final int RESET = 16;
+
+    /** the ticks of every line */
+    private final IntArray ticks;
+
+    /** the actions of every line */
+    private final IntArray actions;
+
+    /** current line */
+    private int line;
+
+    /** ticks already spent on the current line */
+    private int elapsed;
+
+    /**
+     * @param script the script (see class description)
+     */
+    public ScriptedInput(String script) {
+        ticks = new IntArray();
+        actions = new IntArray();
+        String[] lines = script.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String text = lines[i].trim();
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+            String[] words = text.split("\\s+");
+            int count;
+            try {
+                count = Integer.parseInt(words[0]);
+            } catch (NumberFormatException e) {
+                throw new GdxRuntimeException("line " + (i + 1) + ": tick count expected", e);
+            }
+            int action = 0;
+            for (int w = 1; w < words.length; w++) {
+                action |= parseAction(words[w], i + 1);
+            }
+            if (count > 0) {
+                ticks.add(count);
+                actions.add(action);
+            }
+        }
+        if (ticks.isEmpty()) {
+            // nothing to do, stand still
+            ticks.add(1);
+            actions.add(0);
+        }
+    }
+
+    private static int parseAction(String word, int line) {
+        switch (word) {
+            case "left":
+                return LEFT;
+            case "right":
+                return RIGHT;
+            case "jump":
+                return JUMP;
+            case "ability":
+                return ABILITY;
+            case "reset":
+                return RESET;
+            default:
+                throw new GdxRuntimeException("line " + line + ": unknown action " + word);
+        }
+    }
+
+    /**
+     * starts the script over from its first line
+     */
+    @Override
+    public void restart() {
+        line = 0;
+        elapsed = 0;
+    }
+
+    @Override
+    public void readInput() {
+        if (elapsed == ticks.get(line)) {
+            elapsed = 0;
+            line = (line + 1) % ticks.size;
+        }
+        int action = actions.get(line);
+        boolean pressed = elapsed == 0;
+        elapsed++;
+
+        horizontal = 0.0f;
+        if ((action & RIGHT) != 0) {
+            horizontal += 1.0f;
+        }
+        if ((action & LEFT) != 0) {
+            horizontal -= 1.0f;
+        }
+        jumpToggled = pressed && (action & JUMP) != 0;
+        abilityToggled = pressed && (action & ABILITY) != 0;
+        resetToggled = pressed && (action & RESET) != 0;
+        debugToggled = false;
+    }
+}
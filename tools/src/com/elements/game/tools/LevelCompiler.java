@@ -0,0 +1,99 @@
+package com.elements.game.tools;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.elements.game.utility.json.LevelParser;
+import com.elements.game.utility.level.LevelDescriptor;
+import com.elements.game.utility.level.LevelFormat;
+
+import java.io.File;
+
+/**
+ * Compiles the Tiled levels listed in the asset catalog into the binary level format (see
+ * {@link LevelFormat}), so the game does not have to parse Tiled json at runtime. Every "tiled"
+ * entry of the catalog, or of a level manifest named in its "levels" section, is compiled. A
+ * compiled level records the size and modification time of its source, so the game ignores it
+ * once the source is edited. Tilesets are taken from the entries whose key starts with
+ * "tileset"; the "tileset" entry is also used for any tileset a level refers to that is not in the
+ * catalog.
+ * <p>
+ * Usage: LevelCompiler &lt;assets directory&gt; [catalog] [output directory]. The catalog and
+ * output directory are relative to the assets directory and default to "catalog/assets.json" and
+ * "levels/compiled".
+ */
+public class LevelCompiler {
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: LevelCompiler <assets directory> [catalog] " +
+                                       "[output directory]");
+            System.exit(1);
+        }
+        File assets = new File(args[0]);
+        String catalogPath = args.length > 1 ? args[1] : "catalog/assets.json";
+        String outputPath = args.length > 2 ? args[2] : "levels/compiled";
+
+        JsonReader reader = new JsonReader();
+        JsonValue catalog = reader.parse(new FileHandle(new File(assets, catalogPath)));
+        JsonValue jsons = catalog.get("jsons");
+        if (jsons == null || !jsons.has("tileset")) {
+            System.err.println("catalog " + catalogPath + " has no tileset entry");
+            System.exit(1);
+        }
+        JsonValue tileset = reader.parse(new FileHandle(new File(assets,
+                                                                 jsons.getString("tileset"))));
+        LevelParser parser = new LevelParser(tileset);
+        // levels refer to external tilesets by file name
+        for (JsonValue entry : jsons) {
+            if (entry.name().startsWith("tileset")) {
+                parser.addTileset(entry.asString(),
+                                  reader.parse(new FileHandle(new File(assets, entry.asString()))));
+            }
+        }
+        LevelDescriptor level = new LevelDescriptor();
+        FileHandle output = new FileHandle(new File(assets, outputPath));
+        output.mkdirs();
+
+        int compiled = compileLevels(catalog.get("tiled"), assets, parser, level, output);
+        // levels may also be listed in their own asset manifests
+        JsonValue levels = catalog.get("levels");
+        if (levels != null) {
+            for (JsonValue manifest : levels) {
+                JsonValue tiled = reader.parse(new FileHandle(
+                        new File(assets, manifest.asString()))).get("tiled");
+                compiled += compileLevels(tiled, assets, parser, level, output);
+            }
+        }
+        System.out.println("compiled " + compiled + " level(s)");
+    }
+
+    /**
+     * compiles the levels of the "tiled" entries of a catalog or manifest
+     *
+     * @param tiled the "tiled" entries, may be null
+     * @return the number of compiled levels
+     */
+    private static int compileLevels(JsonValue tiled, File assets, LevelParser parser,
+                                     LevelDescriptor level, FileHandle output) {
+        if (tiled == null) {
+            return 0;
+        }
+        JsonReader reader = new JsonReader();
+        int compiled = 0;
+        for (JsonValue entry : tiled) {
+            FileHandle source = new FileHandle(new File(assets, entry.asString()));
+            parser.parse(reader.parse(source), level);
+            FileHandle target = output.child(entry.name() + "." + LevelFormat.EXTENSION);
+            // the game falls back to the json once the source no longer matches this stamp
+            byte[] data = LevelFormat.write(level, source.length(), source.lastModified());
+            target.writeBytes(data, false);
+            System.out.println(source.path() + " -> " + target.path() + " (" + data.length +
+                                       " bytes, " + level.get(LevelDescriptor.PLATFORM).size +
+                                       " platforms, " + level.get(LevelDescriptor.WOOD).size +
+                                       " movable blocks)");
+            compiled++;
+        }
+        return compiled;
+    }
+}